@@ -0,0 +1,270 @@
+package de.dhbw.mh.redeggs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A prefilter for a whole set of rules: it scans the input once and reports
+ * which rules may match, i.e. whose {@link RequiredLiterals required literal}
+ * occurs in the input.
+ * <p>
+ * The required literals of all rules are compiled into a single Aho-Corasick
+ * automaton. Its goto function is fully resolved (failure links are folded into
+ * the transitions) and stored in one flat {@code int[]} indexed by
+ * {@code state * classCount + class}, where chars are mapped to a dense class
+ * number first. Scanning therefore costs two array lookups per char, no matter
+ * how many rules there are.
+ * </p>
+ * <p>
+ * Rules without a required literal cannot be filtered and are always reported.
+ * Instances are immutable and may be shared between threads.
+ * </p>
+ */
+public final class AhoCorasickPrefilter {
+
+	private final int ruleCount;
+
+	/**
+	 * The class of every ASCII char; class {@code 0} stands for chars that do not
+	 * occur in any literal.
+	 */
+	private final int[] asciiClasses = new int[128];
+
+	/**
+	 * Sorted non-ASCII chars occurring in literals, and their classes.
+	 */
+	private final char[] otherChars;
+	private final int[] otherClasses;
+
+	private final int classCount;
+
+	/**
+	 * The resolved transition table.
+	 */
+	private final int[] delta;
+
+	/**
+	 * The rules reported in each state are
+	 * {@code outputRules[outputStart[state] .. outputStart[state + 1])}.
+	 */
+	private final int[] outputStart;
+	private final int[] outputRules;
+
+	/**
+	 * Rules without a required literal.
+	 */
+	private final BitSet alwaysAwake = new BitSet();
+
+	private final String[] literals;
+
+	private AhoCorasickPrefilter(String[] literals) {
+		this.literals = literals;
+		this.ruleCount = literals.length;
+
+		// dense classes for all chars occurring in literals
+		char[] chars = String.join("", literals).chars().distinct().sorted().collect(StringBuilder::new,
+				StringBuilder::appendCodePoint, StringBuilder::append).toString().toCharArray();
+		int classes = 1;
+		int others = 0;
+		char[] otherChars = new char[chars.length];
+		int[] otherClasses = new int[chars.length];
+		for (char c : chars) {
+			if (c < 128) {
+				asciiClasses[c] = classes++;
+			} else {
+				otherChars[others] = c;
+				otherClasses[others++] = classes++;
+			}
+		}
+		this.otherChars = Arrays.copyOf(otherChars, others);
+		this.otherClasses = Arrays.copyOf(otherClasses, others);
+		this.classCount = classes;
+
+		// build the trie, -1 marks missing edges
+		int capacity = 1;
+		for (String literal : literals) {
+			capacity += literal.length();
+		}
+		int[] go = new int[capacity * classCount];
+		Arrays.fill(go, -1);
+		List<List<Integer>> own = new ArrayList<>();
+		own.add(new ArrayList<>());
+		int states = 1;
+		for (int rule = 0; rule < literals.length; rule++) {
+			String literal = literals[rule];
+			if (literal.isEmpty()) {
+				alwaysAwake.set(rule);
+				continue;
+			}
+			int state = 0;
+			for (int i = 0; i < literal.length(); i++) {
+				int index = state * classCount + classOf(literal.charAt(i));
+				if (go[index] < 0) {
+					go[index] = states++;
+					own.add(new ArrayList<>());
+				}
+				state = go[index];
+			}
+			own.get(state).add(rule);
+		}
+
+		// resolve failure links breadth-first and merge outputs along them
+		int[] fail = new int[states];
+		int[] queue = new int[states];
+		int head = 0, tail = 0;
+		int[][] outputs = new int[states][];
+		outputs[0] = toArray(own.get(0));
+		for (int c = 0; c < classCount; c++) {
+			int next = go[c];
+			if (next < 0) {
+				go[c] = 0;
+			} else {
+				fail[next] = 0;
+				queue[tail++] = next;
+			}
+		}
+		while (head < tail) {
+			int state = queue[head++];
+			int[] inherited = outputs[fail[state]];
+			List<Integer> mine = own.get(state);
+			int[] merged = Arrays.copyOf(inherited, inherited.length + mine.size());
+			for (int i = 0; i < mine.size(); i++) {
+				merged[inherited.length + i] = mine.get(i);
+			}
+			outputs[state] = merged;
+			for (int c = 0; c < classCount; c++) {
+				int index = state * classCount + c;
+				int fallback = go[fail[state] * classCount + c];
+				if (go[index] < 0) {
+					go[index] = fallback;
+				} else {
+					fail[go[index]] = fallback;
+					queue[tail++] = go[index];
+				}
+			}
+		}
+		this.delta = Arrays.copyOf(go, states * classCount);
+
+		this.outputStart = new int[states + 1];
+		for (int state = 0; state < states; state++) {
+			outputStart[state + 1] = outputStart[state] + outputs[state].length;
+		}
+		this.outputRules = new int[outputStart[states]];
+		for (int state = 0; state < states; state++) {
+			System.arraycopy(outputs[state], 0, outputRules, outputStart[state], outputs[state].length);
+		}
+	}
+
+	private static int[] toArray(List<Integer> list) {
+		return list.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	/**
+	 * Creates the prefilter for the given rules.
+	 *
+	 * @param rules the rules, identified by their index in the list
+	 * @return the prefilter for {@code rules}
+	 */
+	public static AhoCorasickPrefilter of(List<? extends RegularEggspression> rules) {
+		String[] literals = new String[rules.size()];
+		for (int rule = 0; rule < literals.length; rule++) {
+			literals[rule] = RequiredLiterals.of(rules.get(rule)).factor();
+		}
+		return new AhoCorasickPrefilter(literals);
+	}
+
+	private int classOf(char c) {
+		if (c < 128) {
+			return asciiClasses[c];
+		}
+		int index = Arrays.binarySearch(otherChars, c);
+		return index < 0 ? 0 : otherClasses[index];
+	}
+
+	/**
+	 * Returns the number of rules of this prefilter.
+	 *
+	 * @return the number of rules
+	 */
+	public int ruleCount() {
+		return ruleCount;
+	}
+
+	/**
+	 * Returns the number of states of the underlying automaton.
+	 *
+	 * @return the number of states
+	 */
+	public int stateCount() {
+		return outputStart.length - 1;
+	}
+
+	/**
+	 * Returns the literal searched for on behalf of the given rule.
+	 *
+	 * @param rule the index of the rule
+	 * @return the required literal of the rule, empty if it is always reported
+	 */
+	public String literal(int rule) {
+		return literals[rule];
+	}
+
+	/**
+	 * Scans the given text and returns the rules that may match it.
+	 *
+	 * @param text the text to scan
+	 * @return the indices of all rules that may match
+	 */
+	public BitSet scan(CharSequence text) {
+		BitSet awake = new BitSet(ruleCount);
+		scan(text, awake);
+		return awake;
+	}
+
+	/**
+	 * Scans the given text and adds the rules that may match it to
+	 * {@code awake}.
+	 *
+	 * @param text  the text to scan
+	 * @param awake the set receiving the indices of all rules that may match
+	 */
+	public void scan(CharSequence text, BitSet awake) {
+		awake.or(alwaysAwake);
+		int state = 0;
+		for (int i = 0, n = text.length(); i < n; i++) {
+			state = delta[state * classCount + classOf(text.charAt(i))];
+			if (outputStart[state] != outputStart[state + 1]) {
+				report(state, awake);
+			}
+		}
+	}
+
+	/**
+	 * Scans {@code text[from, to)} and adds the rules that may match it to
+	 * {@code awake}.
+	 *
+	 * @param text  the text to scan
+	 * @param from  the index to start scanning at (inclusive)
+	 * @param to    the index to stop scanning at (exclusive)
+	 * @param awake the set receiving the indices of all rules that may match
+	 */
+	public void scan(char[] text, int from, int to, BitSet awake) {
+		awake.or(alwaysAwake);
+		int state = 0;
+		for (int i = from; i < to; i++) {
+			state = delta[state * classCount + classOf(text[i])];
+			if (outputStart[state] != outputStart[state + 1]) {
+				report(state, awake);
+			}
+		}
+	}
+
+	private void report(int state, BitSet awake) {
+		for (int i = outputStart[state]; i < outputStart[state + 1]; i++) {
+			awake.set(outputRules[i]);
+		}
+	}
+
+}
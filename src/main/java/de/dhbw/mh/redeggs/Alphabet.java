@@ -0,0 +1,172 @@
+package de.dhbw.mh.redeggs;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Partitions the Unicode code points into classes that no symbol of a given
+ * set distinguishes.
+ * <p>
+ * Two code points belong to the same class if and only if they are contained
+ * in exactly the same symbols. Class {@code 0} holds all code points contained
+ * in no symbol at all. Matching engines index their tables by class instead of
+ * code point, which keeps them small even for large character classes.
+ * </p>
+ * <p>
+ * Lookups of ASCII code points use a direct table; all other code points are
+ * looked up by binary search over the interval boundaries.
+ * </p>
+ */
+public final class Alphabet {
+
+	private final int[] asciiClasses = new int[128];
+
+	/**
+	 * The first code point of each interval, sorted ascending, starting at 0.
+	 */
+	private final int[] starts;
+
+	/**
+	 * The class of each interval.
+	 */
+	private final int[] classes;
+
+	private final int classCount;
+
+	private Alphabet(int[] starts, int[] classes, int classCount) {
+		this.starts = starts;
+		this.classes = classes;
+		this.classCount = classCount;
+		for (int c = 0; c < asciiClasses.length; c++) {
+			asciiClasses[c] = lookup(c);
+		}
+	}
+
+	/**
+	 * Computes the coarsest partition distinguishing the given symbols.
+	 *
+	 * @param symbols the symbols to distinguish
+	 * @return the alphabet of {@code symbols}
+	 */
+	public static Alphabet of(List<RangeSymbol> symbols) {
+		int count = 0;
+		for (RangeSymbol symbol : symbols) {
+			count += 2 * symbol.rangeCount();
+		}
+		int[] bounds = new int[count + 1];
+		int n = 0;
+		bounds[n++] = 0;
+		for (RangeSymbol symbol : symbols) {
+			for (int r = 0; r < symbol.rangeCount(); r++) {
+				bounds[n++] = symbol.first(r);
+				if (symbol.last(r) < RangeSymbol.MAX_CODE_POINT) {
+					bounds[n++] = symbol.last(r) + 1;
+				}
+			}
+		}
+		int[] starts = Arrays.stream(bounds, 0, n).sorted().distinct().toArray();
+
+		int[] classes = new int[starts.length];
+		Map<BitSet, Integer> signatures = new HashMap<>();
+		signatures.put(new BitSet(), 0);
+		for (int i = 0; i < starts.length; i++) {
+			BitSet signature = new BitSet();
+			for (int s = 0; s < symbols.size(); s++) {
+				if (symbols.get(s).contains(starts[i])) {
+					signature.set(s);
+				}
+			}
+			Integer cls = signatures.get(signature);
+			if (cls == null) {
+				cls = signatures.size();
+				signatures.put(signature, cls);
+			}
+			classes[i] = cls;
+		}
+		return new Alphabet(starts, classes, signatures.size());
+	}
+
+	/**
+	 * Restores an alphabet from its interval representation, see
+	 * {@link #intervalStarts()} and {@link #intervalClasses()}.
+	 *
+	 * @param starts     the first code point of each interval
+	 * @param classes    the class of each interval
+	 * @param classCount the number of classes
+	 * @return the restored alphabet
+	 */
+	static Alphabet of(int[] starts, int[] classes, int classCount) {
+		return new Alphabet(starts, classes, classCount);
+	}
+
+	private int lookup(int codePoint) {
+		int low = 0, high = starts.length - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (starts[mid] <= codePoint) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return classes[low];
+	}
+
+	/**
+	 * Returns the class of the given code point.
+	 *
+	 * @param codePoint the code point to classify
+	 * @return the class of {@code codePoint}
+	 */
+	public int classOf(int codePoint) {
+		if (codePoint < 128) {
+			return asciiClasses[codePoint];
+		}
+		return lookup(codePoint);
+	}
+
+	/**
+	 * Returns the number of classes.
+	 *
+	 * @return the number of classes, including class {@code 0}
+	 */
+	public int classCount() {
+		return classCount;
+	}
+
+	/**
+	 * Returns the first code point of every interval of this alphabet.
+	 *
+	 * @return a copy of the interval starts
+	 */
+	int[] intervalStarts() {
+		return starts.clone();
+	}
+
+	/**
+	 * Returns the class of every interval of this alphabet.
+	 *
+	 * @return a copy of the interval classes
+	 */
+	int[] intervalClasses() {
+		return classes.clone();
+	}
+
+	/**
+	 * Returns a code point of every class.
+	 *
+	 * @return an array mapping each class to one of its code points
+	 */
+	public int[] representatives() {
+		int[] representatives = new int[classCount];
+		Arrays.fill(representatives, -1);
+		for (int i = starts.length - 1; i >= 0; i--) {
+			representatives[classes[i]] = starts[i];
+		}
+		return representatives;
+	}
+
+}
@@ -0,0 +1,236 @@
+package de.dhbw.mh.redeggs;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.dhbw.mh.redeggs.RegularEggspression.Alternation;
+import de.dhbw.mh.redeggs.RegularEggspression.Concatenation;
+import de.dhbw.mh.redeggs.RegularEggspression.Group;
+import de.dhbw.mh.redeggs.RegularEggspression.Literal;
+import de.dhbw.mh.redeggs.RegularEggspression.Star;
+
+/**
+ * Runs several bottom-up analyses in a single memoized traversal.
+ * <p>
+ * Compile pipelines typically need several facts about the same expression,
+ * e.g. whether it is nullable, its size and its required literals. Instead of
+ * one traversal per analysis, the analyses are registered with a pass, which
+ * visits every distinct node once and feeds it to all of them:
+ * </p>
+ *
+ * <pre>
+ * AnalysisPass pass = new AnalysisPass();
+ * AnalysisPass.Key&lt;Boolean&gt; nullable = pass.add(new RegularEggspression.Visitor&lt;Boolean&gt;() {
+ *     public Boolean visit(EmptyWord emptyWord) { return true; }
+ *     public Boolean visit(EmptySet emptySet) { return false; }
+ *     public Boolean visitPost(Concatenation concat, Boolean left, Boolean right) { return left &amp;&amp; right; }
+ *     public Boolean visitPost(Alternation union, Boolean left, Boolean right) { return left || right; }
+ *     public Boolean visitPost(Star star, Boolean base) { return true; }
+ *     public Boolean visitPost(Literal literal, VirtualSymbol symbol) { return false; }
+ * });
+ * AnalysisPass.Results results = pass.run(expression);
+ * boolean matchesEmptyWord = results.get(nullable);
+ * </pre>
+ * <p>
+ * The same restrictions as for {@link MemoizingVisitor} apply to the
+ * analyses. Results are cached across runs according to the pass's keying and
+ * retention, so a pass can be reused for many expressions sharing subtrees.
+ * </p>
+ */
+public final class AnalysisPass {
+
+	private final List<RegularEggspression.Visitor<?>> analyses = new ArrayList<>();
+
+	private final MemoizingVisitor.Keying keying;
+
+	private final MemoizingVisitor.Retention retention;
+
+	private MemoizingVisitor<Object[]> traversal;
+
+	/**
+	 * Creates a pass caching by identity with strong retention.
+	 */
+	public AnalysisPass() {
+		this(MemoizingVisitor.Keying.IDENTITY, MemoizingVisitor.Retention.STRONG);
+	}
+
+	/**
+	 * Creates a pass with the given caching policy.
+	 *
+	 * @param keying    how nodes are identified
+	 * @param retention how long results are retained
+	 */
+	public AnalysisPass(MemoizingVisitor.Keying keying, MemoizingVisitor.Retention retention) {
+		this.keying = keying;
+		this.retention = retention;
+	}
+
+	/**
+	 * Identifies the result of one analysis within {@link Results}.
+	 *
+	 * @param <T> the result type of the analysis
+	 */
+	public static final class Key<T> {
+		private final AnalysisPass pass;
+		private final int index;
+
+		private Key(AnalysisPass pass, int index) {
+			this.pass = pass;
+			this.index = index;
+		}
+	}
+
+	/**
+	 * The results of all analyses for one expression.
+	 */
+	public static final class Results {
+		private final AnalysisPass pass;
+		private final Object[] values;
+
+		private Results(AnalysisPass pass, Object[] values) {
+			this.pass = pass;
+			this.values = values;
+		}
+
+		/**
+		 * Returns the result of the analysis identified by the given key.
+		 *
+		 * @param <T> the result type of the analysis
+		 * @param key the key returned when the analysis was added
+		 * @return the result of the analysis
+		 * @throws IllegalArgumentException if the key belongs to another pass
+		 */
+		@SuppressWarnings("unchecked")
+		public <T> T get(Key<T> key) {
+			if (key.pass != pass) {
+				throw new IllegalArgumentException("Key belongs to another analysis pass");
+			}
+			return (T) values[key.index];
+		}
+	}
+
+	/**
+	 * Registers an analysis.
+	 *
+	 * @param <T>      the result type of the analysis
+	 * @param analysis the analysis to run
+	 * @return the key of the analysis's results
+	 * @throws IllegalStateException if the pass has already been run
+	 */
+	public <T> Key<T> add(RegularEggspression.Visitor<T> analysis) {
+		if (traversal != null) {
+			throw new IllegalStateException("Analyses must be added before the first run");
+		}
+		analyses.add(analysis);
+		return new Key<>(this, analyses.size() - 1);
+	}
+
+	/**
+	 * Runs all registered analyses on the given expression.
+	 *
+	 * @param expression the expression to analyze
+	 * @return the results of all analyses
+	 */
+	public Results run(RegularEggspression expression) {
+		if (traversal == null) {
+			@SuppressWarnings("unchecked")
+			RegularEggspression.Visitor<Object>[] all = (RegularEggspression.Visitor<Object>[]) analyses
+					.toArray(new RegularEggspression.Visitor<?>[0]);
+			traversal = new MemoizingVisitor<>(new Combined(all), keying, retention);
+		}
+		return new Results(this, expression.accept(traversal));
+	}
+
+	/**
+	 * Drops all cached results.
+	 */
+	public void clear() {
+		if (traversal != null) {
+			traversal.clear();
+		}
+	}
+
+	/**
+	 * Combines the analyses into one whose result holds one value per analysis.
+	 */
+	private static final class Combined implements RegularEggspression.Visitor<Object[]> {
+		private final RegularEggspression.Visitor<Object>[] analyses;
+
+		Combined(RegularEggspression.Visitor<Object>[] analyses) {
+			this.analyses = analyses;
+		}
+
+		@Override
+		public Object[] visit(RegularEggspression.EmptyWord emptyWord) {
+			Object[] results = new Object[analyses.length];
+			for (int i = 0; i < analyses.length; i++) {
+				results[i] = analyses[i].visit(emptyWord);
+			}
+			return results;
+		}
+
+		@Override
+		public Object[] visit(RegularEggspression.EmptySet emptySet) {
+			Object[] results = new Object[analyses.length];
+			for (int i = 0; i < analyses.length; i++) {
+				results[i] = analyses[i].visit(emptySet);
+			}
+			return results;
+		}
+
+		@Override
+		public Object[] visit(RegularEggspression.Invalid invalid) {
+			Object[] results = new Object[analyses.length];
+			for (int i = 0; i < analyses.length; i++) {
+				results[i] = analyses[i].visit(invalid);
+			}
+			return results;
+		}
+
+		@Override
+		public Object[] visitPost(Concatenation concat, Object[] prefix, Object[] suffix) {
+			Object[] results = new Object[analyses.length];
+			for (int i = 0; i < analyses.length; i++) {
+				results[i] = analyses[i].visitPost(concat, prefix[i], suffix[i]);
+			}
+			return results;
+		}
+
+		@Override
+		public Object[] visitPost(Alternation union, Object[] first, Object[] second) {
+			Object[] results = new Object[analyses.length];
+			for (int i = 0; i < analyses.length; i++) {
+				results[i] = analyses[i].visitPost(union, first[i], second[i]);
+			}
+			return results;
+		}
+
+		@Override
+		public Object[] visitPost(Star star, Object[] base) {
+			Object[] results = new Object[analyses.length];
+			for (int i = 0; i < analyses.length; i++) {
+				results[i] = analyses[i].visitPost(star, base[i]);
+			}
+			return results;
+		}
+
+		@Override
+		public Object[] visitPost(Group group, Object[] base) {
+			Object[] results = new Object[analyses.length];
+			for (int i = 0; i < analyses.length; i++) {
+				results[i] = analyses[i].visitPost(group, base[i]);
+			}
+			return results;
+		}
+
+		@Override
+		public Object[] visitPost(Literal literal, VirtualSymbol symbol) {
+			Object[] results = new Object[analyses.length];
+			for (int i = 0; i < analyses.length; i++) {
+				results[i] = analyses[i].visitPost(literal, symbol);
+			}
+			return results;
+		}
+	}
+
+}
@@ -0,0 +1,72 @@
+package de.dhbw.mh.redeggs;
+
+/**
+ * A {@link Dfa} whose transition table is a dense {@code int} array on the
+ * heap, one row of {@code classCount()} entries per state.
+ */
+public final class ArrayDfa implements Dfa {
+
+	private final Alphabet alphabet;
+
+	private final int classCount;
+
+	private final int[] transitions;
+
+	private final int[] acceptLabels;
+
+	/**
+	 * Creates a DFA from its tables.
+	 *
+	 * @param alphabet     the classes of the code points
+	 * @param transitions  the successor of every state and class, row by row
+	 * @param acceptLabels the accepted rule of every state
+	 */
+	ArrayDfa(Alphabet alphabet, int[] transitions, int[] acceptLabels) {
+		this.alphabet = alphabet;
+		this.classCount = alphabet.classCount();
+		this.transitions = transitions;
+		this.acceptLabels = acceptLabels;
+	}
+
+	/**
+	 * Returns the classes of the code points.
+	 *
+	 * @return the alphabet
+	 */
+	public Alphabet alphabet() {
+		return alphabet;
+	}
+
+	@Override
+	public int stateCount() {
+		return acceptLabels.length;
+	}
+
+	@Override
+	public int classCount() {
+		return classCount;
+	}
+
+	@Override
+	public int classOf(int codePoint) {
+		return alphabet.classOf(codePoint);
+	}
+
+	@Override
+	public int next(int state, int cls) {
+		return transitions[state * classCount + cls];
+	}
+
+	@Override
+	public int acceptLabel(int state) {
+		return acceptLabels[state];
+	}
+
+	@Override
+	public TableStatistics statistics() {
+		long transitionCount = transitions.length;
+		return new TableStatistics(TableLayout.DENSE, stateCount(), classCount, Integer.BYTES,
+				transitionCount * Integer.BYTES, transitionCount, 1);
+	}
+
+}
@@ -0,0 +1,262 @@
+package de.dhbw.mh.redeggs;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Simulates a {@link GlushkovAutomaton} bit-parallel.
+ * <p>
+ * Bit {@code 0} of the state set stands for the initial state and bit
+ * {@code p + 1} for position {@code p}. One step consumes a code point by
+ * computing the union of the follow sets of all active states and masking it
+ * with the positions whose symbol contains the code point. The masks are
+ * precomputed per {@link Alphabet} class.
+ * </p>
+ * <p>
+ * Automata with fewer than 64 positions keep their state set in a single
+ * {@code long}. The follow sets are then precomputed for every byte of the
+ * state set, so a step costs at most eight table lookups no matter how many
+ * states are active. Larger automata keep their state set in a {@code long[]}
+ * and combine the follow sets of the active states word by word; the two
+ * state sets of a match are taken from a {@link ScratchPool}.
+ * </p>
+ */
+public final class BitParallelMatcher implements RedeggsMatcher {
+
+	/**
+	 * The largest number of positions handled by this engine.
+	 */
+	public static final int MAX_POSITIONS = 1023;
+
+	private static final int CHUNK_BITS = 8;
+
+	private final Alphabet alphabet;
+
+	private final int words;
+
+	/**
+	 * The positions containing each class, {@code words} words per class.
+	 */
+	private final long[] classMasks;
+
+	/**
+	 * The accepting states.
+	 */
+	private final long[] accept;
+
+	/**
+	 * For a single word, the union of the follow sets for every value of every
+	 * byte of the state set; otherwise, the follow set of every state,
+	 * {@code words} words each.
+	 */
+	private final long[] follow;
+
+	private final ScratchPool<long[][]> scratch;
+
+	private BitParallelMatcher(GlushkovAutomaton automaton) {
+		int positions = automaton.positionCount();
+		int states = positions + 1;
+		RangeSymbol[] symbols = new RangeSymbol[positions];
+		for (int p = 0; p < positions; p++) {
+			symbols[p] = automaton.symbol(p);
+		}
+		this.alphabet = Alphabet.of(Arrays.asList(symbols));
+		this.words = (states + 63) >>> 6;
+
+		int[] representatives = alphabet.representatives();
+		this.classMasks = new long[alphabet.classCount() * words];
+		for (int cls = 0; cls < representatives.length; cls++) {
+			for (int p = 0; p < positions; p++) {
+				if (symbols[p].contains(representatives[cls])) {
+					set(classMasks, cls * words, p + 1);
+				}
+			}
+		}
+
+		this.accept = new long[words];
+		or(accept, 0, automaton.last(), 1);
+		if (automaton.isNullable()) {
+			set(accept, 0, 0);
+		}
+
+		long[] followSets = new long[states * words];
+		or(followSets, 0, automaton.first(), 1);
+		for (int p = 0; p < positions; p++) {
+			or(followSets, (p + 1) * words, automaton.follow(p), 1);
+		}
+		if (words == 1) {
+			int chunks = (states + CHUNK_BITS - 1) / CHUNK_BITS;
+			this.follow = new long[chunks << CHUNK_BITS];
+			for (int chunk = 0; chunk < chunks; chunk++) {
+				for (int value = 1; value < 1 << CHUNK_BITS; value++) {
+					int low = Integer.numberOfTrailingZeros(value);
+					int state = chunk * CHUNK_BITS + low;
+					long union = follow[(chunk << CHUNK_BITS) | (value & (value - 1))];
+					if (state < states) {
+						union |= followSets[state];
+					}
+					follow[(chunk << CHUNK_BITS) | value] = union;
+				}
+			}
+			this.scratch = null;
+		} else {
+			this.follow = followSets;
+			this.scratch = new ScratchPool<>(() -> new long[2][words]);
+		}
+	}
+
+	/**
+	 * Creates a matcher for the given automaton.
+	 *
+	 * @param automaton the automaton to simulate
+	 * @return the matcher
+	 * @throws IllegalArgumentException if the automaton has more than
+	 *                                  {@link #MAX_POSITIONS} positions
+	 */
+	public static BitParallelMatcher of(GlushkovAutomaton automaton) {
+		if (automaton.positionCount() > MAX_POSITIONS) {
+			throw new IllegalArgumentException(
+					"Too many positions for bit-parallel matching: " + automaton.positionCount());
+		}
+		return new BitParallelMatcher(automaton);
+	}
+
+	/**
+	 * Compiles the given expression.
+	 *
+	 * @param expression the expression to compile
+	 * @return the matcher
+	 * @throws IllegalArgumentException if the expression has more than
+	 *                                  {@link #MAX_POSITIONS} literals or a symbol
+	 *                                  does not expose its code point ranges
+	 */
+	public static BitParallelMatcher compile(RegularEggspression expression) {
+		if (GlushkovAutomaton.countPositions(expression, MAX_POSITIONS) > MAX_POSITIONS) {
+			throw new IllegalArgumentException(
+					"Too many positions for bit-parallel matching: more than " + MAX_POSITIONS);
+		}
+		return of(GlushkovAutomaton.of(expression));
+	}
+
+	private static void set(long[] bits, int offset, int bit) {
+		bits[offset + (bit >>> 6)] |= 1L << bit;
+	}
+
+	private static void or(long[] bits, int offset, BitSet set, int shift) {
+		for (int p = set.nextSetBit(0); p >= 0; p = set.nextSetBit(p + 1)) {
+			set(bits, offset, p + shift);
+		}
+	}
+
+	/**
+	 * Returns the number of {@code long} words of the state set.
+	 *
+	 * @return the number of words
+	 */
+	public int stateWords() {
+		return words;
+	}
+
+	@Override
+	public boolean matches(CharSequence input) {
+		return words == 1 ? run(input, true) : runWide(input, true);
+	}
+
+	@Override
+	public boolean find(CharSequence input) {
+		return words == 1 ? run(input, false) : runWide(input, false);
+	}
+
+	private long step(long states) {
+		long next = 0;
+		for (int base = 0; states != 0; base += 1 << CHUNK_BITS, states >>>= CHUNK_BITS) {
+			next |= follow[base | (int) (states & 0xFF)];
+		}
+		return next;
+	}
+
+	private boolean run(CharSequence input, boolean anchored) {
+		long accepting = accept[0];
+		long states = 1L;
+		if (!anchored && (states & accepting) != 0) {
+			return true;
+		}
+		for (int i = 0, length = input.length(); i < length;) {
+			int codePoint = Character.codePointAt(input, i);
+			i += Character.charCount(codePoint);
+			if (!anchored) {
+				states |= 1L;
+			}
+			states = step(states) & classMasks[alphabet.classOf(codePoint)];
+			if (anchored) {
+				if (states == 0) {
+					return false;
+				}
+			} else if ((states & accepting) != 0) {
+				return true;
+			}
+		}
+		return (states & accepting) != 0;
+	}
+
+	private boolean runWide(CharSequence input, boolean anchored) {
+		long[][] buffers = scratch.acquire();
+		try {
+			return runWide(buffers, input, anchored);
+		} finally {
+			scratch.release(buffers);
+		}
+	}
+
+	private boolean runWide(long[][] buffers, CharSequence input, boolean anchored) {
+		long[] states = buffers[0], next = buffers[1];
+		Arrays.fill(states, 0L);
+		states[0] = 1L;
+		if (!anchored && intersects(states, accept)) {
+			return true;
+		}
+		for (int i = 0, length = input.length(); i < length;) {
+			int codePoint = Character.codePointAt(input, i);
+			i += Character.charCount(codePoint);
+			if (!anchored) {
+				states[0] |= 1L;
+			}
+			Arrays.fill(next, 0L);
+			for (int w = 0; w < words; w++) {
+				for (long bits = states[w]; bits != 0; bits &= bits - 1) {
+					int offset = ((w << 6) + Long.numberOfTrailingZeros(bits)) * words;
+					for (int v = 0; v < words; v++) {
+						next[v] |= follow[offset + v];
+					}
+				}
+			}
+			int mask = alphabet.classOf(codePoint) * words;
+			boolean alive = false;
+			for (int w = 0; w < words; w++) {
+				next[w] &= classMasks[mask + w];
+				alive |= next[w] != 0;
+			}
+			long[] swap = states;
+			states = next;
+			next = swap;
+			if (anchored) {
+				if (!alive) {
+					return false;
+				}
+			} else if (intersects(states, accept)) {
+				return true;
+			}
+		}
+		return intersects(states, accept);
+	}
+
+	private static boolean intersects(long[] bits, long[] other) {
+		for (int w = 0; w < bits.length; w++) {
+			if ((bits[w] & other[w]) != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
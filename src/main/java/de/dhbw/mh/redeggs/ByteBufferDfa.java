@@ -0,0 +1,279 @@
+package de.dhbw.mh.redeggs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A {@link Dfa} whose alphabet, transitions and accept labels live in a
+ * {@link ByteBuffer} outside the Java heap.
+ * <p>
+ * The tables of large automata then neither count towards the heap nor have to
+ * be traced by the garbage collector. When the buffer is mapped from a file,
+ * see {@link #write(ArrayDfa, Path)} and {@link #map(Path)}, all processes on
+ * a host mapping the same file share its physical pages through the page
+ * cache.
+ * </p>
+ * <p>
+ * The buffer holds 32-bit integers in the byte order of the machine that wrote
+ * it; {@link #wrap(ByteBuffer)} detects the order from the header:
+ * </p>
+ *
+ * <pre>
+ * magic "RDFA", version, stateCount, classCount, intervalCount
+ * asciiClasses[128]
+ * intervalStarts[intervalCount], intervalClasses[intervalCount]
+ * transitions[stateCount * classCount]
+ * acceptLabels[stateCount]
+ * </pre>
+ * <p>
+ * All reads use absolute indices, so one instance may be used by many threads.
+ * </p>
+ */
+public final class ByteBufferDfa implements Dfa {
+
+	private static final int MAGIC = 0x52444641;
+
+	private static final int VERSION = 1;
+
+	private static final int HEADER_BYTES = 5 * Integer.BYTES;
+
+	private static final int ASCII = 128;
+
+	private final ByteBuffer buffer;
+
+	private final int stateCount;
+
+	private final int classCount;
+
+	private final int intervalCount;
+
+	private final int intervalStarts;
+
+	private final int intervalClasses;
+
+	private final int transitions;
+
+	private final int acceptLabels;
+
+	private ByteBufferDfa(ByteBuffer buffer) {
+		this.buffer = buffer;
+		this.stateCount = buffer.getInt(2 * Integer.BYTES);
+		this.classCount = buffer.getInt(3 * Integer.BYTES);
+		this.intervalCount = buffer.getInt(4 * Integer.BYTES);
+		if (stateCount < 2 || classCount < 1 || intervalCount < 1) {
+			throw new IllegalArgumentException("Truncated or corrupt DFA tables");
+		}
+		// computed in long, so a hostile header cannot wrap around the capacity check
+		long intervalClasses = HEADER_BYTES + ASCII * Integer.BYTES + (long) intervalCount * Integer.BYTES;
+		long transitions = intervalClasses + (long) intervalCount * Integer.BYTES;
+		long acceptLabels = transitions + (long) stateCount * classCount * Integer.BYTES;
+		long end = acceptLabels + (long) stateCount * Integer.BYTES;
+		if (end > Integer.MAX_VALUE || end > buffer.capacity()) {
+			throw new IllegalArgumentException("Truncated or corrupt DFA tables");
+		}
+		this.intervalStarts = HEADER_BYTES + ASCII * Integer.BYTES;
+		this.intervalClasses = (int) intervalClasses;
+		this.transitions = (int) transitions;
+		this.acceptLabels = (int) acceptLabels;
+	}
+
+	/**
+	 * Checks that every class and transition target stored in the tables is in
+	 * range, so that a corrupt or hostile buffer cannot make {@link #next(int,
+	 * int)} read outside of the transition table.
+	 */
+	private ByteBufferDfa validated() {
+		for (int c = 0; c < ASCII; c++) {
+			checkRange(buffer.getInt(HEADER_BYTES + c * Integer.BYTES), 0, classCount);
+		}
+		int previous = -1;
+		for (int i = 0; i < intervalCount; i++) {
+			int start = buffer.getInt(intervalStarts + i * Integer.BYTES);
+			checkRange(start, i == 0 ? 0 : previous + 1, i == 0 ? 1 : Character.MAX_CODE_POINT + 1);
+			previous = start;
+			checkRange(buffer.getInt(intervalClasses + i * Integer.BYTES), 0, classCount);
+		}
+		for (int offset = transitions; offset < acceptLabels; offset += Integer.BYTES) {
+			checkRange(buffer.getInt(offset), 0, stateCount);
+		}
+		for (int state = 0; state < stateCount; state++) {
+			checkRange(acceptLabel(state), NO_RULE, Integer.MAX_VALUE);
+		}
+		return this;
+	}
+
+	private static void checkRange(int value, int from, int to) {
+		if (value < from || value >= to) {
+			throw new IllegalArgumentException("Corrupt DFA tables: value " + value + " out of range");
+		}
+	}
+
+	/**
+	 * Returns the number of bytes needed to store the given DFA.
+	 *
+	 * @param dfa the DFA to store
+	 * @return the size of its tables in bytes
+	 */
+	public static long sizeOf(ArrayDfa dfa) {
+		long ints = 5 + ASCII + 2L * dfa.alphabet().intervalStarts().length
+				+ (long) dfa.stateCount() * dfa.classCount() + dfa.stateCount();
+		return ints * Integer.BYTES;
+	}
+
+	/**
+	 * Copies the tables of the given DFA into a direct buffer.
+	 *
+	 * @param dfa the DFA to copy
+	 * @return the off-heap DFA
+	 * @throws IllegalArgumentException if the tables exceed 2 GiB
+	 */
+	public static ByteBufferDfa copyOf(ArrayDfa dfa) {
+		long size = sizeOf(dfa);
+		if (size > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("DFA tables exceed 2 GiB: " + size + " bytes");
+		}
+		ByteBuffer buffer = ByteBuffer.allocateDirect((int) size).order(ByteOrder.nativeOrder());
+		encode(dfa, buffer);
+		buffer.flip();
+		return new ByteBufferDfa(buffer);
+	}
+
+	private static void encode(ArrayDfa dfa, ByteBuffer buffer) {
+		Alphabet alphabet = dfa.alphabet();
+		int[] starts = alphabet.intervalStarts();
+		int[] classes = alphabet.intervalClasses();
+		buffer.putInt(MAGIC).putInt(VERSION).putInt(dfa.stateCount()).putInt(dfa.classCount())
+				.putInt(starts.length);
+		for (int c = 0; c < ASCII; c++) {
+			buffer.putInt(alphabet.classOf(c));
+		}
+		buffer.asIntBuffer().put(starts).put(classes);
+		buffer.position(buffer.position() + 2 * starts.length * Integer.BYTES);
+		for (int state = 0; state < dfa.stateCount(); state++) {
+			for (int cls = 0; cls < dfa.classCount(); cls++) {
+				buffer.putInt(dfa.next(state, cls));
+			}
+		}
+		for (int state = 0; state < dfa.stateCount(); state++) {
+			buffer.putInt(dfa.acceptLabel(state));
+		}
+	}
+
+	/**
+	 * Writes the tables of the given DFA to a file, replacing its contents, so
+	 * that it can be {@link #map(Path) mapped} later.
+	 *
+	 * @param dfa  the DFA to write
+	 * @param file the file to write to
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void write(ArrayDfa dfa, Path file) throws IOException {
+		ByteBuffer buffer = copyOf(dfa).buffer();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+	}
+
+	/**
+	 * Maps a file written by {@link #write(ArrayDfa, Path)} read-only into
+	 * memory.
+	 *
+	 * @param file the file to map
+	 * @return the DFA backed by the mapping
+	 * @throws IOException              if the file cannot be read
+	 * @throws IllegalArgumentException if the file does not hold DFA tables
+	 */
+	public static ByteBufferDfa map(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return wrap(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Uses the tables stored in the given buffer, starting at its position. The
+	 * buffer is not copied and must not be modified afterwards. Since the
+	 * buffer may come from an untrusted source, every class and transition
+	 * target is checked once, in time linear in the size of the tables.
+	 *
+	 * @param buffer the buffer holding the tables
+	 * @return the DFA backed by {@code buffer}
+	 * @throws IllegalArgumentException if the buffer does not hold DFA tables
+	 */
+	public static ByteBufferDfa wrap(ByteBuffer buffer) {
+		ByteBuffer tables = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+		if (tables.capacity() < HEADER_BYTES) {
+			throw new IllegalArgumentException("Truncated or corrupt DFA tables");
+		}
+		int magic = tables.getInt(0);
+		if (magic == Integer.reverseBytes(MAGIC)) {
+			tables.order(ByteOrder.LITTLE_ENDIAN);
+		} else if (magic != MAGIC) {
+			throw new IllegalArgumentException("Not a DFA table buffer");
+		}
+		if (tables.getInt(Integer.BYTES) != VERSION) {
+			throw new IllegalArgumentException("Unsupported DFA table version: " + tables.getInt(Integer.BYTES));
+		}
+		return new ByteBufferDfa(tables).validated();
+	}
+
+	/**
+	 * Returns a read-only view of the tables.
+	 *
+	 * @return the tables, positioned at their start
+	 */
+	public ByteBuffer buffer() {
+		return buffer.asReadOnlyBuffer().order(buffer.order()).clear();
+	}
+
+	@Override
+	public int stateCount() {
+		return stateCount;
+	}
+
+	@Override
+	public int classCount() {
+		return classCount;
+	}
+
+	@Override
+	public int classOf(int codePoint) {
+		if (codePoint < ASCII) {
+			return buffer.getInt(HEADER_BYTES + codePoint * Integer.BYTES);
+		}
+		int low = 0, high = intervalCount - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (buffer.getInt(intervalStarts + mid * Integer.BYTES) <= codePoint) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return buffer.getInt(intervalClasses + low * Integer.BYTES);
+	}
+
+	@Override
+	public int next(int state, int cls) {
+		return buffer.getInt(transitions + (state * classCount + cls) * Integer.BYTES);
+	}
+
+	@Override
+	public int acceptLabel(int state) {
+		return buffer.getInt(acceptLabels + state * Integer.BYTES);
+	}
+
+	@Override
+	public TableStatistics statistics() {
+		long transitionCount = (long) stateCount * classCount;
+		return new TableStatistics(TableLayout.DENSE, stateCount(), classCount, Integer.BYTES,
+				transitionCount * Integer.BYTES, transitionCount, 1);
+	}
+
+}
@@ -0,0 +1,296 @@
+package de.dhbw.mh.redeggs;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Closes symbols under Unicode simple case folding, so that a pattern matches
+ * case-insensitively without being rewritten into alternations.
+ * <p>
+ * Code points that fold to the same code point form an <em>orbit</em>, e.g.
+ * {@code k}, {@code K} and the Kelvin sign {@code U+212A}. The members of
+ * every orbit are linked in a cycle, from each member to the next larger one
+ * and from the largest back to the smallest. The cycle is stored as a short
+ * table of intervals whose code points all move by the same delta, either
+ * every code point (as in {@code A-Z}) or every other one (as in Latin
+ * Extended-A, where upper and lower case alternate).
+ * </p>
+ * <p>
+ * {@link #fold(VirtualSymbol)} moves all ranges of a symbol along the cycle in
+ * one sweep over the sorted table, and repeats this once per additional orbit
+ * member, which is at most three times. The result has the same number of
+ * symbols, so automata built from folded expressions have exactly as many
+ * states as for the case-sensitive pattern.
+ * </p>
+ * <p>
+ * The orbits are derived from the simple (single code point) case mappings of
+ * {@link Character}. Like {@code CaseFolding.txt} without Turkic mappings, the
+ * dotted capital {@code U+0130} and the dotless small {@code U+0131} letter i
+ * only match themselves.
+ * </p>
+ */
+public final class CaseFolding {
+
+	/**
+	 * The last code point of the supplementary multilingual plane. The planes
+	 * above hold only ideographs, tags, variation selectors and private use
+	 * characters, none of which have case mappings.
+	 */
+	static final int LAST_CASED = 0x1FFFF;
+
+	private CaseFolding() {
+	}
+
+	/**
+	 * The folding table, built on first use.
+	 */
+	private static final class Table {
+		/** First code point, last code point, delta and stride of every interval. */
+		static final int[] FIRST;
+		static final int[] LAST;
+		static final int[] DELTA;
+		static final int[] STRIDE;
+		/** The largest {@code LAST} among the intervals up to each index. */
+		static final int[] MAX_LAST;
+		/** The number of members of the largest orbit. */
+		static final int MAX_ORBIT;
+		static final Map<Integer, int[]> ORBITS = new HashMap<>();
+
+		static {
+			// union-find linking every cased code point to its case mappings
+			int[] parent = new int[LAST_CASED + 1];
+			for (int c = 0; c < parent.length; c++) {
+				parent[c] = c;
+			}
+			int[] cased = new int[4096];
+			int count = 0;
+			for (int c = 0; c <= LAST_CASED; c++) {
+				int lower = Character.toLowerCase(c);
+				int upper = Character.toUpperCase(c);
+				int title = Character.toTitleCase(c);
+				if (lower == c && upper == c && title == c || isExcluded(c)) {
+					continue;
+				}
+				if (count + 4 > cased.length) {
+					cased = Arrays.copyOf(cased, 2 * cased.length);
+				}
+				cased[count++] = c;
+				cased[count++] = union(parent, c, lower);
+				cased[count++] = union(parent, c, upper);
+				cased[count++] = union(parent, c, title);
+			}
+
+			// the cased code points sorted by the root of their orbit
+			long[] byRoot = new long[count];
+			for (int i = 0; i < count; i++) {
+				byRoot[i] = (long) find(parent, cased[i]) << 32 | cased[i];
+			}
+			Arrays.sort(byRoot);
+
+			// the cycle delta of every member of an orbit, sorted by delta
+			long[] byDelta = new long[count];
+			int members = 0;
+			int maxOrbit = 1;
+			int[] orbit = new int[count];
+			for (int i = 0; i < count;) {
+				int size = 0;
+				long root = byRoot[i] >>> 32;
+				for (; i < count && byRoot[i] >>> 32 == root; i++) {
+					// duplicates are adjacent
+					if (size == 0 || orbit[size - 1] != (int) byRoot[i]) {
+						orbit[size++] = (int) byRoot[i];
+					}
+				}
+				if (size < 2) {
+					continue;
+				}
+				int[] sorted = Arrays.copyOf(orbit, size);
+				maxOrbit = Math.max(maxOrbit, size);
+				for (int k = 0; k < size; k++) {
+					ORBITS.put(sorted[k], sorted);
+					int next = sorted[(k + 1) % size];
+					byDelta[members++] = (long) (next - sorted[k]) << 32 | sorted[k];
+				}
+			}
+			MAX_ORBIT = maxOrbit;
+			Arrays.sort(byDelta, 0, members);
+
+			// runs of code points with the same delta and a stride of 1 or 2,
+			// collected as {first, last, delta, stride}
+			int[][] intervals = new int[members][];
+			long[] byFirst = new long[members];
+			int n = 0;
+			for (int i = 0; i < members;) {
+				int delta = (int) (byDelta[i] >> 32);
+				int end = i + 1;
+				while (end < members && (int) (byDelta[end] >> 32) == delta) {
+					end++;
+				}
+				while (i < end) {
+					int first = (int) byDelta[i];
+					int stride = i + 1 < end && (int) byDelta[i + 1] - first <= 2 ? (int) byDelta[i + 1] - first : 1;
+					int j = i;
+					while (j + 1 < end && (int) byDelta[j + 1] - (int) byDelta[j] == stride) {
+						j++;
+					}
+					intervals[n] = new int[] { first, (int) byDelta[j], delta, stride };
+					byFirst[n] = (long) first << 32 | n;
+					n++;
+					i = j + 1;
+				}
+			}
+			Arrays.sort(byFirst, 0, n);
+			FIRST = new int[n];
+			LAST = new int[n];
+			DELTA = new int[n];
+			STRIDE = new int[n];
+			MAX_LAST = new int[n];
+			for (int i = 0; i < n; i++) {
+				int[] interval = intervals[(int) byFirst[i]];
+				FIRST[i] = interval[0];
+				LAST[i] = interval[1];
+				DELTA[i] = interval[2];
+				STRIDE[i] = interval[3];
+				MAX_LAST[i] = i == 0 ? LAST[i] : Math.max(MAX_LAST[i - 1], LAST[i]);
+			}
+		}
+
+		private static boolean isExcluded(int c) {
+			return c == 0x130 || c == 0x131;
+		}
+
+		/**
+		 * Links the orbits of two code points unless they are equal or one of them
+		 * is excluded.
+		 *
+		 * @return {@code b} if it was linked, {@code a} otherwise
+		 */
+		private static int union(int[] parent, int a, int b) {
+			if (a == b || isExcluded(a) || isExcluded(b)) {
+				return a;
+			}
+			int rootA = find(parent, a), rootB = find(parent, b);
+			if (rootA != rootB) {
+				parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+			}
+			return b;
+		}
+
+		private static int find(int[] parent, int c) {
+			int root = c;
+			while (parent[root] != root) {
+				root = parent[root];
+			}
+			return root;
+		}
+	}
+
+	/**
+	 * Returns all code points that are equal to the given one ignoring case.
+	 *
+	 * @param codePoint the code point to look up
+	 * @return the sorted members of the orbit of {@code codePoint}, which contain
+	 *         at least {@code codePoint} itself
+	 */
+	public static int[] equivalents(int codePoint) {
+		int[] orbit = Table.ORBITS.get(codePoint);
+		return orbit == null ? new int[] { codePoint } : orbit.clone();
+	}
+
+	/**
+	 * Closes a symbol under simple case folding.
+	 *
+	 * @param symbol the symbol to fold
+	 * @return the symbol containing every code point equal to one of
+	 *         {@code symbol}'s ignoring case
+	 * @throws IllegalArgumentException if {@code symbol} does not expose its code
+	 *                                  point ranges
+	 */
+	public static RangeSymbol fold(VirtualSymbol symbol) {
+		RangeSymbol folded = RangeSymbol.of(symbol);
+		RangeSymbol frontier = folded;
+		for (int step = 1; step < Table.MAX_ORBIT && !frontier.isEmpty(); step++) {
+			frontier = advance(frontier);
+			RangeSymbol grown = RangeSymbol.ofPairs(concat(bounds(folded), bounds(frontier)));
+			if (grown.equals(folded)) {
+				break;
+			}
+			folded = grown;
+		}
+		return folded;
+	}
+
+	/**
+	 * Closes the complement of a symbol under simple case folding and
+	 * complements the result, which folds a negated character class such as
+	 * {@code [^a-z]}: it matches what no letter of the class matches ignoring
+	 * case.
+	 *
+	 * @param symbol the symbol of the negated class
+	 * @return the folded symbol
+	 * @throws IllegalArgumentException if {@code symbol} does not expose its code
+	 *                                  point ranges
+	 */
+	public static RangeSymbol foldNegated(VirtualSymbol symbol) {
+		return fold(RangeSymbol.of(symbol).complement()).complement();
+	}
+
+	/**
+	 * Moves every cased code point of the symbol one step along its orbit.
+	 */
+	private static RangeSymbol advance(RangeSymbol symbol) {
+		int[] out = new int[16];
+		int n = 0;
+		int start = 0;
+		for (int r = 0; r < symbol.rangeCount(); r++) {
+			int first = symbol.first(r), last = symbol.last(r);
+			// intervals before start end before every remaining range
+			while (start < Table.FIRST.length && Table.MAX_LAST[start] < first) {
+				start++;
+			}
+			for (int i = start; i < Table.FIRST.length && Table.FIRST[i] <= last; i++) {
+				int from = Math.max(first, Table.FIRST[i]);
+				int to = Math.min(last, Table.LAST[i]);
+				if (from > to) {
+					continue;
+				}
+				int delta = Table.DELTA[i];
+				if (Table.STRIDE[i] == 1) {
+					if (n + 2 > out.length) {
+						out = Arrays.copyOf(out, 2 * out.length);
+					}
+					out[n++] = from + delta;
+					out[n++] = to + delta;
+				} else {
+					// align to the code points of the interval
+					from += (from - Table.FIRST[i]) & 1;
+					for (int c = from; c <= to; c += 2) {
+						if (n + 2 > out.length) {
+							out = Arrays.copyOf(out, 2 * out.length);
+						}
+						out[n++] = c + delta;
+						out[n++] = c + delta;
+					}
+				}
+			}
+		}
+		return RangeSymbol.ofPairs(Arrays.copyOf(out, n));
+	}
+
+	private static int[] bounds(RangeSymbol symbol) {
+		int[] pairs = new int[2 * symbol.rangeCount()];
+		for (int r = 0; r < symbol.rangeCount(); r++) {
+			pairs[2 * r] = symbol.first(r);
+			pairs[2 * r + 1] = symbol.last(r);
+		}
+		return pairs;
+	}
+
+	private static int[] concat(int[] a, int[] b) {
+		int[] result = Arrays.copyOf(a, a.length + b.length);
+		System.arraycopy(b, 0, result, a.length, b.length);
+		return result;
+	}
+
+}
@@ -0,0 +1,229 @@
+package de.dhbw.mh.redeggs;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * A {@link Dfa} whose transition table is compressed by row displacement.
+ * <p>
+ * Most rows of a lexer's transition table lead to the same state, usually the
+ * dead state, for nearly all classes. Every state therefore stores a default
+ * transition, and only the transitions differing from it are kept. The rows of
+ * these sparse transitions are overlaid in one comb vector: row {@code s}
+ * starts at offset {@code base[s]}, and every slot records the state owning it
+ * as a check. Looking up a transition reads the offset, the check and either
+ * the stored or the default successor:
+ * </p>
+ *
+ * <pre>
+ * i = base[s] + c
+ * next(s, c) = check[i] == s ? successor[i] : default[s]
+ * </pre>
+ * <p>
+ * Check and successor of a slot are interleaved to share a cache line. With a
+ * narrow layout, states are stored in {@code byte}s if there are at most 255
+ * and in {@code short}s if there are at most 65535.
+ * </p>
+ */
+public final class CompressedDfa implements Dfa {
+
+	private final Alphabet alphabet;
+
+	private final int classCount;
+
+	private final int[] acceptLabels;
+
+	private final int[] base;
+
+	private final TableLayout layout;
+
+	private final int stateBytes;
+
+	private final long storedTransitions;
+
+	/**
+	 * Check (state + 1, or 0 if unused) and successor of every slot, in the
+	 * array matching {@link #stateBytes}.
+	 */
+	private final byte[] slots8;
+	private final short[] slots16;
+	private final int[] slots32;
+
+	private final byte[] defaults8;
+	private final short[] defaults16;
+	private final int[] defaults32;
+
+	private CompressedDfa(ArrayDfa dfa, boolean narrow) {
+		this.alphabet = dfa.alphabet();
+		this.classCount = dfa.classCount();
+		int stateCount = dfa.stateCount();
+		this.acceptLabels = new int[stateCount];
+		for (int state = 0; state < stateCount; state++) {
+			acceptLabels[state] = dfa.acceptLabel(state);
+		}
+		this.layout = narrow ? TableLayout.COMPRESSED_NARROW : TableLayout.COMPRESSED;
+		this.stateBytes = !narrow ? Integer.BYTES
+				: stateCount <= 0xFF ? Byte.BYTES : stateCount <= 0xFFFF ? Short.BYTES : Integer.BYTES;
+
+		int[] defaults = new int[stateCount];
+		int[][] rows = new int[stateCount][];
+		long stored = 0;
+		for (int state = 0; state < stateCount; state++) {
+			defaults[state] = mostFrequentSuccessor(dfa, state);
+			rows[state] = sparseRow(dfa, state, defaults[state]);
+			stored += rows[state].length;
+		}
+		this.storedTransitions = stored;
+
+		// first fit, densest rows first
+		this.base = new int[stateCount];
+		BitSet used = new BitSet();
+		int size = 0;
+		Integer[] order = IntStream.range(0, stateCount).boxed().toArray(Integer[]::new);
+		Arrays.sort(order, Comparator.comparingInt((Integer state) -> rows[state].length).reversed());
+		for (int state : order) {
+			int[] row = rows[state];
+			if (row.length == 0) {
+				continue;
+			}
+			int offset = Math.max(0, used.nextClearBit(0) - row[0]);
+			while (!fits(used, offset, row)) {
+				offset++;
+			}
+			base[state] = offset;
+			for (int cls : row) {
+				used.set(offset + cls);
+			}
+			size = Math.max(size, offset + row[row.length - 1] + 1);
+		}
+		size = Math.max(size, maxBase() + classCount);
+
+		int[] slots = new int[2 * size];
+		for (int state = 0; state < stateCount; state++) {
+			for (int cls : rows[state]) {
+				slots[2 * (base[state] + cls)] = state + 1;
+				slots[2 * (base[state] + cls) + 1] = dfa.next(state, cls);
+			}
+		}
+		this.slots8 = stateBytes == Byte.BYTES ? toBytes(slots) : null;
+		this.slots16 = stateBytes == Short.BYTES ? toShorts(slots) : null;
+		this.slots32 = stateBytes == Integer.BYTES ? slots : null;
+		this.defaults8 = stateBytes == Byte.BYTES ? toBytes(defaults) : null;
+		this.defaults16 = stateBytes == Short.BYTES ? toShorts(defaults) : null;
+		this.defaults32 = stateBytes == Integer.BYTES ? defaults : null;
+	}
+
+	/**
+	 * Compresses the given DFA.
+	 *
+	 * @param dfa    the dense DFA
+	 * @param narrow whether to store states in fewer than four bytes if possible
+	 * @return the compressed DFA
+	 */
+	public static CompressedDfa of(ArrayDfa dfa, boolean narrow) {
+		return new CompressedDfa(dfa, narrow);
+	}
+
+	private static int mostFrequentSuccessor(ArrayDfa dfa, int state) {
+		int[] targets = new int[dfa.classCount()];
+		for (int cls = 0; cls < targets.length; cls++) {
+			targets[cls] = dfa.next(state, cls);
+		}
+		Arrays.sort(targets);
+		int best = targets[0], bestCount = 0;
+		for (int i = 0; i < targets.length;) {
+			int j = i;
+			while (j < targets.length && targets[j] == targets[i]) {
+				j++;
+			}
+			if (j - i > bestCount) {
+				best = targets[i];
+				bestCount = j - i;
+			}
+			i = j;
+		}
+		return best;
+	}
+
+	private static int[] sparseRow(ArrayDfa dfa, int state, int defaultState) {
+		return IntStream.range(0, dfa.classCount()).filter(cls -> dfa.next(state, cls) != defaultState).toArray();
+	}
+
+	private static boolean fits(BitSet used, int offset, int[] row) {
+		for (int cls : row) {
+			if (used.get(offset + cls)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private int maxBase() {
+		int max = 0;
+		for (int offset : base) {
+			max = Math.max(max, offset);
+		}
+		return max;
+	}
+
+	private static byte[] toBytes(int[] values) {
+		byte[] bytes = new byte[values.length];
+		for (int i = 0; i < values.length; i++) {
+			bytes[i] = (byte) values[i];
+		}
+		return bytes;
+	}
+
+	private static short[] toShorts(int[] values) {
+		short[] shorts = new short[values.length];
+		for (int i = 0; i < values.length; i++) {
+			shorts[i] = (short) values[i];
+		}
+		return shorts;
+	}
+
+	@Override
+	public int stateCount() {
+		return acceptLabels.length;
+	}
+
+	@Override
+	public int classCount() {
+		return classCount;
+	}
+
+	@Override
+	public int classOf(int codePoint) {
+		return alphabet.classOf(codePoint);
+	}
+
+	@Override
+	public int next(int state, int cls) {
+		int slot = 2 * (base[state] + cls);
+		switch (stateBytes) {
+		case Byte.BYTES:
+			return (slots8[slot] & 0xFF) == state + 1 ? slots8[slot + 1] & 0xFF : defaults8[state] & 0xFF;
+		case Short.BYTES:
+			return (slots16[slot] & 0xFFFF) == state + 1 ? slots16[slot + 1] & 0xFFFF : defaults16[state] & 0xFFFF;
+		default:
+			return slots32[slot] == state + 1 ? slots32[slot + 1] : defaults32[state];
+		}
+	}
+
+	@Override
+	public int acceptLabel(int state) {
+		return acceptLabels[state];
+	}
+
+	@Override
+	public TableStatistics statistics() {
+		int slotCount = stateBytes == Byte.BYTES ? slots8.length
+				: stateBytes == Short.BYTES ? slots16.length : slots32.length;
+		long bytes = (long) slotCount * stateBytes + (long) acceptLabels.length * stateBytes
+				+ (long) base.length * Integer.BYTES;
+		return new TableStatistics(layout, acceptLabels.length, classCount, stateBytes, bytes, storedTransitions, 3);
+	}
+
+}
@@ -0,0 +1,108 @@
+package de.dhbw.mh.redeggs;
+
+/**
+ * A deterministic finite automaton recognizing one or more rules.
+ * <p>
+ * States are numbered from {@code 0} to {@code stateCount() - 1}. State
+ * {@link #DEAD} accepts nothing and cannot be left; state {@link #START} is
+ * the initial state. Transitions are indexed by the {@link Alphabet} class of
+ * a code point rather than the code point itself.
+ * </p>
+ * <p>
+ * An accepting state carries the index of the rule it accepts. If several
+ * rules accept the same input, the rule with the lowest index wins.
+ * </p>
+ * <p>
+ * Implementations are immutable and may be shared between threads.
+ * </p>
+ */
+public interface Dfa {
+
+	/**
+	 * The state without any way to reach an accepting state.
+	 */
+	int DEAD = 0;
+
+	/**
+	 * The initial state.
+	 */
+	int START = 1;
+
+	/**
+	 * The label of states that do not accept.
+	 */
+	int NO_RULE = -1;
+
+	/**
+	 * Returns the number of states, including the dead state.
+	 *
+	 * @return the number of states
+	 */
+	int stateCount();
+
+	/**
+	 * Returns the number of code point classes.
+	 *
+	 * @return the number of classes
+	 */
+	int classCount();
+
+	/**
+	 * Returns the class of the given code point.
+	 *
+	 * @param codePoint the code point to classify
+	 * @return the class of {@code codePoint}
+	 */
+	int classOf(int codePoint);
+
+	/**
+	 * Returns the successor of a state.
+	 *
+	 * @param state the current state
+	 * @param cls   the class of the consumed code point
+	 * @return the next state
+	 */
+	int next(int state, int cls);
+
+	/**
+	 * Returns the rule accepted by a state.
+	 *
+	 * @param state the state
+	 * @return the index of the accepted rule, or {@link #NO_RULE}
+	 */
+	int acceptLabel(int state);
+
+	/**
+	 * Returns the size and lookup cost of the transition table.
+	 *
+	 * @return the table statistics
+	 */
+	TableStatistics statistics();
+
+	/**
+	 * Returns the rule accepting the whole input.
+	 *
+	 * @param input the input to match
+	 * @return the index of the accepting rule, or {@link #NO_RULE}
+	 */
+	default int match(CharSequence input) {
+		int state = START;
+		for (int i = 0, length = input.length(); i < length && state != DEAD;) {
+			int codePoint = Character.codePointAt(input, i);
+			i += Character.charCount(codePoint);
+			state = next(state, classOf(codePoint));
+		}
+		return acceptLabel(state);
+	}
+
+	/**
+	 * Checks whether some rule accepts the whole input.
+	 *
+	 * @param input the input to match
+	 * @return {@code true} if the whole input matches
+	 */
+	default boolean matches(CharSequence input) {
+		return match(input) != NO_RULE;
+	}
+
+}
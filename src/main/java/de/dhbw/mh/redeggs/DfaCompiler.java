@@ -0,0 +1,152 @@
+package de.dhbw.mh.redeggs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles one or more rules into an {@link ArrayDfa} by subset construction
+ * over their {@link GlushkovAutomaton position automata}.
+ * <p>
+ * The rules are combined into one automaton: every rule contributes an initial
+ * state and its positions. A DFA state is the set of automaton states that are
+ * active after reading some input. Transitions are computed once per
+ * {@link Alphabet} class instead of per code point.
+ * </p>
+ * <p>
+ * Subset construction may create exponentially many states. The number of
+ * states is therefore limited; the default limit is
+ * {@value #DEFAULT_MAX_STATES}.
+ * </p>
+ */
+public final class DfaCompiler {
+
+	/**
+	 * The default limit on the number of DFA states.
+	 */
+	public static final int DEFAULT_MAX_STATES = 10_000;
+
+	private DfaCompiler() {
+	}
+
+	/**
+	 * Compiles a single rule.
+	 *
+	 * @param rule the rule to compile
+	 * @return the DFA accepting {@code rule} as rule {@code 0}
+	 * @throws IllegalArgumentException if a symbol does not expose its code point
+	 *                                  ranges
+	 * @throws IllegalStateException    if the DFA needs more than
+	 *                                  {@value #DEFAULT_MAX_STATES} states
+	 */
+	public static ArrayDfa compile(RegularEggspression rule) {
+		return compile(List.of(rule), DEFAULT_MAX_STATES);
+	}
+
+	/**
+	 * Compiles a list of rules. Every accepting state is labeled with the lowest
+	 * index of the rules it accepts.
+	 *
+	 * @param rules the rules to compile
+	 * @return the DFA accepting all rules
+	 * @throws IllegalArgumentException if a symbol does not expose its code point
+	 *                                  ranges
+	 * @throws IllegalStateException    if the DFA needs more than
+	 *                                  {@value #DEFAULT_MAX_STATES} states
+	 */
+	public static ArrayDfa compile(List<? extends RegularEggspression> rules) {
+		return compile(rules, DEFAULT_MAX_STATES);
+	}
+
+	/**
+	 * Compiles a list of rules with a custom state limit, see
+	 * {@link #compile(List)}.
+	 *
+	 * @param rules     the rules to compile
+	 * @param maxStates the maximum number of DFA states, including the dead state
+	 * @return the DFA accepting all rules
+	 * @throws IllegalArgumentException if a symbol does not expose its code point
+	 *                                  ranges
+	 * @throws IllegalStateException    if the DFA needs more than
+	 *                                  {@code maxStates} states
+	 */
+	public static ArrayDfa compile(List<? extends RegularEggspression> rules, int maxStates) {
+		return compile(rules, maxStates, false);
+	}
+
+	/**
+	 * Compiles a list of rules, optionally for unanchored matching. An
+	 * unanchored DFA keeps the initial states of all rules active, i.e. it
+	 * recognizes {@code Σ*R} and accepts wherever a match of a rule ends.
+	 *
+	 * @param rules      the rules to compile
+	 * @param maxStates  the maximum number of DFA states, including the dead
+	 *                   state
+	 * @param unanchored whether matches may start anywhere in the input
+	 * @return the DFA accepting all rules
+	 */
+	static ArrayDfa compile(List<? extends RegularEggspression> rules, int maxStates, boolean unanchored) {
+		PositionNfa nfa = new PositionNfa(rules);
+		int classCount = nfa.alphabet.classCount();
+
+		Map<BitSet, Integer> ids = new HashMap<>();
+		List<BitSet> states = new ArrayList<>();
+		BitSet dead = new BitSet();
+		ids.put(dead, Dfa.DEAD);
+		states.add(dead);
+		ids.putIfAbsent(nfa.start, Dfa.START);
+		states.add(nfa.start);
+
+		int[] transitions = new int[2 * classCount];
+		for (int id = Dfa.START; id < states.size(); id++) {
+			BitSet successors = nfa.follow(states.get(id));
+			for (int cls = 0; cls < classCount; cls++) {
+				BitSet target = (BitSet) successors.clone();
+				target.and(nfa.members[cls]);
+				if (unanchored) {
+					target.or(nfa.start);
+				}
+				Integer targetId = ids.get(target);
+				if (targetId == null) {
+					if (states.size() >= maxStates) {
+						throw new IllegalStateException("DFA exceeds " + maxStates + " states");
+					}
+					targetId = states.size();
+					ids.put(target, targetId);
+					states.add(target);
+					if (transitions.length < states.size() * classCount) {
+						transitions = Arrays.copyOf(transitions, 2 * states.size() * classCount);
+					}
+				}
+				transitions[id * classCount + cls] = targetId;
+			}
+		}
+
+		int[] acceptLabels = new int[states.size()];
+		for (int id = 0; id < states.size(); id++) {
+			acceptLabels[id] = nfa.acceptLabel(states.get(id));
+		}
+		return new ArrayDfa(nfa.alphabet, Arrays.copyOf(transitions, states.size() * classCount), acceptLabels);
+	}
+
+	/**
+	 * Compiles a list of rules into a DFA with the given table layout, see
+	 * {@link #compile(List)}.
+	 *
+	 * @param rules     the rules to compile
+	 * @param maxStates the maximum number of DFA states, including the dead state
+	 * @param layout    the layout of the transition table
+	 * @return the DFA accepting all rules
+	 * @throws IllegalArgumentException if a symbol does not expose its code point
+	 *                                  ranges
+	 * @throws IllegalStateException    if the DFA needs more than
+	 *                                  {@code maxStates} states
+	 */
+	public static Dfa compile(List<? extends RegularEggspression> rules, int maxStates, TableLayout layout) {
+		return layout.apply(compile(rules, maxStates));
+	}
+
+}
@@ -0,0 +1,412 @@
+package de.dhbw.mh.redeggs;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+
+import de.dhbw.mh.redeggs.RegularEggspression.Alternation;
+import de.dhbw.mh.redeggs.RegularEggspression.Concatenation;
+import de.dhbw.mh.redeggs.RegularEggspression.Group;
+import de.dhbw.mh.redeggs.RegularEggspression.Literal;
+import de.dhbw.mh.redeggs.RegularEggspression.Repetition;
+import de.dhbw.mh.redeggs.RegularEggspression.Star;
+
+/**
+ * The position automaton (Glushkov automaton) of a regular expression.
+ * <p>
+ * Every literal of the expression is a <em>position</em>, numbered from left
+ * to right starting at {@code 0}. The automaton is described by
+ * </p>
+ * <ul>
+ * <li>{@code nullable}: whether the expression matches the empty word,</li>
+ * <li>{@code first}: the positions that may match the first code point,</li>
+ * <li>{@code last}: the positions that may match the last code point, and</li>
+ * <li>{@code follow(p)}: the positions that may match the code point after one
+ * matched by position {@code p}.</li>
+ * </ul>
+ * <p>
+ * The automaton has no epsilon transitions and one state per position (plus an
+ * initial state), which makes it a good basis for bit-parallel simulation and
+ * subset construction.
+ * </p>
+ * <p>
+ * {@code b+} and {@code b?} reuse the positions of {@code b}. Other counted
+ * repetitions need one copy of the positions of {@code b} per occurrence in
+ * their {@link Repetition#expand() expansion}, since the automaton has no
+ * counters.
+ * </p>
+ * <p>
+ * The expression is traversed without recursion. Each follow set is stored
+ * relative to its smallest position, so the automaton of a long literal takes
+ * space linear in its length.
+ * </p>
+ */
+public final class GlushkovAutomaton {
+
+	private final RangeSymbol[] symbols;
+
+	/** Bit {@code i} of {@code follow[p]} stands for position {@code followBase[p] + i}. */
+	private final BitSet[] follow;
+
+	private final int[] followBase;
+
+	private final BitSet first;
+
+	private final BitSet last;
+
+	private final boolean nullable;
+
+	private GlushkovAutomaton(RangeSymbol[] symbols, BitSet[] follow, int[] followBase, Sets root) {
+		this.symbols = symbols;
+		this.follow = follow;
+		this.followBase = followBase;
+		this.first = root.first;
+		this.last = root.last;
+		this.nullable = root.nullable;
+	}
+
+	/**
+	 * Computes the position automaton of the given expression.
+	 *
+	 * @param expression the expression to analyze
+	 * @return the position automaton of {@code expression}
+	 * @throws IllegalArgumentException if a symbol of {@code expression} does not
+	 *                                  expose its code point ranges
+	 */
+	public static GlushkovAutomaton of(RegularEggspression expression) {
+		Analysis analysis = new Analysis();
+		Sets root = analysis.run(expression);
+		int positions = analysis.symbols.size();
+		return new GlushkovAutomaton(analysis.symbols.toArray(new RangeSymbol[0]),
+				analysis.follow.toArray(new BitSet[0]), Arrays.copyOf(analysis.followBase, positions), root);
+	}
+
+	/**
+	 * Counts the positions the automaton of the given expression would have,
+	 * without building it.
+	 * <p>
+	 * The expression is traversed without recursion, and the traversal stops as
+	 * soon as the count exceeds {@code limit}. This makes it cheap to decide
+	 * whether an expression is small enough for {@link #of(RegularEggspression)},
+	 * whose follow sets take space quadratic in the number of positions.
+	 * </p>
+	 *
+	 * @param expression the expression to analyze
+	 * @param limit      the count above which counting stops
+	 * @return the number of positions, or {@code limit + 1} if there are more
+	 *         than {@code limit}
+	 */
+	public static int countPositions(RegularEggspression expression, int limit) {
+		Deque<RegularEggspression> nodes = new ArrayDeque<>();
+		Deque<Long> copies = new ArrayDeque<>();
+		nodes.push(expression);
+		copies.push(1L);
+		long count = 0;
+		while (!nodes.isEmpty() && count <= limit) {
+			RegularEggspression node = nodes.pop();
+			// capped at limit + 1, so products of nested repetitions cannot overflow
+			long factor = copies.pop();
+			if (node instanceof Literal) {
+				count += factor;
+			} else if (node instanceof Concatenation) {
+				Concatenation concat = (Concatenation) node;
+				push(nodes, copies, concat.right(), factor);
+				push(nodes, copies, concat.left(), factor);
+			} else if (node instanceof Alternation) {
+				Alternation union = (Alternation) node;
+				push(nodes, copies, union.right(), factor);
+				push(nodes, copies, union.left(), factor);
+			} else if (node instanceof Star) {
+				push(nodes, copies, ((Star) node).base(), factor);
+			} else if (node instanceof Group) {
+				push(nodes, copies, ((Group) node).base(), factor);
+			} else if (node instanceof Repetition) {
+				Repetition repetition = (Repetition) node;
+				push(nodes, copies, repetition.base(), Math.min(factor * occurrences(repetition, limit), limit + 1L));
+			}
+		}
+		return (int) Math.min(count, limit + 1L);
+	}
+
+	private static void push(Deque<RegularEggspression> nodes, Deque<Long> copies, RegularEggspression node,
+			long factor) {
+		if (factor > 0) {
+			nodes.push(node);
+			copies.push(factor);
+		}
+	}
+
+	/**
+	 * Returns how often the positions of the base of a repetition occur in the
+	 * automaton, at most {@code limit + 1}.
+	 */
+	private static long occurrences(Repetition repetition, int limit) {
+		int max = repetition.max();
+		if (repetition.min() <= 1 && (max == Repetition.UNBOUNDED || max == 1)) {
+			return 1;
+		}
+		return Math.min(max == Repetition.UNBOUNDED ? repetition.min() + 1L : max, limit + 1L);
+	}
+
+	/**
+	 * Returns the number of positions, i.e. of literals in the expression.
+	 *
+	 * @return the number of positions
+	 */
+	public int positionCount() {
+		return symbols.length;
+	}
+
+	/**
+	 * Returns the symbol matched by the given position.
+	 *
+	 * @param position the position
+	 * @return the symbol of {@code position}
+	 */
+	public RangeSymbol symbol(int position) {
+		return symbols[position];
+	}
+
+	/**
+	 * Checks whether the expression matches the empty word.
+	 *
+	 * @return {@code true} if the expression is nullable
+	 */
+	public boolean isNullable() {
+		return nullable;
+	}
+
+	/**
+	 * Returns the positions that may match the first code point.
+	 *
+	 * @return a copy of the first set
+	 */
+	public BitSet first() {
+		return (BitSet) first.clone();
+	}
+
+	/**
+	 * Returns the positions that may match the last code point.
+	 *
+	 * @return a copy of the last set
+	 */
+	public BitSet last() {
+		return (BitSet) last.clone();
+	}
+
+	/**
+	 * Returns the positions that may follow the given position.
+	 *
+	 * @param position the position
+	 * @return a copy of the follow set of {@code position}
+	 */
+	public BitSet follow(int position) {
+		BitSet result = new BitSet();
+		orShifted(result, follow[position], followBase[position]);
+		return result;
+	}
+
+	/**
+	 * Returns the follow set of a position relative to
+	 * {@link #followBase(int)}. The set must not be modified.
+	 */
+	BitSet followBits(int position) {
+		return follow[position];
+	}
+
+	/**
+	 * Returns the position that bit {@code 0} of {@link #followBits(int)}
+	 * stands for.
+	 */
+	int followBase(int position) {
+		return followBase[position];
+	}
+
+	/**
+	 * Adds the members of {@code source}, each increased by {@code shift}, to
+	 * {@code target}.
+	 */
+	static void orShifted(BitSet target, BitSet source, int shift) {
+		if (shift == 0) {
+			target.or(source);
+			return;
+		}
+		for (int p = source.nextSetBit(0); p >= 0; p = source.nextSetBit(p + 1)) {
+			target.set(p + shift);
+		}
+	}
+
+	/**
+	 * The nullable, first and last set of a subexpression.
+	 */
+	private static final class Sets {
+		static final Sets EMPTY_WORD = new Sets(true, new BitSet(), new BitSet());
+		static final Sets EMPTY_SET = new Sets(false, new BitSet(), new BitSet());
+
+		final boolean nullable;
+		final BitSet first;
+		final BitSet last;
+
+		Sets(boolean nullable, BitSet first, BitSet last) {
+			this.nullable = nullable;
+			this.first = first;
+			this.last = last;
+		}
+	}
+
+	/**
+	 * Numbers the positions from left to right and computes the sets bottom-up
+	 * in an explicit post-order walk. Follow sets are collected on the fly.
+	 */
+	private static final class Analysis {
+		final List<RangeSymbol> symbols = new ArrayList<>();
+		final List<BitSet> follow = new ArrayList<>();
+		int[] followBase = new int[16];
+
+		private final Deque<RegularEggspression> pending = new ArrayDeque<>();
+		private final Deque<Boolean> visited = new ArrayDeque<>();
+		private final Deque<Sets> results = new ArrayDeque<>();
+
+		Sets run(RegularEggspression expression) {
+			push(expression);
+			while (!pending.isEmpty()) {
+				RegularEggspression node = pending.pop();
+				if (visited.pop()) {
+					post(node);
+				} else {
+					pre(node);
+				}
+			}
+			return results.pop();
+		}
+
+		private void push(RegularEggspression node) {
+			pending.push(node);
+			visited.push(false);
+		}
+
+		private void pushPost(RegularEggspression node) {
+			pending.push(node);
+			visited.push(true);
+		}
+
+		private void pre(RegularEggspression node) {
+			if (node instanceof Concatenation) {
+				Concatenation concat = (Concatenation) node;
+				pushPost(concat);
+				push(concat.right());
+				push(concat.left());
+			} else if (node instanceof Alternation) {
+				Alternation union = (Alternation) node;
+				pushPost(union);
+				push(union.right());
+				push(union.left());
+			} else if (node instanceof Star) {
+				pushPost(node);
+				push(((Star) node).base());
+			} else if (node instanceof Group) {
+				push(((Group) node).base());
+			} else if (node instanceof Repetition) {
+				Repetition repetition = (Repetition) node;
+				int max = repetition.max();
+				if (repetition.min() > 1 || (max != Repetition.UNBOUNDED && max != 1)) {
+					push(repetition.expand());
+				} else {
+					pushPost(repetition);
+					push(repetition.base());
+				}
+			} else if (node instanceof Literal) {
+				results.push(literal(((Literal) node).symbol()));
+			} else if (node instanceof RegularEggspression.EmptyWord) {
+				results.push(Sets.EMPTY_WORD);
+			} else {
+				// the empty set and invalid nodes
+				results.push(Sets.EMPTY_SET);
+			}
+		}
+
+		private void post(RegularEggspression node) {
+			if (node instanceof Concatenation) {
+				Sets right = results.pop();
+				Sets left = results.pop();
+				results.push(concatenation(left, right));
+			} else if (node instanceof Alternation) {
+				Sets right = results.pop();
+				Sets left = results.pop();
+				results.push(alternation(left, right));
+			} else if (node instanceof Star) {
+				Sets base = results.pop();
+				link(base.last, base.first);
+				results.push(new Sets(true, base.first, base.last));
+			} else {
+				Repetition repetition = (Repetition) node;
+				Sets base = results.pop();
+				if (repetition.max() == Repetition.UNBOUNDED) {
+					link(base.last, base.first);
+				}
+				results.push(new Sets(base.nullable || repetition.min() == 0, base.first, base.last));
+			}
+		}
+
+		private void link(BitSet from, BitSet to) {
+			int min = to.nextSetBit(0);
+			if (min < 0) {
+				return;
+			}
+			BitSet shifted = new BitSet();
+			orShifted(shifted, to, -min);
+			for (int p = from.nextSetBit(0); p >= 0; p = from.nextSetBit(p + 1)) {
+				BitSet bits = follow.get(p);
+				int base = followBase[p];
+				if (bits.isEmpty()) {
+					followBase[p] = min;
+					bits.or(shifted);
+				} else if (base <= min) {
+					orShifted(bits, shifted, min - base);
+				} else {
+					BitSet rebased = (BitSet) shifted.clone();
+					orShifted(rebased, bits, base - min);
+					follow.set(p, rebased);
+					followBase[p] = min;
+				}
+			}
+		}
+
+		private Sets concatenation(Sets left, Sets right) {
+			link(left.last, right.first);
+			BitSet first = (BitSet) left.first.clone();
+			if (left.nullable) {
+				first.or(right.first);
+			}
+			BitSet last = (BitSet) right.last.clone();
+			if (right.nullable) {
+				last.or(left.last);
+			}
+			return new Sets(left.nullable && right.nullable, first, last);
+		}
+
+		private Sets alternation(Sets left, Sets right) {
+			BitSet first = (BitSet) left.first.clone();
+			first.or(right.first);
+			BitSet last = (BitSet) left.last.clone();
+			last.or(right.last);
+			return new Sets(left.nullable || right.nullable, first, last);
+		}
+
+		private Sets literal(VirtualSymbol symbol) {
+			int position = symbols.size();
+			symbols.add(RangeSymbol.of(symbol));
+			follow.add(new BitSet());
+			if (position == followBase.length) {
+				followBase = Arrays.copyOf(followBase, 2 * position);
+			}
+			BitSet self = new BitSet();
+			self.set(position);
+			return new Sets(false, self, self);
+		}
+	}
+
+}
@@ -0,0 +1,160 @@
+package de.dhbw.mh.redeggs;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Finds occurrences of a fixed string using the Boyer-Moore-Horspool algorithm.
+ * <p>
+ * The searcher compares the last char of the needle first and, on a mismatch,
+ * skips ahead by up to the length of the needle. Bad-character shifts for
+ * {@code char} input are looked up by the low byte of the char; chars sharing a
+ * low byte share the smallest of their shifts, which keeps the table at 256
+ * entries without affecting correctness. Byte input is searched for the UTF-8
+ * encoding of the needle.
+ * </p>
+ * <p>
+ * Instances are immutable and may be shared between threads.
+ * </p>
+ */
+public final class HorspoolSearcher {
+
+	private final char[] needle;
+
+	private final int[] shifts = new int[256];
+
+	private final byte[] byteNeedle;
+
+	private final int[] byteShifts = new int[256];
+
+	/**
+	 * Constructs a new searcher for the given needle.
+	 *
+	 * @param needle the string to search for
+	 */
+	public HorspoolSearcher(String needle) {
+		this.needle = needle.toCharArray();
+		this.byteNeedle = needle.getBytes(StandardCharsets.UTF_8);
+		int m = this.needle.length;
+		Arrays.fill(shifts, Math.max(1, m));
+		for (int i = 0; i < m - 1; i++) {
+			shifts[this.needle[i] & 0xFF] = m - 1 - i;
+		}
+		int b = byteNeedle.length;
+		Arrays.fill(byteShifts, Math.max(1, b));
+		for (int i = 0; i < b - 1; i++) {
+			byteShifts[byteNeedle[i] & 0xFF] = b - 1 - i;
+		}
+	}
+
+	/**
+	 * Returns the string searched for.
+	 *
+	 * @return the needle
+	 */
+	public String needle() {
+		return new String(needle);
+	}
+
+	/**
+	 * Finds the first occurrence of the needle in {@code text[from, to)}.
+	 *
+	 * @param text the text to search
+	 * @param from the index to start searching at (inclusive)
+	 * @param to   the index to stop searching at (exclusive)
+	 * @return the index of the first occurrence, or {@code -1} if there is none
+	 */
+	public int indexOf(char[] text, int from, int to) {
+		int m = needle.length;
+		if (m == 0) {
+			return from <= to ? from : -1;
+		}
+		char last = needle[m - 1];
+		int i = from + m - 1;
+		while (i < to) {
+			char c = text[i];
+			if (c == last && matchesAt(text, i - m + 1)) {
+				return i - m + 1;
+			}
+			i += shifts[c & 0xFF];
+		}
+		return -1;
+	}
+
+	private boolean matchesAt(char[] text, int start) {
+		for (int j = needle.length - 2; j >= 0; j--) {
+			if (text[start + j] != needle[j]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Finds the first occurrence of the needle in {@code text} starting at
+	 * {@code from}.
+	 *
+	 * @param text the text to search
+	 * @param from the index to start searching at (inclusive)
+	 * @return the index of the first occurrence, or {@code -1} if there is none
+	 */
+	public int indexOf(CharSequence text, int from) {
+		int m = needle.length;
+		int to = text.length();
+		if (m == 0) {
+			return from <= to ? from : -1;
+		}
+		char last = needle[m - 1];
+		int i = from + m - 1;
+		outer: while (i < to) {
+			char c = text.charAt(i);
+			if (c == last) {
+				int start = i - m + 1;
+				for (int j = m - 2; j >= 0; j--) {
+					if (text.charAt(start + j) != needle[j]) {
+						i += shifts[c & 0xFF];
+						continue outer;
+					}
+				}
+				return start;
+			}
+			i += shifts[c & 0xFF];
+		}
+		return -1;
+	}
+
+	/**
+	 * Finds the first occurrence of the UTF-8 encoded needle in
+	 * {@code text[from, to)}.
+	 *
+	 * @param text the UTF-8 encoded text to search
+	 * @param from the byte index to start searching at (inclusive)
+	 * @param to   the byte index to stop searching at (exclusive)
+	 * @return the byte index of the first occurrence, or {@code -1} if there is
+	 *         none
+	 */
+	public int indexOf(byte[] text, int from, int to) {
+		int m = byteNeedle.length;
+		if (m == 0) {
+			return from <= to ? from : -1;
+		}
+		byte last = byteNeedle[m - 1];
+		int i = from + m - 1;
+		outer: while (i < to) {
+			byte b = text[i];
+			if (b == last) {
+				int start = i - m + 1;
+				for (int j = m - 2; j >= 0; j--) {
+					if (text[start + j] != byteNeedle[j]) {
+						i += byteShifts[b & 0xFF];
+						continue outer;
+					}
+				}
+				return start;
+			}
+			i += byteShifts[b & 0xFF];
+		}
+		return -1;
+	}
+
+}
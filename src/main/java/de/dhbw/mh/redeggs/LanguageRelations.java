@@ -0,0 +1,264 @@
+package de.dhbw.mh.redeggs;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+
+import de.dhbw.mh.redeggs.RegularEggspression.Alternation;
+import de.dhbw.mh.redeggs.RegularEggspression.Concatenation;
+import de.dhbw.mh.redeggs.RegularEggspression.Literal;
+import de.dhbw.mh.redeggs.RegularEggspression.Star;
+
+/**
+ * Set relations between the languages of regular expressions.
+ * <p>
+ * Equivalence is decided with the algorithm of Hopcroft and Karp: both
+ * expressions are determinized {@link LazyDfa lazily} while pairs of states
+ * are explored breadth-first, and pairs are merged in a union-find structure.
+ * A pair whose states are already known to be equivalent is not explored
+ * again, and the search stops at the first pair where one state accepts and
+ * the other does not. Only the states reachable in the product are ever
+ * built.
+ * </p>
+ * <p>
+ * Inclusion is reduced to equivalence: {@code L(a)} is a subset of
+ * {@code L(b)} if and only if {@code a|b} is equivalent to {@code b}.
+ * </p>
+ * <p>
+ * All symbols must expose their code point ranges, see {@link RangeSymbol}.
+ * </p>
+ */
+public final class LanguageRelations {
+
+	private static final RegularEggspression.Visitor<Boolean> EMPTINESS = new Emptiness();
+
+	private LanguageRelations() {
+	}
+
+	/**
+	 * Checks whether an expression matches no word at all.
+	 *
+	 * @param expression the expression to check
+	 * @return {@code true} if the language of {@code expression} is empty
+	 */
+	public static boolean isEmpty(RegularEggspression expression) {
+		return expression.accept(new MemoizingVisitor<>(EMPTINESS));
+	}
+
+	/**
+	 * Checks whether every word matched by {@code a} is matched by {@code b}.
+	 *
+	 * @param a the expression whose language may be contained
+	 * @param b the expression whose language may contain
+	 * @return {@code true} if the language of {@code a} is a subset of the
+	 *         language of {@code b}
+	 */
+	public static boolean isSubsetOf(RegularEggspression a, RegularEggspression b) {
+		return areEquivalent(new Alternation(a, b), b);
+	}
+
+	/**
+	 * Checks whether two expressions match the same words.
+	 *
+	 * @param a the first expression
+	 * @param b the second expression
+	 * @return {@code true} if both languages are equal
+	 */
+	public static boolean areEquivalent(RegularEggspression a, RegularEggspression b) {
+		return distinguishingWord(LazyDfa.of(a), LazyDfa.of(b)) == null;
+	}
+
+	/**
+	 * Finds a shortest word matched by exactly one of two expressions.
+	 *
+	 * @param a the first expression
+	 * @param b the second expression
+	 * @return a word distinguishing the expressions, or an empty optional if they
+	 *         are equivalent
+	 */
+	public static Optional<String> distinguishingWord(RegularEggspression a, RegularEggspression b) {
+		return Optional.ofNullable(distinguishingWord(LazyDfa.of(a), LazyDfa.of(b)));
+	}
+
+	/**
+	 * Groups rules by their language. Rules that cannot be equivalent because
+	 * they differ in nullability or emptiness are never compared.
+	 *
+	 * @param rules the rules to group
+	 * @return for every rule, the index of the first rule equivalent to it
+	 */
+	public static int[] equivalenceClasses(List<? extends RegularEggspression> rules) {
+		int[] representative = new int[rules.size()];
+		LazyDfa[] automata = new LazyDfa[rules.size()];
+		Map<Integer, List<Integer>> buckets = new HashMap<>();
+		for (int i = 0; i < rules.size(); i++) {
+			automata[i] = LazyDfa.of(rules.get(i));
+			int signature = (automata[i].acceptLabel(Dfa.START) != Dfa.NO_RULE ? 1 : 0)
+					| (isEmpty(rules.get(i)) ? 2 : 0);
+			List<Integer> bucket = buckets.computeIfAbsent(signature, key -> new ArrayList<>());
+			representative[i] = i;
+			for (int candidate : bucket) {
+				if (distinguishingWord(automata[candidate], automata[i]) == null) {
+					representative[i] = candidate;
+					break;
+				}
+			}
+			if (representative[i] == i) {
+				bucket.add(i);
+			}
+		}
+		return representative;
+	}
+
+	/**
+	 * Runs the Hopcroft-Karp search on two lazy DFAs.
+	 *
+	 * @return a shortest distinguishing word, or {@code null} if the DFAs are
+	 *         equivalent
+	 */
+	private static String distinguishingWord(LazyDfa a, LazyDfa b) {
+		int[][] classes = jointClasses(a, b);
+		UnionFind merged = new UnionFind();
+		List<int[]> pairs = new ArrayList<>();
+		ArrayDeque<Integer> queue = new ArrayDeque<>();
+
+		// a pair is {state of a, state of b, index of the parent pair, code point}
+		merged.union(node(Dfa.START, 0), node(Dfa.START, 1));
+		pairs.add(new int[] { Dfa.START, Dfa.START, -1, -1 });
+		queue.add(0);
+		while (!queue.isEmpty()) {
+			int index = queue.poll();
+			int[] pair = pairs.get(index);
+			if ((a.acceptLabel(pair[0]) == Dfa.NO_RULE) != (b.acceptLabel(pair[1]) == Dfa.NO_RULE)) {
+				return witness(pairs, index);
+			}
+			for (int[] cls : classes) {
+				int p = a.next(pair[0], cls[0]);
+				int q = b.next(pair[1], cls[1]);
+				if (merged.union(node(p, 0), node(q, 1))) {
+					pairs.add(new int[] { p, q, index, cls[2] });
+					queue.add(pairs.size() - 1);
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns every combination of a class of {@code a} and a class of {@code b}
+	 * shared by some code point, together with such a code point.
+	 */
+	private static int[][] jointClasses(LazyDfa a, LazyDfa b) {
+		TreeSet<Integer> starts = new TreeSet<>();
+		for (int start : a.alphabet().intervalStarts()) {
+			starts.add(start);
+		}
+		for (int start : b.alphabet().intervalStarts()) {
+			starts.add(start);
+		}
+		Map<Long, int[]> classes = new LinkedHashMap<>();
+		for (int codePoint : starts) {
+			int ca = a.classOf(codePoint), cb = b.classOf(codePoint);
+			classes.putIfAbsent(((long) ca << 32) | cb, new int[] { ca, cb, codePoint });
+		}
+		return classes.values().toArray(new int[0][]);
+	}
+
+	private static long node(int state, int side) {
+		return 2L * state + side;
+	}
+
+	private static String witness(List<int[]> pairs, int index) {
+		StringBuilder word = new StringBuilder();
+		for (int[] pair = pairs.get(index); pair[2] >= 0; pair = pairs.get(pair[2])) {
+			word.appendCodePoint(pair[3]);
+		}
+		return reverseCodePoints(word);
+	}
+
+	private static String reverseCodePoints(StringBuilder word) {
+		int[] codePoints = word.codePoints().toArray();
+		StringBuilder reversed = new StringBuilder();
+		for (int i = codePoints.length - 1; i >= 0; i--) {
+			reversed.appendCodePoint(codePoints[i]);
+		}
+		return reversed.toString();
+	}
+
+	/**
+	 * A union-find structure over the states of both DFAs.
+	 */
+	private static final class UnionFind {
+		private final Map<Long, Long> parent = new HashMap<>();
+
+		long find(long node) {
+			long root = node;
+			for (Long up = parent.get(root); up != null; up = parent.get(root)) {
+				root = up;
+			}
+			for (long current = node; current != root;) {
+				long up = parent.get(current);
+				parent.put(current, root);
+				current = up;
+			}
+			return root;
+		}
+
+		/**
+		 * Merges the classes of both nodes.
+		 *
+		 * @return {@code true} if they were in different classes before
+		 */
+		boolean union(long first, long second) {
+			long a = find(first), b = find(second);
+			if (a == b) {
+				return false;
+			}
+			parent.put(a, b);
+			return true;
+		}
+	}
+
+	/**
+	 * Checks bottom-up whether an expression matches no word.
+	 */
+	private static final class Emptiness implements RegularEggspression.Visitor<Boolean> {
+
+		@Override
+		public Boolean visit(RegularEggspression.EmptyWord emptyWord) {
+			return false;
+		}
+
+		@Override
+		public Boolean visit(RegularEggspression.EmptySet emptySet) {
+			return true;
+		}
+
+		@Override
+		public Boolean visitPost(Concatenation concat, Boolean prefix, Boolean suffix) {
+			return prefix || suffix;
+		}
+
+		@Override
+		public Boolean visitPost(Alternation union, Boolean first, Boolean second) {
+			return first && second;
+		}
+
+		@Override
+		public Boolean visitPost(Star star, Boolean base) {
+			return false;
+		}
+
+		@Override
+		public Boolean visitPost(Literal literal, VirtualSymbol symbol) {
+			return RangeSymbol.of(symbol).isEmpty();
+		}
+
+	}
+
+}
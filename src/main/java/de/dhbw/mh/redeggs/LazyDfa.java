@@ -0,0 +1,240 @@
+package de.dhbw.mh.redeggs;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A DFA whose states and transitions are computed on first use.
+ * <p>
+ * Subset construction may need exponentially many states, yet a single input,
+ * or a comparison of two automata, usually visits only a few of them. This DFA
+ * starts with the dead and the start state only and adds a state whenever a
+ * transition leads to a new set of positions, see {@link DfaCompiler} for the
+ * construction. State numbers and accept labels follow the conventions of
+ * {@link Dfa}.
+ * </p>
+ * <p>
+ * Instances may be shared between threads. Known transitions are read without
+ * locking; they are published with release semantics after the target state
+ * is fully set up. Computing a missing transition takes a lock.
+ * </p>
+ */
+public final class LazyDfa {
+
+	private static final int UNKNOWN = -1;
+
+	private static final VarHandle ENTRY = MethodHandles.arrayElementVarHandle(int[].class);
+
+	private final PositionNfa nfa;
+
+	private final int classCount;
+
+	private final int maxStates;
+
+	/** Guarded by {@code this}. */
+	private final Map<BitSet, Integer> ids = new HashMap<>();
+
+	/** Guarded by {@code this}. */
+	private final List<BitSet> sets = new ArrayList<>();
+
+	private volatile int[][] rows;
+
+	private volatile int[] acceptLabels;
+
+	private volatile int computedTransitions;
+
+	private final MatchProfiler profiler;
+
+	private LazyDfa(PositionNfa nfa, int maxStates, MatchProfiler profiler) {
+		this.nfa = nfa;
+		this.profiler = profiler;
+		this.classCount = nfa.alphabet.classCount();
+		this.maxStates = maxStates;
+		this.rows = new int[2][];
+		this.acceptLabels = new int[2];
+		BitSet dead = new BitSet();
+		ids.put(dead, Dfa.DEAD);
+		sets.add(dead);
+		rows[Dfa.DEAD] = new int[classCount];
+		acceptLabels[Dfa.DEAD] = Dfa.NO_RULE;
+		ids.putIfAbsent(nfa.start, Dfa.START);
+		sets.add(nfa.start);
+		rows[Dfa.START] = unknownRow();
+		acceptLabels[Dfa.START] = nfa.acceptLabel(nfa.start);
+	}
+
+	/**
+	 * Creates a lazy DFA for a single rule.
+	 *
+	 * @param rule the rule to recognize
+	 * @return the lazy DFA accepting {@code rule} as rule {@code 0}
+	 * @throws IllegalArgumentException if a symbol does not expose its code point
+	 *                                  ranges
+	 */
+	public static LazyDfa of(RegularEggspression rule) {
+		return of(List.of(rule), Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Creates a lazy DFA for a list of rules, see {@link DfaCompiler#compile(List,
+	 * int)}.
+	 *
+	 * @param rules     the rules to recognize
+	 * @param maxStates the maximum number of states, including the dead state
+	 * @return the lazy DFA accepting all rules
+	 * @throws IllegalArgumentException if a symbol does not expose its code point
+	 *                                  ranges
+	 */
+	public static LazyDfa of(List<? extends RegularEggspression> rules, int maxStates) {
+		return of(rules, maxStates, null);
+	}
+
+	/**
+	 * Creates a lazy DFA for a list of rules that reports every computed
+	 * transition to a profiler as a {@link MatchProfile#cacheMisses() cache
+	 * miss}.
+	 *
+	 * @param rules     the rules to recognize
+	 * @param maxStates the maximum number of states, including the dead state
+	 * @param profiler  receives the cache misses, or {@code null} to disable
+	 *                  profiling
+	 * @return the lazy DFA accepting all rules
+	 * @throws IllegalArgumentException if a symbol does not expose its code point
+	 *                                  ranges
+	 */
+	public static LazyDfa of(List<? extends RegularEggspression> rules, int maxStates, MatchProfiler profiler) {
+		return new LazyDfa(new PositionNfa(rules), maxStates, profiler);
+	}
+
+	private int[] unknownRow() {
+		int[] row = new int[classCount];
+		Arrays.fill(row, UNKNOWN);
+		return row;
+	}
+
+	/**
+	 * Returns the classes of the code points.
+	 *
+	 * @return the alphabet
+	 */
+	public Alphabet alphabet() {
+		return nfa.alphabet;
+	}
+
+	/**
+	 * Returns the class of the given code point.
+	 *
+	 * @param codePoint the code point to classify
+	 * @return the class of {@code codePoint}
+	 */
+	public int classOf(int codePoint) {
+		return nfa.alphabet.classOf(codePoint);
+	}
+
+	/**
+	 * Returns the number of code point classes.
+	 *
+	 * @return the number of classes
+	 */
+	public int classCount() {
+		return classCount;
+	}
+
+	/**
+	 * Returns the number of states discovered so far.
+	 *
+	 * @return the number of known states
+	 */
+	public synchronized int stateCount() {
+		return sets.size();
+	}
+
+	/**
+	 * Returns the number of transitions computed so far, i.e. the number of
+	 * cache misses of {@link #next(int, int)}.
+	 *
+	 * @return the number of computed transitions
+	 */
+	public int computedTransitions() {
+		return computedTransitions;
+	}
+
+	/**
+	 * Returns the successor of a state, computing it if necessary.
+	 *
+	 * @param state a state returned by this DFA
+	 * @param cls   the class of the consumed code point
+	 * @return the next state
+	 * @throws IllegalStateException if a new state would exceed the state limit
+	 */
+	public int next(int state, int cls) {
+		int target = (int) ENTRY.getAcquire(rows[state], cls);
+		return target != UNKNOWN ? target : compute(state, cls);
+	}
+
+	private synchronized int compute(int state, int cls) {
+		int[] row = rows[state];
+		if (row[cls] != UNKNOWN) {
+			return row[cls];
+		}
+		BitSet target = nfa.successors(sets.get(state), cls);
+		Integer id = ids.get(target);
+		if (id == null) {
+			if (sets.size() >= maxStates) {
+				throw new IllegalStateException("DFA exceeds " + maxStates + " states");
+			}
+			id = sets.size();
+			ids.put(target, id);
+			sets.add(target);
+			int[][] grownRows = rows;
+			int[] grownLabels = acceptLabels;
+			if (id >= grownRows.length) {
+				grownRows = Arrays.copyOf(grownRows, 2 * grownRows.length);
+				grownLabels = Arrays.copyOf(grownLabels, 2 * grownLabels.length);
+			}
+			grownRows[id] = unknownRow();
+			grownLabels[id] = nfa.acceptLabel(target);
+			acceptLabels = grownLabels;
+			rows = grownRows;
+		}
+		computedTransitions++;
+		if (profiler != null) {
+			profiler.cacheMiss();
+		}
+		ENTRY.setRelease(row, cls, (int) id);
+		return id;
+	}
+
+	/**
+	 * Returns the rule accepted by a state.
+	 *
+	 * @param state a state returned by this DFA
+	 * @return the index of the accepted rule, or {@link Dfa#NO_RULE}
+	 */
+	public int acceptLabel(int state) {
+		return acceptLabels[state];
+	}
+
+	/**
+	 * Returns the rule accepting the whole input.
+	 *
+	 * @param input the input to match
+	 * @return the index of the accepting rule, or {@link Dfa#NO_RULE}
+	 */
+	public int match(CharSequence input) {
+		int state = Dfa.START;
+		for (int i = 0, length = input.length(); i < length && state != Dfa.DEAD;) {
+			int codePoint = Character.codePointAt(input, i);
+			i += Character.charCount(codePoint);
+			state = next(state, classOf(codePoint));
+		}
+		return acceptLabel(state);
+	}
+
+}
@@ -0,0 +1,131 @@
+package de.dhbw.mh.redeggs;
+
+/**
+ * Skips over text that cannot contain a match of a regular expression, based on
+ * its {@link RequiredLiterals}.
+ * <p>
+ * If the expression has a required prefix, every match starts at an occurrence
+ * of it, so {@link #nextCandidate(CharSequence, int)} jumps straight to the next
+ * possible match start. Otherwise, the longest required factor is used: no
+ * match can start behind its last occurrence, so once it is no longer found the
+ * rest of the text is skipped. Expressions without required literals accept
+ * every position as a candidate.
+ * </p>
+ * <p>
+ * Instances are immutable and may be shared between threads.
+ * </p>
+ */
+public final class LiteralPrefilter {
+
+	private final RequiredLiterals literals;
+
+	private final HorspoolSearcher searcher;
+
+	private final boolean anchored;
+
+	private LiteralPrefilter(RequiredLiterals literals) {
+		this.literals = literals;
+		String prefix = literals.prefix();
+		// a prefix yields match starts, which is worth a somewhat shorter needle
+		this.anchored = !prefix.isEmpty() && 2 * prefix.length() >= literals.factor().length();
+		this.searcher = new HorspoolSearcher(anchored ? prefix : literals.factor());
+	}
+
+	/**
+	 * Creates the prefilter for the given expression.
+	 *
+	 * @param expression the expression matches are searched for
+	 * @return the prefilter for {@code expression}
+	 */
+	public static LiteralPrefilter of(RegularEggspression expression) {
+		return new LiteralPrefilter(RequiredLiterals.of(expression));
+	}
+
+	/**
+	 * Returns the required literals this prefilter is based on.
+	 *
+	 * @return the required literals
+	 */
+	public RequiredLiterals literals() {
+		return literals;
+	}
+
+	/**
+	 * Checks whether this prefilter is able to skip any text at all.
+	 *
+	 * @return {@code true} if a required literal is known
+	 */
+	public boolean isEffective() {
+		return !literals.isEmpty();
+	}
+
+	/**
+	 * Checks whether candidates returned by this prefilter are exact match
+	 * starts, i.e. whether it searches for a required prefix.
+	 *
+	 * @return {@code true} if no match starts between {@code from} and the
+	 *         returned candidate
+	 */
+	public boolean isAnchored() {
+		return anchored;
+	}
+
+	/**
+	 * Returns the next position at or after {@code from} where a match may start.
+	 *
+	 * @param text the text to search
+	 * @param from the position to start at
+	 * @return the next candidate position, or {@code -1} if no match can start at
+	 *         or after {@code from}
+	 */
+	public int nextCandidate(CharSequence text, int from) {
+		int hit = searcher.indexOf(text, from);
+		return anchored || hit < 0 ? hit : from;
+	}
+
+	/**
+	 * Returns the next position in {@code text[from, to)} where a match may
+	 * start.
+	 *
+	 * @param text the text to search
+	 * @param from the position to start at (inclusive)
+	 * @param to   the end of the text (exclusive)
+	 * @return the next candidate position, or {@code -1} if no match can start in
+	 *         the given range
+	 */
+	public int nextCandidate(char[] text, int from, int to) {
+		int hit = searcher.indexOf(text, from, to);
+		return anchored || hit < 0 ? hit : from;
+	}
+
+	/**
+	 * Returns the next byte position in the UTF-8 encoded {@code text[from, to)}
+	 * where a match may start.
+	 *
+	 * @param text the UTF-8 encoded text to search
+	 * @param from the byte position to start at (inclusive)
+	 * @param to   the end of the text (exclusive)
+	 * @return the next candidate position, or {@code -1} if no match can start in
+	 *         the given range
+	 */
+	public int nextCandidate(byte[] text, int from, int to) {
+		int hit = searcher.indexOf(text, from, to);
+		return anchored || hit < 0 ? hit : from;
+	}
+
+	/**
+	 * Quickly checks whether the given text might contain a match.
+	 *
+	 * @param text the text to check
+	 * @return {@code false} if the text certainly contains no match
+	 */
+	public boolean mightMatch(CharSequence text) {
+		return searcher.indexOf(text, 0) >= 0;
+	}
+
+	@Override
+	public String toString() {
+		return (anchored ? "prefix \"" : "factor \"") + searcher.needle() + "\"";
+	}
+
+}
@@ -0,0 +1,74 @@
+package de.dhbw.mh.redeggs;
+
+/**
+ * A match of a rule in an input, spanning the chars from {@link #start()}
+ * inclusive to {@link #end()} exclusive.
+ */
+public final class Match {
+
+	private final int start;
+
+	private final int end;
+
+	private final int rule;
+
+	/**
+	 * Creates a match.
+	 *
+	 * @param start the index of the first char of the match
+	 * @param end   the index after the last char of the match
+	 * @param rule  the index of the matching rule
+	 */
+	public Match(int start, int end, int rule) {
+		this.start = start;
+		this.end = end;
+		this.rule = rule;
+	}
+
+	/**
+	 * Returns the index of the first char of the match.
+	 *
+	 * @return the start index
+	 */
+	public int start() {
+		return start;
+	}
+
+	/**
+	 * Returns the index after the last char of the match.
+	 *
+	 * @return the end index
+	 */
+	public int end() {
+		return end;
+	}
+
+	/**
+	 * Returns the index of the matching rule.
+	 *
+	 * @return the rule index
+	 */
+	public int rule() {
+		return rule;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof Match)) {
+			return false;
+		}
+		Match other = (Match) o;
+		return start == other.start && end == other.end && rule == other.rule;
+	}
+
+	@Override
+	public int hashCode() {
+		return (start * 31 + end) * 31 + rule;
+	}
+
+	@Override
+	public String toString() {
+		return "[" + start + ", " + end + ")#" + rule;
+	}
+
+}
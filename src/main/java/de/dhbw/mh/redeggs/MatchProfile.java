@@ -0,0 +1,142 @@
+package de.dhbw.mh.redeggs;
+
+/**
+ * A snapshot of the counters of a {@link MatchProfiler}.
+ * <p>
+ * Per-rule values are looked up by rule index; {@link Dfa#NO_RULE} selects the
+ * unmatched text reported by a {@link Tokenizer}.
+ * </p>
+ */
+public final class MatchProfile {
+
+	private final long[] tokens;
+
+	private final long[] chars;
+
+	private final long[] statesVisited;
+
+	private final long[] prefilterHits;
+
+	private final long[] prefilterFalsePositives;
+
+	private final long cacheMisses;
+
+	MatchProfile(long[] tokens, long[] chars, long[] statesVisited, long[] prefilterHits,
+			long[] prefilterFalsePositives, long cacheMisses) {
+		this.tokens = tokens;
+		this.chars = chars;
+		this.statesVisited = statesVisited;
+		this.prefilterHits = prefilterHits;
+		this.prefilterFalsePositives = prefilterFalsePositives;
+		this.cacheMisses = cacheMisses;
+	}
+
+	/**
+	 * Returns the number of profiled rules.
+	 *
+	 * @return the number of rules
+	 */
+	public int ruleCount() {
+		return tokens.length - 1;
+	}
+
+	/**
+	 * Returns the number of tokens of a rule.
+	 *
+	 * @param rule the index of the rule, or {@link Dfa#NO_RULE}
+	 * @return the number of tokens
+	 */
+	public long tokens(int rule) {
+		return tokens[rule + 1];
+	}
+
+	/**
+	 * Returns the total length of the tokens of a rule.
+	 *
+	 * @param rule the index of the rule, or {@link Dfa#NO_RULE}
+	 * @return the number of chars covered by the rule's tokens
+	 */
+	public long chars(int rule) {
+		return chars[rule + 1];
+	}
+
+	/**
+	 * Returns the average length of the tokens of a rule.
+	 *
+	 * @param rule the index of the rule, or {@link Dfa#NO_RULE}
+	 * @return the average token length in chars, or {@code 0} without tokens
+	 */
+	public double averageTokenLength(int rule) {
+		return tokens[rule + 1] == 0 ? 0 : (double) chars[rule + 1] / tokens[rule + 1];
+	}
+
+	/**
+	 * Returns the number of DFA transitions taken to find the tokens of a rule.
+	 * Transitions beyond the end of a token, taken while looking for a longer
+	 * match, are attributed to the token found.
+	 *
+	 * @param rule the index of the rule, or {@link Dfa#NO_RULE}
+	 * @return the number of visited states
+	 */
+	public long statesVisited(int rule) {
+		return statesVisited[rule + 1];
+	}
+
+	/**
+	 * Returns how often the prefilter reported a rule because its required
+	 * literal occurred.
+	 *
+	 * @param rule the index of the rule
+	 * @return the number of prefilter hits
+	 */
+	public long prefilterHits(int rule) {
+		return prefilterHits[rule + 1];
+	}
+
+	/**
+	 * Returns how many prefilter hits of a rule were not confirmed by its
+	 * matcher.
+	 *
+	 * @param rule the index of the rule
+	 * @return the number of false positives
+	 */
+	public long prefilterFalsePositives(int rule) {
+		return prefilterFalsePositives[rule + 1];
+	}
+
+	/**
+	 * Returns the share of the prefilter hits of a rule that were false
+	 * positives.
+	 *
+	 * @param rule the index of the rule
+	 * @return the false positive rate between {@code 0} and {@code 1}, or
+	 *         {@code 0} without hits
+	 */
+	public double prefilterFalsePositiveRate(int rule) {
+		long hits = prefilterHits[rule + 1];
+		return hits == 0 ? 0 : (double) prefilterFalsePositives[rule + 1] / hits;
+	}
+
+	/**
+	 * Returns the number of transitions lazy DFAs had to compute.
+	 *
+	 * @return the number of cache misses
+	 */
+	public long cacheMisses() {
+		return cacheMisses;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder(
+				String.format("%6s %10s %10s %12s %10s %8s%n", "rule", "tokens", "avg len", "states", "pf hits",
+						"pf fp%"));
+		for (int rule = Dfa.NO_RULE; rule < ruleCount(); rule++) {
+			result.append(String.format("%6s %10d %10.2f %12d %10d %8.1f%n", rule == Dfa.NO_RULE ? "-" : rule,
+					tokens(rule), averageTokenLength(rule), statesVisited(rule), prefilterHits(rule),
+					100 * prefilterFalsePositiveRate(rule)));
+		}
+		return result.append("cache misses: ").append(cacheMisses).toString();
+	}
+
+}
@@ -0,0 +1,131 @@
+package de.dhbw.mh.redeggs;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects per-rule cost counters of the matching engines.
+ * <p>
+ * A profiler is passed to a {@link Tokenizer}, {@link RuleSet} or
+ * {@link LazyDfa} when it is created. Engines created without a profiler keep
+ * {@code null} and only test for it once per token, candidate or cache miss,
+ * never per char. Several engines, and any number of threads, may report to
+ * the same profiler.
+ * </p>
+ * <p>
+ * Every counter is a {@link LongAdder}, which stripes updates from different
+ * threads over separate cells. The cells are only summed up when a
+ * {@link #snapshot()} is taken, so reporting threads do not contend on a
+ * shared cache line.
+ * </p>
+ */
+public final class MatchProfiler {
+
+	private final int ruleCount;
+
+	/** Per-rule counters, indexed by {@code rule + 1} so that slot 0 holds {@link Dfa#NO_RULE}. */
+	private final LongAdder[] tokens;
+	private final LongAdder[] chars;
+	private final LongAdder[] statesVisited;
+	private final LongAdder[] prefilterHits;
+	private final LongAdder[] prefilterFalsePositives;
+
+	private final LongAdder cacheMisses = new LongAdder();
+
+	/**
+	 * Creates a profiler for the given number of rules.
+	 *
+	 * @param ruleCount the number of rules of the profiled engines
+	 */
+	public MatchProfiler(int ruleCount) {
+		this.ruleCount = ruleCount;
+		this.tokens = counters(ruleCount + 1);
+		this.chars = counters(ruleCount + 1);
+		this.statesVisited = counters(ruleCount + 1);
+		this.prefilterHits = counters(ruleCount + 1);
+		this.prefilterFalsePositives = counters(ruleCount + 1);
+	}
+
+	private static LongAdder[] counters(int count) {
+		LongAdder[] counters = new LongAdder[count];
+		for (int i = 0; i < count; i++) {
+			counters[i] = new LongAdder();
+		}
+		return counters;
+	}
+
+	/**
+	 * Returns the number of profiled rules.
+	 *
+	 * @return the number of rules
+	 */
+	public int ruleCount() {
+		return ruleCount;
+	}
+
+	/**
+	 * Records a token.
+	 *
+	 * @param rule          the rule of the token, or {@link Dfa#NO_RULE} for
+	 *                      unmatched text
+	 * @param length        the length of the token in chars
+	 * @param statesVisited the number of DFA transitions taken to find the token,
+	 *                      including those looking for a longer match
+	 */
+	void token(int rule, int length, int statesVisited) {
+		tokens[rule + 1].increment();
+		chars[rule + 1].add(length);
+		this.statesVisited[rule + 1].add(statesVisited);
+	}
+
+	/**
+	 * Records that the prefilter reported a rule that has a required literal.
+	 *
+	 * @param rule      the rule reported by the prefilter
+	 * @param confirmed whether the rule's matcher confirmed the candidate
+	 */
+	void prefilterHit(int rule, boolean confirmed) {
+		prefilterHits[rule + 1].increment();
+		if (!confirmed) {
+			prefilterFalsePositives[rule + 1].increment();
+		}
+	}
+
+	/**
+	 * Records a transition of a {@link LazyDfa} that had to be computed.
+	 */
+	void cacheMiss() {
+		cacheMisses.increment();
+	}
+
+	/**
+	 * Sums up the counters reported so far.
+	 *
+	 * @return the current counter values
+	 */
+	public MatchProfile snapshot() {
+		long[][] values = new long[5][ruleCount + 1];
+		for (int slot = 0; slot <= ruleCount; slot++) {
+			values[0][slot] = tokens[slot].sum();
+			values[1][slot] = chars[slot].sum();
+			values[2][slot] = statesVisited[slot].sum();
+			values[3][slot] = prefilterHits[slot].sum();
+			values[4][slot] = prefilterFalsePositives[slot].sum();
+		}
+		return new MatchProfile(values[0], values[1], values[2], values[3], values[4], cacheMisses.sum());
+	}
+
+	/**
+	 * Resets all counters to zero. Counts reported concurrently may be lost.
+	 */
+	public void reset() {
+		for (int slot = 0; slot <= ruleCount; slot++) {
+			tokens[slot].reset();
+			chars[slot].reset();
+			statesVisited[slot].reset();
+			prefilterHits[slot].reset();
+			prefilterFalsePositives[slot].reset();
+		}
+		cacheMisses.reset();
+	}
+
+}
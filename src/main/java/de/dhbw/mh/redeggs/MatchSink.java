@@ -0,0 +1,21 @@
+package de.dhbw.mh.redeggs;
+
+/**
+ * Receives the spans found by a matching engine as primitive values, so that
+ * reporting a match does not allocate.
+ */
+@FunctionalInterface
+public interface MatchSink {
+
+	/**
+	 * Receives a match spanning the chars from {@code start} inclusive to
+	 * {@code end} exclusive.
+	 *
+	 * @param start the index of the first char of the match
+	 * @param end   the index after the last char of the match
+	 * @param rule  the index of the matching rule, or {@link Dfa#NO_RULE} for a
+	 *              span no rule matched
+	 */
+	void match(int start, int end, int rule);
+
+}
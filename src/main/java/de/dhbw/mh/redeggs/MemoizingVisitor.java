@@ -0,0 +1,432 @@
+package de.dhbw.mh.redeggs;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+
+import de.dhbw.mh.redeggs.RegularEggspression.Alternation;
+import de.dhbw.mh.redeggs.RegularEggspression.Concatenation;
+import de.dhbw.mh.redeggs.RegularEggspression.Group;
+import de.dhbw.mh.redeggs.RegularEggspression.Literal;
+import de.dhbw.mh.redeggs.RegularEggspression.Repetition;
+import de.dhbw.mh.redeggs.RegularEggspression.Star;
+
+/**
+ * A visitor that caches the result of a bottom-up analysis for every node.
+ * <p>
+ * Expressions may share subtrees, e.g. after {@link
+ * RecursiveDescentRedeggsParser#reparse reparsing} or when built
+ * programmatically. A plain visitor visits a shared subtree once per path
+ * leading to it, which grows exponentially with the nesting depth. This
+ * visitor visits every distinct node once and answers repeated visits from
+ * its cache.
+ * </p>
+ * <p>
+ * The wrapped analysis must be expressed through the {@code visitPost}
+ * methods and the leaf {@code visit} methods, and its results must only
+ * depend on the visited subtree. Analyses overriding the inner {@code visit}
+ * methods, e.g. to emit code in a particular order, cannot be memoized.
+ * </p>
+ * <p>
+ * Nodes are keyed either by identity or by structure. With
+ * {@link Keying#STRUCTURE}, structurally equal subtrees share one result even
+ * if they are distinct objects, so the analysis runs once per distinct
+ * subtree shape. Literals are compared by their symbols' {@code equals}.
+ * </p>
+ * <p>
+ * The traversal uses an explicit stack, so arbitrarily deep expressions, e.g.
+ * long literals, are analyzed without a {@link StackOverflowError}.
+ * </p>
+ * <p>
+ * With {@link Retention#WEAK}, cache entries are dropped once their node is no
+ * longer reachable, so a long-lived visitor can be used for many expressions.
+ * Results must then not refer to their nodes. Instances are not thread-safe.
+ * </p>
+ *
+ * @param <T> the result type of the analysis
+ */
+public final class MemoizingVisitor<T> implements RegularEggspression.Visitor<T> {
+
+	/**
+	 * How nodes are identified in the cache.
+	 */
+	public enum Keying {
+		/**
+		 * Every node object is cached separately.
+		 */
+		IDENTITY,
+		/**
+		 * Structurally equal subtrees share one cache entry.
+		 */
+		STRUCTURE
+	}
+
+	/**
+	 * How long cache entries are retained.
+	 */
+	public enum Retention {
+		/**
+		 * Entries are retained until {@link MemoizingVisitor#clear()}.
+		 */
+		STRONG,
+		/**
+		 * Entries are dropped once their node is no longer reachable.
+		 */
+		WEAK
+	}
+
+	private static final RegularEggspression[] NO_CHILDREN = new RegularEggspression[0];
+
+	private final RegularEggspression.Visitor<T> analysis;
+
+	private final Keying keying;
+
+	private final Retention retention;
+
+	private Map<RegularEggspression, Slot<T>> slots;
+
+	private Map<Shape<T>, Object> shapes;
+
+	/**
+	 * Creates a visitor caching by identity with strong retention.
+	 *
+	 * @param analysis the analysis to memoize
+	 */
+	public MemoizingVisitor(RegularEggspression.Visitor<T> analysis) {
+		this(analysis, Keying.IDENTITY, Retention.STRONG);
+	}
+
+	/**
+	 * Creates a visitor with the given caching policy.
+	 *
+	 * @param analysis  the analysis to memoize
+	 * @param keying    how nodes are identified
+	 * @param retention how long results are retained
+	 */
+	public MemoizingVisitor(RegularEggspression.Visitor<T> analysis, Keying keying, Retention retention) {
+		this.analysis = Objects.requireNonNull(analysis);
+		this.keying = Objects.requireNonNull(keying);
+		this.retention = Objects.requireNonNull(retention);
+		clear();
+	}
+
+	/**
+	 * Drops all cached results.
+	 */
+	public void clear() {
+		// nodes do not override equals, so a WeakHashMap compares them by identity
+		slots = retention == Retention.WEAK ? new WeakHashMap<>() : new IdentityHashMap<>();
+		if (keying == Keying.STRUCTURE) {
+			shapes = retention == Retention.WEAK ? new WeakHashMap<>() : new HashMap<>();
+		}
+	}
+
+	/**
+	 * Returns the number of nodes with a cached result.
+	 *
+	 * @return the number of cached nodes
+	 */
+	public int cachedNodes() {
+		return slots.size();
+	}
+
+	/**
+	 * Returns the number of distinct results computed by the analysis and still
+	 * cached. With {@link Keying#IDENTITY}, this is the number of cached nodes.
+	 *
+	 * @return the number of cached results
+	 */
+	public int cachedResults() {
+		return shapes == null ? slots.size() : shapes.size();
+	}
+
+	/**
+	 * Holds the result of a node or, with {@link Keying#STRUCTURE}, of all nodes
+	 * of one shape.
+	 */
+	private static class Slot<T> {
+		boolean computed;
+		T result;
+
+		T set(T result) {
+			this.result = result;
+			this.computed = true;
+			return result;
+		}
+	}
+
+	/**
+	 * The canonical representative of structurally equal subtrees. Children are
+	 * canonical themselves, so they are compared by identity.
+	 */
+	private static final class Shape<T> extends Slot<T> {
+		final Class<?> kind;
+		final Object payload;
+		final Shape<T> left;
+		final Shape<T> right;
+		final int hash;
+
+		Shape(Class<?> kind, Object payload, Shape<T> left, Shape<T> right) {
+			this.kind = kind;
+			this.payload = payload;
+			this.left = left;
+			this.right = right;
+			this.hash = ((kind.hashCode() * 31 + Objects.hashCode(payload)) * 31
+					+ System.identityHashCode(left)) * 31 + System.identityHashCode(right);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Shape)) {
+				return false;
+			}
+			Shape<?> other = (Shape<?>) o;
+			return hash == other.hash && kind == other.kind && left == other.left && right == other.right
+					&& Objects.equals(payload, other.payload);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+	private T cached(RegularEggspression node) {
+		Slot<T> slot = slots.get(node);
+		return slot == null ? null : slot.result;
+	}
+
+	private boolean isCached(RegularEggspression node) {
+		Slot<T> slot = slots.get(node);
+		return slot != null && slot.computed;
+	}
+
+	/**
+	 * Returns the slot for a node whose children have been visited.
+	 */
+	@SuppressWarnings("unchecked")
+	private Slot<T> bind(RegularEggspression node, Object payload, RegularEggspression left,
+			RegularEggspression right) {
+		Slot<T> slot;
+		if (keying == Keying.IDENTITY) {
+			slot = new Slot<>();
+		} else {
+			Shape<T> shape = new Shape<>(node.getClass(), payload,
+					left == null ? null : (Shape<T>) slots.get(left),
+					right == null ? null : (Shape<T>) slots.get(right));
+			Object known = shapes.get(shape);
+			if (known instanceof WeakReference) {
+				known = ((WeakReference<?>) known).get();
+			}
+			if (known == null) {
+				shapes.put(shape, retention == Retention.WEAK ? new WeakReference<>(shape) : shape);
+				slot = shape;
+			} else {
+				slot = (Shape<T>) known;
+			}
+		}
+		slots.put(node, slot);
+		return slot;
+	}
+
+	@Override
+	public T visit(Concatenation concat) {
+		return walk(concat);
+	}
+
+	@Override
+	public T visit(Alternation union) {
+		return walk(union);
+	}
+
+	@Override
+	public T visit(Star star) {
+		return walk(star);
+	}
+
+	@Override
+	public T visit(Repetition repetition) {
+		return walk(repetition);
+	}
+
+	@Override
+	public T visit(Group group) {
+		return walk(group);
+	}
+
+	@Override
+	public T visit(Literal literal) {
+		return walk(literal);
+	}
+
+	@Override
+	public T visit(RegularEggspression.EmptyWord emptyWord) {
+		return walk(emptyWord);
+	}
+
+	@Override
+	public T visit(RegularEggspression.EmptySet emptySet) {
+		return walk(emptySet);
+	}
+
+	@Override
+	public T visit(RegularEggspression.Invalid invalid) {
+		return walk(invalid);
+	}
+
+	/**
+	 * Analyzes all uncached nodes below {@code root} in post-order, using an
+	 * explicit stack instead of recursion, so the depth of the expression is not
+	 * limited by the thread's stack size.
+	 */
+	private T walk(RegularEggspression root) {
+		if (isCached(root)) {
+			return cached(root);
+		}
+		// the expansion of a repetition shares its base, which is therefore
+		// analyzed only once
+		Map<Repetition, RegularEggspression> expansions = new IdentityHashMap<>();
+		Deque<RegularEggspression> pending = new ArrayDeque<>();
+		Deque<Boolean> expanded = new ArrayDeque<>();
+		pending.push(root);
+		expanded.push(false);
+		while (!pending.isEmpty()) {
+			RegularEggspression node = pending.pop();
+			boolean childrenDone = expanded.pop();
+			if (isCached(node)) {
+				continue;
+			}
+			if (childrenDone) {
+				compute(node, expansions);
+				continue;
+			}
+			pending.push(node);
+			expanded.push(true);
+			RegularEggspression[] children = children(node, expansions);
+			for (int i = children.length - 1; i >= 0; i--) {
+				if (!isCached(children[i])) {
+					pending.push(children[i]);
+					expanded.push(false);
+				}
+			}
+		}
+		return cached(root);
+	}
+
+	private static RegularEggspression[] children(RegularEggspression node,
+			Map<Repetition, RegularEggspression> expansions) {
+		if (node instanceof Concatenation) {
+			return new RegularEggspression[] { ((Concatenation) node).left(), ((Concatenation) node).right() };
+		} else if (node instanceof Alternation) {
+			return new RegularEggspression[] { ((Alternation) node).left(), ((Alternation) node).right() };
+		} else if (node instanceof Star) {
+			return new RegularEggspression[] { ((Star) node).base() };
+		} else if (node instanceof Group) {
+			return new RegularEggspression[] { ((Group) node).base() };
+		} else if (node instanceof Repetition) {
+			return new RegularEggspression[] {
+					expansions.computeIfAbsent((Repetition) node, Repetition::expand) };
+		}
+		return NO_CHILDREN;
+	}
+
+	/**
+	 * Computes and caches the result of a node whose children are cached.
+	 */
+	private void compute(RegularEggspression node, Map<Repetition, RegularEggspression> expansions) {
+		if (node instanceof Concatenation) {
+			Concatenation concat = (Concatenation) node;
+			T left = cached(concat.left());
+			T right = cached(concat.right());
+			Slot<T> slot = bind(concat, null, concat.left(), concat.right());
+			if (!slot.computed) {
+				slot.set(analysis.visitPost(concat, left, right));
+			}
+		} else if (node instanceof Alternation) {
+			Alternation union = (Alternation) node;
+			T left = cached(union.left());
+			T right = cached(union.right());
+			Slot<T> slot = bind(union, null, union.left(), union.right());
+			if (!slot.computed) {
+				slot.set(analysis.visitPost(union, left, right));
+			}
+		} else if (node instanceof Star) {
+			Star star = (Star) node;
+			T base = cached(star.base());
+			Slot<T> slot = bind(star, null, star.base(), null);
+			if (!slot.computed) {
+				slot.set(analysis.visitPost(star, base));
+			}
+		} else if (node instanceof Repetition) {
+			Repetition repetition = (Repetition) node;
+			T result = cached(expansions.get(repetition));
+			Slot<T> slot = bind(repetition, repetition.quantifier(), repetition.base(), null);
+			if (!slot.computed) {
+				slot.set(result);
+			}
+		} else if (node instanceof Group) {
+			Group group = (Group) node;
+			T base = cached(group.base());
+			Slot<T> slot = bind(group, group.index(), group.base(), null);
+			if (!slot.computed) {
+				slot.set(analysis.visitPost(group, base));
+			}
+		} else if (node instanceof Literal) {
+			Literal literal = (Literal) node;
+			Slot<T> slot = bind(literal, literal.symbol(), null, null);
+			if (!slot.computed) {
+				slot.set(analysis.visitPost(literal, literal.symbol()));
+			}
+		} else if (node instanceof RegularEggspression.Invalid) {
+			RegularEggspression.Invalid invalid = (RegularEggspression.Invalid) node;
+			// every invalid node carries its own diagnostic and is never shared
+			Slot<T> slot = bind(invalid, invalid, null, null);
+			if (!slot.computed) {
+				slot.set(analysis.visit(invalid));
+			}
+		} else if (node instanceof RegularEggspression.EmptySet) {
+			RegularEggspression.EmptySet emptySet = (RegularEggspression.EmptySet) node;
+			Slot<T> slot = bind(emptySet, null, null, null);
+			if (!slot.computed) {
+				slot.set(analysis.visit(emptySet));
+			}
+		} else {
+			RegularEggspression.EmptyWord emptyWord = (RegularEggspression.EmptyWord) node;
+			Slot<T> slot = bind(emptyWord, null, null, null);
+			if (!slot.computed) {
+				slot.set(analysis.visit(emptyWord));
+			}
+		}
+	}
+
+	@Override
+	public T visitPost(Concatenation concat, T prefix, T suffix) {
+		return analysis.visitPost(concat, prefix, suffix);
+	}
+
+	@Override
+	public T visitPost(Alternation union, T first, T second) {
+		return analysis.visitPost(union, first, second);
+	}
+
+	@Override
+	public T visitPost(Star star, T base) {
+		return analysis.visitPost(star, base);
+	}
+
+	@Override
+	public T visitPost(Literal literal, VirtualSymbol symbol) {
+		return analysis.visitPost(literal, symbol);
+	}
+
+	@Override
+	public T visitPost(Group group, T base) {
+		return analysis.visitPost(group, base);
+	}
+
+}
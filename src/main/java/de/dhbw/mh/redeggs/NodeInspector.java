@@ -70,6 +70,18 @@ public class NodeInspector implements RegularEggspression.Visitor<String> {
 		return "(" + base + ")*";
 	}
 
+	/**
+	 * Visits a counted repetition node without expanding it.
+	 *
+	 * @param repetition the repetition node
+	 * @return the string representation in the form "(base)+", "(base)?" or
+	 *         "(base){m,n}"
+	 */
+	@Override
+	public String visit(RegularEggspression.Repetition repetition) {
+		return "(" + repetition.base().accept(this) + ")" + repetition.quantifier();
+	}
+
 	/**
 	 * Visits a literal node and returns the string representation of its symbol.
 	 *
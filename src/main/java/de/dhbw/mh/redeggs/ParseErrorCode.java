@@ -0,0 +1,83 @@
+package de.dhbw.mh.redeggs;
+
+/**
+ * Enumerates the kinds of errors detected by
+ * {@link RecursiveDescentRedeggsParser}.
+ * <p>
+ * Every code knows how to render its human-readable message, which allows
+ * callers to defer building the message string until it is actually needed.
+ * </p>
+ */
+public enum ParseErrorCode {
+
+	/**
+	 * A symbol was found where the grammar does not allow it, or the input
+	 * ended where the grammar requires another symbol.
+	 */
+	UNEXPECTED_SYMBOL,
+
+	/**
+	 * A group was not closed by {@code )}.
+	 */
+	MISSING_RIGHT_PARENTHESIS,
+
+	/**
+	 * A character class was not closed by {@code ]}.
+	 */
+	MISSING_RIGHT_BRACKET,
+
+	/**
+	 * A character range {@code a-} was not completed by a literal.
+	 */
+	EXPECTED_LITERAL,
+
+	/**
+	 * Groups were nested deeper than the parser's limit.
+	 */
+	NESTING_TOO_DEEP,
+
+	/**
+	 * The bounds of a counted repetition {@code {m,n}} exceed
+	 * {@link RecursiveDescentRedeggsParser#MAX_REPETITION}, {@code m} exceeds
+	 * {@code n}, or the repetition expands to more than
+	 * {@link RecursiveDescentRedeggsParser#MAX_EXPANDED_SIZE} nodes.
+	 */
+	REPETITION_OUT_OF_RANGE;
+
+	/**
+	 * Renders the message for an error of this kind.
+	 *
+	 * @param symbol   the offending code point, or {@code -1} if the input ended
+	 * @param position the position in the input where the error occurred
+	 * @return the human-readable error message
+	 */
+	public String format(int symbol, int position) {
+		StringBuilder message = new StringBuilder(64);
+		switch (this) {
+		case UNEXPECTED_SYMBOL:
+			if (symbol < 0) {
+				message.append("Input ended unexpectedly");
+			} else {
+				message.append("Unexpected symbol '").appendCodePoint(symbol).append('\'');
+			}
+			break;
+		case MISSING_RIGHT_PARENTHESIS:
+			message.append("Input ended unexpectedly, expected symbol ')'");
+			break;
+		case MISSING_RIGHT_BRACKET:
+			message.append("Input ended unexpectedly, expected symbol ']'");
+			break;
+		case EXPECTED_LITERAL:
+			message.append("Input ended unexpectedly, expected literal");
+			break;
+		case NESTING_TOO_DEEP:
+			message.append("Groups nested too deeply");
+			break;
+		case REPETITION_OUT_OF_RANGE:
+			message.append("Repetition bounds out of range");
+			break;
+		}
+		return message.append(" at position ").append(position).append('.').toString();
+	}
+
+}
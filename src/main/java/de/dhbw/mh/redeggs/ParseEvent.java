@@ -0,0 +1,45 @@
+package de.dhbw.mh.redeggs;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event emitted for every call to
+ * {@link RecursiveDescentRedeggsParser#parse(String)}.
+ * <p>
+ * The event duration covers the whole parse. When no recording with this event
+ * enabled is running, {@link #shouldCommit()} is constant-folded by the JIT and
+ * the event allocation is eliminated, so the instrumentation may stay enabled
+ * in production.
+ * </p>
+ */
+@Name("de.dhbw.mh.redeggs.Parse")
+@Label("Redeggs Parse")
+@Category({ "Redeggs", "Parser" })
+@Description("Parsing of a regular eggspression into an abstract syntax tree")
+@StackTrace(false)
+public final class ParseEvent extends Event {
+
+	@Label("Pattern Length")
+	@Description("Length of the parsed pattern in chars")
+	int patternLength;
+
+	@Label("Nodes Created")
+	int nodesCreated;
+
+	@Label("Symbols Created")
+	int symbolsCreated;
+
+	@Label("Failed")
+	@Description("Whether the pattern was rejected with a RedeggsParseException")
+	boolean failed;
+
+	@Label("Error Offset")
+	@Description("Error offset of the RedeggsParseException, or -1 if parsing succeeded")
+	int errorOffset;
+
+}
@@ -0,0 +1,60 @@
+package de.dhbw.mh.redeggs;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of parsing a regular expression in recovery mode: a (possibly
+ * partial) abstract syntax tree together with every diagnostic found on the
+ * way.
+ * <p>
+ * Regions of the input that could not be parsed are represented by
+ * {@link RegularEggspression.Invalid} nodes in the tree.
+ * </p>
+ */
+public class ParseReport {
+
+	private final RegularEggspression expression;
+
+	private final List<RedeggsDiagnostic> diagnostics;
+
+	/**
+	 * Constructs a new parse report.
+	 *
+	 * @param expression  the (partial) abstract syntax tree
+	 * @param diagnostics the problems found while parsing, in input order
+	 */
+	public ParseReport(RegularEggspression expression, List<RedeggsDiagnostic> diagnostics) {
+		this.expression = expression;
+		this.diagnostics = Collections.unmodifiableList(diagnostics);
+	}
+
+	/**
+	 * Returns the abstract syntax tree, containing
+	 * {@link RegularEggspression.Invalid} nodes where the input was broken.
+	 *
+	 * @return the (partial) abstract syntax tree
+	 */
+	public RegularEggspression expression() {
+		return expression;
+	}
+
+	/**
+	 * Returns all problems found while parsing, ordered by their position.
+	 *
+	 * @return an unmodifiable list of diagnostics
+	 */
+	public List<RedeggsDiagnostic> diagnostics() {
+		return diagnostics;
+	}
+
+	/**
+	 * Checks whether any problem was found.
+	 *
+	 * @return {@code true} if there is at least one diagnostic
+	 */
+	public boolean hasErrors() {
+		return !diagnostics.isEmpty();
+	}
+
+}
@@ -0,0 +1,114 @@
+package de.dhbw.mh.redeggs;
+
+/**
+ * The outcome of {@link RecursiveDescentRedeggsParser#tryParse(String)}: either
+ * the parsed {@link RegularEggspression} or an error code with its offset.
+ * <p>
+ * Failed results only render their message when {@link #message()} is called,
+ * so rejecting a pattern costs no string building.
+ * </p>
+ */
+public final class ParseResult {
+
+	private final RegularEggspression expression;
+
+	private final ParseErrorCode errorCode;
+
+	private final int symbol;
+
+	private final int errorOffset;
+
+	private ParseResult(RegularEggspression expression, ParseErrorCode errorCode, int symbol, int errorOffset) {
+		this.expression = expression;
+		this.errorCode = errorCode;
+		this.symbol = symbol;
+		this.errorOffset = errorOffset;
+	}
+
+	/**
+	 * Creates a successful result.
+	 *
+	 * @param expression the parsed expression
+	 * @return a successful result holding {@code expression}
+	 */
+	public static ParseResult success(RegularEggspression expression) {
+		return new ParseResult(expression, null, -1, -1);
+	}
+
+	/**
+	 * Creates a failed result.
+	 *
+	 * @param errorCode   the kind of error
+	 * @param symbol      the offending code point
+	 * @param errorOffset the position in the input where the error occurred
+	 * @return a failed result
+	 */
+	public static ParseResult failure(ParseErrorCode errorCode, int symbol, int errorOffset) {
+		return new ParseResult(null, errorCode, symbol, errorOffset);
+	}
+
+	/**
+	 * Checks whether parsing succeeded.
+	 *
+	 * @return {@code true} if this result holds an expression
+	 */
+	public boolean isSuccess() {
+		return errorCode == null;
+	}
+
+	/**
+	 * Returns the parsed expression.
+	 *
+	 * @return the parsed expression
+	 * @throws IllegalStateException if parsing failed
+	 */
+	public RegularEggspression expression() {
+		if (errorCode != null) {
+			throw new IllegalStateException("parsing failed: " + message());
+		}
+		return expression;
+	}
+
+	/**
+	 * Returns the kind of error, or {@code null} if parsing succeeded.
+	 *
+	 * @return the error code of this result
+	 */
+	public ParseErrorCode errorCode() {
+		return errorCode;
+	}
+
+	/**
+	 * Returns the position in the input where the error occurred, or {@code -1}
+	 * if parsing succeeded.
+	 *
+	 * @return the error offset of this result
+	 */
+	public int errorOffset() {
+		return errorOffset;
+	}
+
+	/**
+	 * Renders the error message, or returns {@code null} if parsing succeeded.
+	 *
+	 * @return the human-readable error message
+	 */
+	public String message() {
+		return errorCode == null ? null : errorCode.format(symbol, errorOffset);
+	}
+
+	/**
+	 * Returns the parsed expression or throws the error as a (stackless)
+	 * {@link RedeggsParseException}.
+	 *
+	 * @return the parsed expression
+	 * @throws RedeggsParseException if parsing failed
+	 */
+	public RegularEggspression orElseThrow() throws RedeggsParseException {
+		if (errorCode != null) {
+			throw new RedeggsParseException(errorCode, symbol, errorOffset);
+		}
+		return expression;
+	}
+
+}
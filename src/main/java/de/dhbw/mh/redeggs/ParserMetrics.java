@@ -0,0 +1,43 @@
+package de.dhbw.mh.redeggs;
+
+/**
+ * A lightweight callback interface that receives measurements from
+ * {@link RecursiveDescentRedeggsParser#parse(String)}.
+ * <p>
+ * Implementations are expected to be cheap and non-blocking (e.g. incrementing
+ * counters or recording into a histogram), since they are invoked on the
+ * parsing thread. All methods default to doing nothing, so implementations only
+ * override what they are interested in.
+ * </p>
+ */
+public interface ParserMetrics {
+
+	/**
+	 * Metrics sink that discards every measurement. Parsers using this instance
+	 * skip taking timestamps altogether.
+	 */
+	public static final ParserMetrics NONE = new ParserMetrics() {
+	};
+
+	/**
+	 * Called after a pattern has been parsed successfully.
+	 *
+	 * @param durationNanos  the wall-clock duration of the parse in nanoseconds
+	 * @param patternLength  the length of the parsed pattern in chars
+	 * @param nodesCreated   the number of AST nodes created
+	 * @param symbolsCreated the number of virtual symbols created
+	 */
+	public default void parsed(long durationNanos, int patternLength, int nodesCreated, int symbolsCreated) {
+	}
+
+	/**
+	 * Called after parsing a pattern failed with a {@link RedeggsParseException}.
+	 *
+	 * @param durationNanos the wall-clock duration of the parse in nanoseconds
+	 * @param patternLength the length of the rejected pattern in chars
+	 * @param errorOffset   the error offset reported by the exception
+	 */
+	public default void failed(long durationNanos, int patternLength, int errorOffset) {
+	}
+
+}
@@ -0,0 +1,430 @@
+package de.dhbw.mh.redeggs;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+import de.dhbw.mh.redeggs.RegularEggspression.Alternation;
+import de.dhbw.mh.redeggs.RegularEggspression.Concatenation;
+import de.dhbw.mh.redeggs.RegularEggspression.Group;
+import de.dhbw.mh.redeggs.RegularEggspression.Literal;
+import de.dhbw.mh.redeggs.RegularEggspression.Repetition;
+import de.dhbw.mh.redeggs.RegularEggspression.Star;
+
+/**
+ * A matching engine that reports the boundaries of capture groups
+ * ({@link RegularEggspression.Group}) in time linear in the length of the
+ * input.
+ * <p>
+ * The expression is compiled into a small program for a Pike VM: all threads
+ * of the underlying NFA advance in lock step over the input, one code point at
+ * a time, and each program counter is occupied by at most one thread per step.
+ * Each thread carries its own copy of the capture slots. When two threads
+ * reach the same program counter, the one with higher priority wins, which
+ * yields leftmost-first (Perl-style) submatches: the left alternative is
+ * preferred, and stars are greedy.
+ * </p>
+ * <p>
+ * The compiled program is immutable and may be shared between threads. The
+ * thread lists and slot arrays needed for matching are taken from a
+ * {@link ScratchPool} and reused, so matching neither synchronizes nor
+ * allocates.
+ * </p>
+ */
+public final class PikeVM implements RedeggsMatcher {
+
+	private static final int CHAR = 0;
+	private static final int SPLIT = 1;
+	private static final int JMP = 2;
+	private static final int SAVE = 3;
+	private static final int MATCH = 4;
+	private static final int FAIL = 5;
+
+	private final int[] opcodes;
+	private final int[] arg1;
+	private final int[] arg2;
+	private final RangeSymbol[] symbols;
+	private final int groupCount;
+	private final int slotCount;
+
+	private final ScratchPool<Scratch> scratch;
+
+	private PikeVM(Compiler compiler) {
+		this.opcodes = Arrays.copyOf(compiler.opcodes, compiler.size);
+		this.arg1 = Arrays.copyOf(compiler.arg1, compiler.size);
+		this.arg2 = Arrays.copyOf(compiler.arg2, compiler.size);
+		this.symbols = compiler.symbols.toArray(new RangeSymbol[0]);
+		this.groupCount = compiler.groupCount;
+		this.slotCount = 2 * (groupCount + 1);
+		this.scratch = new ScratchPool<>(() -> new Scratch(opcodes.length, slotCount));
+	}
+
+	/**
+	 * Compiles the given expression.
+	 *
+	 * @param expression the expression to compile
+	 * @return the compiled engine
+	 * @throws IllegalArgumentException if a symbol of {@code expression} does not
+	 *                                  expose its code point ranges
+	 */
+	public static PikeVM compile(RegularEggspression expression) {
+		Compiler compiler = new Compiler();
+		compiler.emit(SAVE, 0, 0);
+		expression.accept(compiler);
+		compiler.emit(SAVE, 1, 0);
+		compiler.emit(MATCH, 0, 0);
+		return new PikeVM(compiler);
+	}
+
+	/**
+	 * Returns the number of capture groups of the compiled expression.
+	 *
+	 * @return the highest group index
+	 */
+	public int groupCount() {
+		return groupCount;
+	}
+
+	@Override
+	public boolean matches(CharSequence input) {
+		return run(input, 0, true, null);
+	}
+
+	@Override
+	public boolean find(CharSequence input) {
+		return run(input, 0, false, null);
+	}
+
+	/**
+	 * Checks whether the whole input matches and reports the boundaries of all
+	 * capture groups.
+	 * <p>
+	 * On success, {@code groups[2 * g]} and {@code groups[2 * g + 1]} hold the
+	 * start and end index of group {@code g}, or {@code -1} if the group did not
+	 * participate in the match. Group {@code 0} is the whole match.
+	 * </p>
+	 *
+	 * @param input  the input to match
+	 * @param groups receives the group boundaries, at least
+	 *               {@code 2 * (groupCount() + 1)} long
+	 * @return {@code true} if the whole input matches
+	 */
+	public boolean matches(CharSequence input, int[] groups) {
+		return run(input, 0, true, groups);
+	}
+
+	/**
+	 * Finds the leftmost match starting at or after {@code from} and reports the
+	 * boundaries of all capture groups, see {@link #matches(CharSequence, int[])}.
+	 *
+	 * @param input  the input to search
+	 * @param from   the index to start searching at
+	 * @param groups receives the group boundaries, may be {@code null}
+	 * @return {@code true} if a match was found
+	 */
+	public boolean find(CharSequence input, int from, int[] groups) {
+		return run(input, from, false, groups);
+	}
+
+	private boolean run(CharSequence input, int from, boolean anchored, int[] groups) {
+		Scratch s = scratch.acquire();
+		try {
+			return run(s, input, from, anchored, groups);
+		} finally {
+			scratch.release(s);
+		}
+	}
+
+	private boolean run(Scratch s, CharSequence input, int from, boolean anchored, int[] groups) {
+		ThreadList current = s.current, next = s.next;
+		current.size = 0;
+		next.size = 0;
+		int[] caps = s.caps;
+		boolean matched = false;
+		int end = input.length();
+		int pos = from;
+
+		Arrays.fill(caps, -1);
+		addThread(s, current, 0, pos);
+		while (current.size > 0 || (!anchored && !matched && pos < end)) {
+			int cp = pos < end ? Character.codePointAt(input, pos) : -1;
+			int nextPos = cp < 0 ? pos : pos + Character.charCount(cp);
+			for (int i = 0; i < current.size; i++) {
+				int pc = current.dense[i];
+				int op = opcodes[pc];
+				if (op == CHAR) {
+					if (cp >= 0 && symbols[arg1[pc]].contains(cp)) {
+						System.arraycopy(current.slots, pc * slotCount, caps, 0, slotCount);
+						addThread(s, next, pc + 1, nextPos);
+					}
+				} else if (op == MATCH && (!anchored || pos == end)) {
+					matched = true;
+					if (groups != null) {
+						System.arraycopy(current.slots, pc * slotCount, groups, 0, slotCount);
+					}
+					// threads of lower priority are cut off
+					break;
+				}
+			}
+			if (pos >= end) {
+				break;
+			}
+			ThreadList swap = current;
+			current = next;
+			next = swap;
+			next.size = 0;
+			pos = nextPos;
+			if (!anchored && !matched) {
+				Arrays.fill(caps, -1);
+				addThread(s, current, 0, pos);
+			}
+		}
+		return matched;
+	}
+
+	/**
+	 * Adds the thread at {@code pc} and every thread reachable from it without
+	 * consuming input to the list, in priority order. Capture slots are taken
+	 * from {@code s.caps}, which is restored before returning.
+	 */
+	private void addThread(Scratch s, ThreadList list, int pc0, int pos) {
+		int[] caps = s.caps;
+		int[] stackPc = s.stackPc, stackSlot = s.stackSlot, stackValue = s.stackValue;
+		int sp = 0;
+		stackPc[sp] = pc0;
+		stackSlot[sp++] = -1;
+		while (sp > 0) {
+			sp--;
+			int slot = stackSlot[sp];
+			if (slot >= 0) {
+				caps[slot] = stackValue[sp];
+				continue;
+			}
+			int pc = stackPc[sp];
+			if (list.contains(pc)) {
+				continue;
+			}
+			list.add(pc);
+			switch (opcodes[pc]) {
+			case JMP:
+				stackPc[sp] = arg1[pc];
+				stackSlot[sp++] = -1;
+				break;
+			case SPLIT:
+				stackPc[sp] = arg2[pc];
+				stackSlot[sp++] = -1;
+				stackPc[sp] = arg1[pc];
+				stackSlot[sp++] = -1;
+				break;
+			case SAVE:
+				stackSlot[sp] = arg1[pc];
+				stackValue[sp++] = caps[arg1[pc]];
+				caps[arg1[pc]] = pos;
+				stackPc[sp] = pc + 1;
+				stackSlot[sp++] = -1;
+				break;
+			default:
+				System.arraycopy(caps, 0, list.slots, pc * slotCount, slotCount);
+				break;
+			}
+		}
+	}
+
+	/**
+	 * A sparse set of program counters in insertion (= priority) order, with the
+	 * capture slots of each thread.
+	 */
+	private static final class ThreadList {
+		final int[] dense;
+		final int[] sparse;
+		final int[] slots;
+		int size;
+
+		ThreadList(int programSize, int slotCount) {
+			this.dense = new int[programSize];
+			this.sparse = new int[programSize];
+			this.slots = new int[programSize * slotCount];
+		}
+
+		boolean contains(int pc) {
+			int i = sparse[pc];
+			return i < size && dense[i] == pc;
+		}
+
+		void add(int pc) {
+			sparse[pc] = size;
+			dense[size++] = pc;
+		}
+	}
+
+	/**
+	 * The mutable state of a single match.
+	 */
+	private static final class Scratch {
+		final ThreadList current;
+		final ThreadList next;
+		final int[] caps;
+		final int[] stackPc;
+		final int[] stackSlot;
+		final int[] stackValue;
+
+		Scratch(int programSize, int slotCount) {
+			this.current = new ThreadList(programSize, slotCount);
+			this.next = new ThreadList(programSize, slotCount);
+			this.caps = new int[slotCount];
+			// every instruction is explored at most once and pushes at most two entries
+			this.stackPc = new int[2 * programSize + 1];
+			this.stackSlot = new int[2 * programSize + 1];
+			this.stackValue = new int[2 * programSize + 1];
+		}
+	}
+
+	/**
+	 * Emits the program for an expression in a single pre-order traversal.
+	 */
+	private static final class Compiler implements RegularEggspression.Visitor<Void> {
+		int[] opcodes = new int[16];
+		int[] arg1 = new int[16];
+		int[] arg2 = new int[16];
+		int size;
+		final List<RangeSymbol> symbols = new ArrayList<>();
+		int groupCount;
+
+		int emit(int opcode, int x, int y) {
+			if (size == opcodes.length) {
+				opcodes = Arrays.copyOf(opcodes, 2 * size);
+				arg1 = Arrays.copyOf(arg1, 2 * size);
+				arg2 = Arrays.copyOf(arg2, 2 * size);
+			}
+			opcodes[size] = opcode;
+			arg1[size] = x;
+			arg2[size] = y;
+			return size++;
+		}
+
+		@Override
+		public Void visit(Concatenation concat) {
+			for (RegularEggspression factor : flatten(concat, Concatenation.class)) {
+				factor.accept(this);
+			}
+			return null;
+		}
+
+		@Override
+		public Void visit(Alternation union) {
+			List<RegularEggspression> alternatives = flatten(union, Alternation.class);
+			int[] jumps = new int[alternatives.size() - 1];
+			for (int i = 0; i < jumps.length; i++) {
+				int split = emit(SPLIT, size + 1, -1);
+				alternatives.get(i).accept(this);
+				jumps[i] = emit(JMP, -1, 0);
+				arg2[split] = size;
+			}
+			alternatives.get(jumps.length).accept(this);
+			for (int jump : jumps) {
+				arg1[jump] = size;
+			}
+			return null;
+		}
+
+		/**
+		 * Lists the operands of a chain of binary nodes of the same type from left
+		 * to right, so long chains are compiled without deep recursion.
+		 */
+		private static List<RegularEggspression> flatten(RegularEggspression node,
+				Class<? extends RegularEggspression> type) {
+			List<RegularEggspression> operands = new ArrayList<>();
+			Deque<RegularEggspression> pending = new ArrayDeque<>();
+			pending.push(node);
+			while (!pending.isEmpty()) {
+				RegularEggspression next = pending.pop();
+				if (next instanceof Concatenation && type == Concatenation.class) {
+					pending.push(((Concatenation) next).right());
+					pending.push(((Concatenation) next).left());
+				} else if (next instanceof Alternation && type == Alternation.class) {
+					pending.push(((Alternation) next).right());
+					pending.push(((Alternation) next).left());
+				} else {
+					operands.add(next);
+				}
+			}
+			return operands;
+		}
+
+		@Override
+		public Void visit(Star star) {
+			int split = emit(SPLIT, size + 1, -1);
+			star.base().accept(this);
+			emit(JMP, split, 0);
+			arg2[split] = size;
+			return null;
+		}
+
+		@Override
+		public Void visit(Repetition repetition) {
+			int max = repetition.max();
+			if (repetition.min() == 1 && max == Repetition.UNBOUNDED) {
+				int loop = size;
+				repetition.base().accept(this);
+				emit(SPLIT, loop, size + 1);
+			} else if (repetition.min() == 0 && max == 1) {
+				int split = emit(SPLIT, size + 1, -1);
+				repetition.base().accept(this);
+				arg2[split] = size;
+			} else {
+				repetition.expand().accept(this);
+			}
+			return null;
+		}
+
+		@Override
+		public Void visit(Group group) {
+			groupCount = Math.max(groupCount, group.index());
+			emit(SAVE, 2 * group.index(), 0);
+			group.base().accept(this);
+			emit(SAVE, 2 * group.index() + 1, 0);
+			return null;
+		}
+
+		@Override
+		public Void visit(Literal literal) {
+			symbols.add(RangeSymbol.of(literal.symbol()));
+			emit(CHAR, symbols.size() - 1, 0);
+			return null;
+		}
+
+		@Override
+		public Void visit(RegularEggspression.EmptyWord emptyWord) {
+			return null;
+		}
+
+		@Override
+		public Void visit(RegularEggspression.EmptySet emptySet) {
+			emit(FAIL, 0, 0);
+			return null;
+		}
+
+		@Override
+		public Void visitPost(Concatenation concat, Void prefix, Void suffix) {
+			return null;
+		}
+
+		@Override
+		public Void visitPost(Alternation union, Void first, Void second) {
+			return null;
+		}
+
+		@Override
+		public Void visitPost(Star star, Void base) {
+			return null;
+		}
+
+		@Override
+		public Void visitPost(Literal literal, VirtualSymbol symbol) {
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,97 @@
+package de.dhbw.mh.redeggs;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The combined {@link GlushkovAutomaton position automata} of a list of rules,
+ * the starting point of subset construction.
+ * <p>
+ * Rule {@code r} owns an initial state followed by its positions. The initial
+ * states of all rules form the start set; {@link #follow(BitSet)} and
+ * {@link #members} yield the successors of a set of states for a class.
+ * </p>
+ */
+final class PositionNfa {
+
+	final Alphabet alphabet;
+	final BitSet start = new BitSet();
+	/** Bit {@code i} of {@code follow[s]} stands for state {@code followBase[s] + i}. */
+	final BitSet[] follow;
+	final int[] followBase;
+	final BitSet[] members;
+	final int[] rule;
+	final BitSet accepting = new BitSet();
+
+	PositionNfa(List<? extends RegularEggspression> rules) {
+		List<GlushkovAutomaton> automata = new ArrayList<>();
+		List<RangeSymbol> symbols = new ArrayList<>();
+		int size = 0;
+		for (RegularEggspression expression : rules) {
+			GlushkovAutomaton automaton = GlushkovAutomaton.of(expression);
+			automata.add(automaton);
+			size += automaton.positionCount() + 1;
+		}
+		follow = new BitSet[size];
+		followBase = new int[size];
+		rule = new int[size];
+		RangeSymbol[] symbolOf = new RangeSymbol[size];
+
+		int offset = 0;
+		for (int r = 0; r < automata.size(); r++) {
+			GlushkovAutomaton automaton = automata.get(r);
+			start.set(offset);
+			follow[offset] = automaton.first();
+			followBase[offset] = offset + 1;
+			rule[offset] = r;
+			if (automaton.isNullable()) {
+				accepting.set(offset);
+			}
+			GlushkovAutomaton.orShifted(accepting, automaton.last(), offset + 1);
+			for (int p = 0; p < automaton.positionCount(); p++) {
+				// shared with the automaton, which never modifies it
+				follow[offset + 1 + p] = automaton.followBits(p);
+				followBase[offset + 1 + p] = automaton.followBase(p) + offset + 1;
+				rule[offset + 1 + p] = r;
+				symbolOf[offset + 1 + p] = automaton.symbol(p);
+				symbols.add(automaton.symbol(p));
+			}
+			offset += automaton.positionCount() + 1;
+		}
+
+		alphabet = Alphabet.of(symbols);
+		int[] representatives = alphabet.representatives();
+		members = new BitSet[alphabet.classCount()];
+		for (int cls = 0; cls < members.length; cls++) {
+			members[cls] = new BitSet();
+			for (int state = 0; state < size; state++) {
+				if (symbolOf[state] != null && symbolOf[state].contains(representatives[cls])) {
+					members[cls].set(state);
+				}
+			}
+		}
+	}
+
+	BitSet follow(BitSet states) {
+		BitSet union = new BitSet();
+		for (int s = states.nextSetBit(0); s >= 0; s = states.nextSetBit(s + 1)) {
+			GlushkovAutomaton.orShifted(union, follow[s], followBase[s]);
+		}
+		return union;
+	}
+
+	int acceptLabel(BitSet states) {
+		BitSet accepted = (BitSet) states.clone();
+		accepted.and(accepting);
+		int first = accepted.nextSetBit(0);
+		return first < 0 ? Dfa.NO_RULE : rule[first];
+	}
+
+	BitSet successors(BitSet states, int cls) {
+		BitSet successors = follow(states);
+		successors.and(members[cls]);
+		return successors;
+	}
+
+}
@@ -0,0 +1,260 @@
+package de.dhbw.mh.redeggs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link VirtualSymbol} backed by a sorted array of disjoint, non-adjacent
+ * code point ranges.
+ * <p>
+ * This is the symbol representation used by the matching engines. Symbols of
+ * other implementations are converted with {@link #of(VirtualSymbol)}.
+ * </p>
+ */
+public final class RangeSymbol implements VirtualSymbol {
+
+	/**
+	 * The highest Unicode code point.
+	 */
+	public static final int MAX_CODE_POINT = Character.MAX_CODE_POINT;
+
+	/**
+	 * Pairs of first and last code point of every range, sorted ascending.
+	 */
+	private final int[] bounds;
+
+	private RangeSymbol(int[] bounds) {
+		this.bounds = bounds;
+	}
+
+	/**
+	 * Creates a symbol from arbitrary (possibly overlapping or unsorted) ranges.
+	 *
+	 * @param ranges the ranges to include
+	 * @return the normalized symbol
+	 */
+	public static RangeSymbol of(List<CodePointRange> ranges) {
+		int[] pairs = new int[2 * ranges.size()];
+		int n = 0;
+		for (CodePointRange range : ranges) {
+			pairs[n++] = range.firstCodePoint;
+			pairs[n++] = range.lastCodePoint;
+		}
+		return new RangeSymbol(normalize(pairs));
+	}
+
+	/**
+	 * Converts any virtual symbol into a {@code RangeSymbol}.
+	 *
+	 * @param symbol the symbol to convert
+	 * @return {@code symbol} itself if it is a {@code RangeSymbol}, otherwise an
+	 *         equivalent {@code RangeSymbol}
+	 * @throws IllegalArgumentException if {@code symbol} does not expose its code
+	 *                                  point ranges
+	 */
+	public static RangeSymbol of(VirtualSymbol symbol) {
+		if (symbol instanceof RangeSymbol) {
+			return (RangeSymbol) symbol;
+		}
+		List<CodePointRange> ranges = symbol.sortedCodePointRanges();
+		if (ranges == null) {
+			throw new IllegalArgumentException("symbol " + symbol + " does not expose its code point ranges");
+		}
+		return of(ranges);
+	}
+
+	/**
+	 * Creates a symbol from pairs of first and last code points.
+	 *
+	 * @param pairs the ranges as {@code first, last} pairs, in any order
+	 * @return the normalized symbol
+	 */
+	static RangeSymbol ofPairs(int[] pairs) {
+		return new RangeSymbol(normalize(pairs.clone()));
+	}
+
+	/**
+	 * Sorts the given pairs and merges overlapping or adjacent ranges.
+	 */
+	private static int[] normalize(int[] pairs) {
+		int count = pairs.length / 2;
+		long[] packed = new long[count];
+		for (int i = 0; i < count; i++) {
+			int first = Math.max(0, Math.min(pairs[2 * i], pairs[2 * i + 1]));
+			int last = Math.min(MAX_CODE_POINT, Math.max(pairs[2 * i], pairs[2 * i + 1]));
+			packed[i] = ((long) first << 32) | last;
+		}
+		Arrays.sort(packed);
+		int[] merged = new int[2 * count];
+		int n = 0;
+		for (long range : packed) {
+			int first = (int) (range >>> 32);
+			int last = (int) range;
+			if (n > 0 && first <= merged[n - 1] + 1) {
+				merged[n - 1] = Math.max(merged[n - 1], last);
+			} else {
+				merged[n++] = first;
+				merged[n++] = last;
+			}
+		}
+		return n == merged.length ? merged : Arrays.copyOf(merged, n);
+	}
+
+	/**
+	 * Returns the complement of this symbol with respect to all Unicode code
+	 * points.
+	 *
+	 * @return the complement of this symbol
+	 */
+	public RangeSymbol complement() {
+		int[] result = new int[bounds.length + 2];
+		int n = 0;
+		int next = 0;
+		for (int i = 0; i < bounds.length; i += 2) {
+			if (bounds[i] > next) {
+				result[n++] = next;
+				result[n++] = bounds[i] - 1;
+			}
+			next = bounds[i + 1] + 1;
+		}
+		if (next <= MAX_CODE_POINT) {
+			result[n++] = next;
+			result[n++] = MAX_CODE_POINT;
+		}
+		return new RangeSymbol(Arrays.copyOf(result, n));
+	}
+
+	/**
+	 * Returns the code points contained in this symbol but not in the other one.
+	 *
+	 * @param other the symbol to subtract
+	 * @return the difference of both symbols
+	 */
+	public RangeSymbol minus(RangeSymbol other) {
+		int[] complement = other.complement().bounds;
+		int[] result = new int[bounds.length + complement.length];
+		int n = 0;
+		int i = 0, j = 0;
+		while (i < bounds.length && j < complement.length) {
+			int first = Math.max(bounds[i], complement[j]);
+			int last = Math.min(bounds[i + 1], complement[j + 1]);
+			if (first <= last) {
+				result[n++] = first;
+				result[n++] = last;
+			}
+			if (bounds[i + 1] < complement[j + 1]) {
+				i += 2;
+			} else {
+				j += 2;
+			}
+		}
+		return new RangeSymbol(Arrays.copyOf(result, n));
+	}
+
+	/**
+	 * Checks whether this symbol contains the given code point.
+	 *
+	 * @param codePoint the code point to look up
+	 * @return {@code true} if {@code codePoint} is part of this symbol
+	 */
+	public boolean contains(int codePoint) {
+		int low = 0, high = bounds.length / 2 - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (codePoint < bounds[2 * mid]) {
+				high = mid - 1;
+			} else if (codePoint > bounds[2 * mid + 1]) {
+				low = mid + 1;
+			} else {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks whether this symbol contains no code point at all.
+	 *
+	 * @return {@code true} if this symbol is empty
+	 */
+	public boolean isEmpty() {
+		return bounds.length == 0;
+	}
+
+	/**
+	 * Returns the single code point of this symbol.
+	 *
+	 * @return the only code point of this symbol, or {@code -1} if it contains
+	 *         none or several code points
+	 */
+	public int singleCodePoint() {
+		if (bounds.length == 2 && bounds[0] == bounds[1]) {
+			return bounds[0];
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the number of disjoint ranges of this symbol.
+	 *
+	 * @return the number of ranges
+	 */
+	public int rangeCount() {
+		return bounds.length / 2;
+	}
+
+	/**
+	 * Returns the first code point of the range with the given index.
+	 *
+	 * @param range the index of the range
+	 * @return the first code point of the range
+	 */
+	public int first(int range) {
+		return bounds[2 * range];
+	}
+
+	/**
+	 * Returns the last code point of the range with the given index.
+	 *
+	 * @param range the index of the range
+	 * @return the last code point of the range
+	 */
+	public int last(int range) {
+		return bounds[2 * range + 1];
+	}
+
+	@Override
+	public List<CodePointRange> sortedCodePointRanges() {
+		List<CodePointRange> ranges = new ArrayList<>(bounds.length / 2);
+		for (int i = 0; i < bounds.length; i += 2) {
+			ranges.add(CodePointRange.range(bounds[i], bounds[i + 1]));
+		}
+		return Collections.unmodifiableList(ranges);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (o == null || getClass() != o.getClass())
+			return false;
+		return Arrays.equals(bounds, ((RangeSymbol) o).bounds);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(bounds);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder("[");
+		for (int i = 0; i < bounds.length; i += 2) {
+			result.append(CodePointRange.range(bounds[i], bounds[i + 1]));
+		}
+		return result.append(']').toString();
+	}
+
+}
@@ -0,0 +1,53 @@
+package de.dhbw.mh.redeggs;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link SymbolFactory} creating {@link RangeSymbol}s.
+ * <p>
+ * A symbol is the union of all included ranges minus all excluded ranges. If
+ * only exclusions are given (as for a negated character class like
+ * {@code [^a-z]}), the exclusions are subtracted from the whole Unicode range.
+ * </p>
+ */
+public class RangeSymbolFactory implements SymbolFactory {
+
+	@Override
+	public Builder newSymbol() {
+		return new Builder() {
+
+			private final List<CodePointRange> included = new ArrayList<>();
+			private final List<CodePointRange> excluded = new ArrayList<>();
+
+			@Override
+			public Builder include(CodePointRange... ranges) {
+				for (CodePointRange range : ranges) {
+					included.add(range);
+				}
+				return this;
+			}
+
+			@Override
+			public Builder exclude(CodePointRange... ranges) {
+				for (CodePointRange range : ranges) {
+					excluded.add(range);
+				}
+				return this;
+			}
+
+			@Override
+			public VirtualSymbol andNothingElse() {
+				RangeSymbol symbol = RangeSymbol.of(included);
+				if (excluded.isEmpty()) {
+					return symbol;
+				}
+				if (included.isEmpty()) {
+					symbol = symbol.complement();
+				}
+				return symbol.minus(RangeSymbol.of(excluded));
+			}
+		};
+	}
+
+}
@@ -1,8 +1,7 @@
 package de.dhbw.mh.redeggs;
 
-import java.util.HashSet;
-import java.util.Set;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * A parser for regular expressions using recursive descent parsing.
@@ -11,17 +10,97 @@ import java.util.Arrays;
  */
 public class RecursiveDescentRedeggsParser {
     private String regexString;
+    private int index;
+    private int limit;
     private int position = 1;
-    private static final char ENDOFSTRING = '\3';
-    private static final Character[] SPECIAL_CHARACTERS = new Character[] { '(', ')', '[', ']', '|', '*', '^',
-            ENDOFSTRING };
-    private static final Set<Character> SPECIAL_CHARACTERS_SET = new HashSet<>(Arrays.asList(SPECIAL_CHARACTERS));
+    private static final int ENDOFSTRING = '\3';
+    private static final String SPECIAL_CHARACTERS = "()[]|*+?^" + (char) ENDOFSTRING;
+    private static final String SYMBOL_CHARACTERS = "()[-|+?";
+
+    /**
+     * Classification flag of code points that form a literal on their own.
+     */
+    private static final byte LITERAL = 1;
+
+    /**
+     * Classification flag of code points allowed inside character classes.
+     */
+    private static final byte SYMBOL = 2;
+
+    /**
+     * Precomputed classification of the ASCII range. Every code point outside of
+     * it is both a literal and a symbol.
+     */
+    private static final byte[] ASCII_CLASSES = new byte[128];
+
+    static {
+        for (int c = 0; c < ASCII_CLASSES.length; c++) {
+            byte flags = 0;
+            if (SPECIAL_CHARACTERS.indexOf(c) < 0) {
+                flags |= LITERAL | SYMBOL;
+            }
+            if (SYMBOL_CHARACTERS.indexOf(c) >= 0) {
+                flags |= SYMBOL;
+            }
+            ASCII_CLASSES[c] = flags;
+        }
+    }
 
     /**
      * The symbol factory used to create symbols for the regular expression.
      */
     protected final SymbolFactory symbolFactory;
 
+    /**
+     * The sink receiving measurements of every parse.
+     */
+    private final ParserMetrics metrics;
+
+    private int nodesCreated;
+    private int symbolsCreated;
+
+    /**
+     * Whether the current parse recovers from errors instead of throwing.
+     */
+    private boolean recovering;
+    private List<RedeggsDiagnostic> diagnostics;
+
+    /**
+     * Whether parenthesized expressions become {@link RegularEggspression.Group}
+     * nodes.
+     */
+    private boolean captureGroups;
+    private int groupCount;
+
+    /**
+     * Whether symbols are closed under case folding.
+     */
+    private boolean caseInsensitive;
+
+    /**
+     * The default limit on the nesting depth of groups.
+     */
+    public static final int DEFAULT_MAX_NESTING_DEPTH = 1000;
+
+    /**
+     * The nesting depth beyond which parsing fails instead of risking a
+     * {@link StackOverflowError}.
+     */
+    private int maxNestingDepth = DEFAULT_MAX_NESTING_DEPTH;
+    private int depth;
+
+    /**
+     * The largest bound accepted in a counted repetition {@code {m,n}}.
+     */
+    public static final int MAX_REPETITION = 1000;
+
+    /**
+     * The largest number of nodes a counted repetition may expand to. Nested
+     * repetitions multiply, so {@code ((a{1000}){1000}){1000}} would expand to a
+     * billion nodes and is rejected even though each bound is acceptable.
+     */
+    public static final int MAX_EXPANDED_SIZE = 100_000;
+
     /**
      * Constructs a new {@code RecursiveDescentRedeggsParser} with the specified
      * symbol factory.
@@ -29,40 +108,144 @@ public class RecursiveDescentRedeggsParser {
      * @param symbolFactory the factory used to create symbols for parsing
      */
     public RecursiveDescentRedeggsParser(SymbolFactory symbolFactory) {
+        this(symbolFactory, ParserMetrics.NONE);
+    }
+
+    /**
+     * Constructs a new {@code RecursiveDescentRedeggsParser} with the specified
+     * symbol factory that reports measurements of every parse to the given
+     * metrics sink.
+     *
+     * @param symbolFactory the factory used to create symbols for parsing
+     * @param metrics       the sink receiving parse measurements
+     */
+    public RecursiveDescentRedeggsParser(SymbolFactory symbolFactory, ParserMetrics metrics) {
         this.symbolFactory = symbolFactory;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Enables or disables capture groups. When enabled, every parenthesized
+     * expression becomes a {@link RegularEggspression.Group} node, numbered by
+     * its opening parenthesis starting at {@code 1}. Disabled by default.
+     *
+     * @param captureGroups whether to create capture group nodes
+     */
+    public void setCaptureGroups(boolean captureGroups) {
+        this.captureGroups = captureGroups;
+    }
+
+    /**
+     * Checks whether parenthesized expressions become capture group nodes.
+     *
+     * @return {@code true} if capture groups are enabled
+     */
+    public boolean isCaptureGroups() {
+        return captureGroups;
     }
 
-    private char peek() {
-        if (this.regexString.length() == 0) {
+    /**
+     * Enables or disables case-insensitive parsing. When enabled, the symbol of
+     * every literal and character class is closed under Unicode simple case
+     * folding by {@link CaseFolding}, so {@code select} matches {@code SELECT}
+     * while the AST keeps the shape of the case-sensitive pattern. Negated
+     * classes exclude every case of their members. The folded symbols are
+     * {@link RangeSymbol}s, which requires the symbol factory to create symbols
+     * exposing their code point ranges. Disabled by default.
+     *
+     * @param caseInsensitive whether to ignore case
+     */
+    public void setCaseInsensitive(boolean caseInsensitive) {
+        this.caseInsensitive = caseInsensitive;
+    }
+
+    /**
+     * Checks whether symbols are closed under case folding.
+     *
+     * @return {@code true} if parsing is case-insensitive
+     */
+    public boolean isCaseInsensitive() {
+        return caseInsensitive;
+    }
+
+    /**
+     * Limits the nesting depth of groups. Every level of nesting costs a few
+     * stack frames; patterns nested deeper than the limit are rejected with
+     * {@link ParseErrorCode#NESTING_TOO_DEEP}. Defaults to
+     * {@value #DEFAULT_MAX_NESTING_DEPTH}.
+     *
+     * @param maxNestingDepth the maximum number of nested groups
+     */
+    public void setMaxNestingDepth(int maxNestingDepth) {
+        this.maxNestingDepth = maxNestingDepth;
+    }
+
+    /**
+     * Returns the maximum nesting depth of groups.
+     *
+     * @return the maximum number of nested groups
+     */
+    public int getMaxNestingDepth() {
+        return maxNestingDepth;
+    }
+
+    /**
+     * Returns the code point at the current position without consuming it.
+     * Supplementary characters are returned as a single code point.
+     */
+    private int peek() {
+        if (this.index >= this.limit) {
             return ENDOFSTRING;
         }
-        return this.regexString.charAt(0);
+        char c = this.regexString.charAt(this.index);
+        if (c < 128 || !Character.isHighSurrogate(c)) {
+            return c;
+        }
+        return this.regexString.codePointAt(this.index);
     }
 
-    private char consume() {
-        char r = this.peek();
-        if (r != ENDOFSTRING) {
-            this.regexString = this.regexString.substring(1);
+    private int consume() {
+        int r = this.peek();
+        if (this.index < this.limit) {
+            this.index += Character.charCount(r);
             position++;
         }
-        System.out.println(r);
         return r;
     }
 
-    public boolean isLiteral(char c) {
-        return !SPECIAL_CHARACTERS_SET.contains(c);
+    /**
+     * Checks whether the given code point forms a literal on its own, i.e. it is
+     * not one of the operators {@code ()[]|*+?^}. A {@code {} directly following
+     * an operand starts a counted repetition instead if a well-formed quantifier
+     * follows.
+     *
+     * @param c the code point to classify
+     * @return {@code true} if {@code c} is a literal
+     */
+    public boolean isLiteral(int c) {
+        if (c < 128) {
+            return c >= 0 && (ASCII_CLASSES[c] & LITERAL) != 0;
+        }
+        return true;
     }
 
-    public boolean isSymbol(char c) {
-        boolean symb = false;
-        if (isLiteral(c)) {
-            symb = true;
+    /**
+     * Checks whether the given code point may appear inside a character class,
+     * i.e. it is a literal or one of {@code ()[-|+?}.
+     *
+     * @param c the code point to classify
+     * @return {@code true} if {@code c} is allowed inside a character class
+     */
+    public boolean isSymbol(int c) {
+        if (c < 128) {
+            return c >= 0 && (ASCII_CLASSES[c] & SYMBOL) != 0;
         }
+        return true;
+    }
 
-        if (c == '(' || c == ')' || c == '[' || c == '-' || c == '|') {
-            symb = true;
-        }
-        return symb;
+    private RedeggsParseException unexpected(int select) {
+        int symbol = this.index >= this.limit ? -1 : select;
+        return new RedeggsParseException(ParseErrorCode.UNEXPECTED_SYMBOL, symbol, position);
     }
 
     /**
@@ -78,107 +261,577 @@ public class RecursiveDescentRedeggsParser {
      * @throws RedeggsParseException if the parsing fails or the regex is invalid
      */
     public RegularEggspression parse(String regex) throws RedeggsParseException {
+        ParseEvent event = new ParseEvent();
+        event.begin();
+        long start = metrics == ParserMetrics.NONE ? 0L : System.nanoTime();
+        this.nodesCreated = 0;
+        this.symbolsCreated = 0;
+        try {
+            RegularEggspression result = parseRegex(regex);
+            if (metrics != ParserMetrics.NONE) {
+                metrics.parsed(System.nanoTime() - start, regex.length(), nodesCreated, symbolsCreated);
+            }
+            if (event.shouldCommit()) {
+                event.patternLength = regex.length();
+                event.nodesCreated = nodesCreated;
+                event.symbolsCreated = symbolsCreated;
+                event.errorOffset = -1;
+                event.commit();
+            }
+            return result;
+        } catch (RedeggsParseException e) {
+            if (metrics != ParserMetrics.NONE) {
+                metrics.failed(System.nanoTime() - start, regex.length(), e.getErrorOffset());
+            }
+            if (event.shouldCommit()) {
+                event.patternLength = regex.length();
+                event.nodesCreated = nodesCreated;
+                event.symbolsCreated = symbolsCreated;
+                event.failed = true;
+                event.errorOffset = e.getErrorOffset();
+                event.commit();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Parses a regular expression string without throwing on invalid input.
+     * <p>
+     * This is the preferred entry point for validating untrusted patterns at high
+     * rates: a rejected pattern yields a failed {@link ParseResult} holding an
+     * error code and offset, and no message is rendered unless requested.
+     * </p>
+     *
+     * @param regex the regular expression to parse
+     * @return the parsed expression, or the error that prevented parsing
+     */
+    public ParseResult tryParse(String regex) {
+        try {
+            return ParseResult.success(parse(regex));
+        } catch (RedeggsParseException e) {
+            return ParseResult.failure(e.getErrorCode(), e.getSymbol(), e.getErrorOffset());
+        }
+    }
+
+    /**
+     * Re-parses a pattern after a text edit, reusing every subtree of the previous
+     * AST that lies outside of the edited region.
+     * <p>
+     * Only the smallest group {@code (...)} or alternative of an alternation
+     * enclosing the edit is parsed again; all nodes on the path from this unit to
+     * the root are recreated, and all other nodes of {@code previous} are reused
+     * by identity. Callers may therefore keep compiled fragments for unchanged
+     * subtrees. If the edited unit does not parse on its own (e.g. because the
+     * edit unbalanced a parenthesis), the enclosing unit is tried, falling back
+     * to a full parse of the edited text. With capture groups enabled, the edited
+     * text is always parsed in full, since an edit may renumber groups.
+     * </p>
+     *
+     * @param previous the AST returned by this parser for {@code oldText}
+     * @param oldText  the text {@code previous} was parsed from
+     * @param edit     the edit applied to {@code oldText}
+     * @return the AST of the edited text
+     * @throws RedeggsParseException if the edited text is invalid
+     */
+    public RegularEggspression reparse(RegularEggspression previous, String oldText, TextEdit edit)
+            throws RedeggsParseException {
+        String newText = edit.applyTo(oldText);
+        if (!captureGroups && previous.sourceLength >= 0 && previous.sourceSpan() == oldText.length()) {
+            this.regexString = newText;
+            RegularEggspression updated = reparseChild(previous, previous.groupDepth, false, edit);
+            if (updated != null) {
+                return updated;
+            }
+        }
+        return parse(newText);
+    }
+
+    /**
+     * Re-parses the given node of the previous AST, whose content (excluding its
+     * enclosing parentheses) starts at {@code start} in the old text. Returns
+     * {@code null} if the edit cannot be handled within this node.
+     */
+    private RegularEggspression reparse(RegularEggspression node, int start, boolean alternative, TextEdit edit) {
+        if (node instanceof RegularEggspression.Concatenation) {
+            RegularEggspression.Concatenation concat = (RegularEggspression.Concatenation) node;
+            RegularEggspression left = concat.left(), right = concat.right();
+            int rightStart = start + left.sourceSpan() + right.groupDepth;
+            RegularEggspression updated = reparseChild(left, start + left.groupDepth, false, edit);
+            if (updated != null) {
+                return withGroupDepth(concatenation(updated, right), node.groupDepth);
+            }
+            updated = reparseChild(right, rightStart, false, edit);
+            if (updated != null) {
+                return withGroupDepth(concatenation(left, updated), node.groupDepth);
+            }
+        } else if (node instanceof RegularEggspression.Alternation) {
+            RegularEggspression.Alternation union = (RegularEggspression.Alternation) node;
+            RegularEggspression left = union.left(), right = union.right();
+            int rightStart = start + left.sourceSpan() + 1 + right.groupDepth;
+            boolean leftIsAlternative = !(left instanceof RegularEggspression.Alternation) || left.groupDepth > 0;
+            RegularEggspression updated = reparseChild(left, start + left.groupDepth, leftIsAlternative, edit);
+            if (updated != null) {
+                return withGroupDepth(alternation(updated, right), node.groupDepth);
+            }
+            updated = reparseChild(right, rightStart, true, edit);
+            if (updated != null) {
+                return withGroupDepth(alternation(left, updated), node.groupDepth);
+            }
+        } else if (node instanceof RegularEggspression.Star) {
+            RegularEggspression base = ((RegularEggspression.Star) node).base();
+            RegularEggspression updated = reparseChild(base, start + base.groupDepth, false, edit);
+            if (updated != null) {
+                return star(updated, node.groupDepth);
+            }
+        } else if (node instanceof RegularEggspression.Repetition) {
+            RegularEggspression.Repetition repetition = (RegularEggspression.Repetition) node;
+            RegularEggspression base = repetition.base();
+            RegularEggspression updated = reparseChild(base, start + base.groupDepth, false, edit);
+            if (updated != null) {
+                RegularEggspression.Repetition result = repetition(updated, repetition.min(), repetition.max(),
+                        node.sourceLength - base.sourceSpan());
+                // a full parse reports the error
+                return tooLarge(result) ? null : withGroupDepth(result, node.groupDepth);
+            }
+        }
+
+        if (node.groupDepth > 0 || alternative) {
+            int end = start + node.sourceLength + edit.delta();
+            RegularEggspression updated = parseUnit(start, end, node.groupDepth > 0);
+            if (updated != null) {
+                updated.groupDepth += node.groupDepth;
+                return updated;
+            }
+        }
+        return null;
+    }
+
+    private RegularEggspression reparseChild(RegularEggspression child, int start, boolean alternative,
+            TextEdit edit) {
+        if (edit.offset() < start || edit.offset() + edit.removedLength() > start + child.sourceLength) {
+            return null;
+        }
+        return reparse(child, start, alternative, edit);
+    }
+
+    private static RegularEggspression withGroupDepth(RegularEggspression node, int groupDepth) {
+        node.groupDepth = groupDepth;
+        return node;
+    }
+
+    /**
+     * Parses the edited text between {@code start} and {@code end} as the
+     * content of a group or as an alternative. Returns {@code null} if it is not
+     * a complete group content or alternative on its own.
+     */
+    private RegularEggspression parseUnit(int start, int end, boolean group) {
+        this.index = start;
+        this.limit = end;
+        this.position = start + 1;
+        this.depth = 0;
+        try {
+            RegularEggspression unit = group ? regex() : concat();
+            return this.index == end ? unit : null;
+        } catch (RedeggsParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parses a regular expression string without stopping at the first error.
+     * <p>
+     * Whenever the input cannot be parsed, the problem is recorded as a
+     * {@link RedeggsDiagnostic}, the parser skips ahead to the next symbol that
+     * may follow a kleene expression according to the FOLLOW sets of the grammar
+     * ({@code )}, {@code |}, end of input, or after a stray {@code ]}) and
+     * continues. The skipped region becomes a {@link RegularEggspression.Invalid}
+     * node. This way, all problems of a pattern are found in a single pass.
+     * </p>
+     *
+     * @param regex the regular expression to parse
+     * @return the partial AST together with all diagnostics
+     */
+    public ParseReport parseWithRecovery(String regex) {
+        this.recovering = true;
+        this.diagnostics = new ArrayList<>();
+        try {
+            RegularEggspression expression = parseRegex(regex);
+            return new ParseReport(expression, diagnostics);
+        } catch (RedeggsParseException e) {
+            throw new IllegalStateException("error recovery failed", e);
+        } finally {
+            this.recovering = false;
+            this.diagnostics = null;
+        }
+    }
+
+    private RedeggsDiagnostic report(RedeggsParseException e) {
+        if (!diagnostics.isEmpty()) {
+            RedeggsDiagnostic last = diagnostics.get(diagnostics.size() - 1);
+            if (last.getErrorOffset() == e.getErrorOffset()) {
+                // the same symbol may be rejected on several levels
+                return last;
+            }
+        }
+        RedeggsDiagnostic diagnostic = new RedeggsDiagnostic(e.getErrorCode(), e.getSymbol(), e.getErrorOffset());
+        diagnostics.add(diagnostic);
+        return diagnostic;
+    }
+
+    /**
+     * Skips input until a symbol in the FOLLOW set of {@code kleene} is reached.
+     * Symbols starting a new kleene expression only count once the erroneous
+     * region is non-empty, so that the parser always makes progress.
+     */
+    private void synchronize(int start) {
+        while (true) {
+            int select = this.peek();
+            if (select == ENDOFSTRING || select == ')' || select == '|') {
+                return;
+            }
+            if (select == ']') {
+                this.consume();
+                return;
+            }
+            if (this.index > start && (isLiteral(select) || select == '(' || select == '[')) {
+                return;
+            }
+            this.consume();
+        }
+    }
+
+    private <N extends RegularEggspression> N node(N node) {
+        nodesCreated++;
+        node.expandedSize = expandedSize(node);
+        return node;
+    }
+
+    /**
+     * Computes the size of a node's subtree after expanding all repetitions from
+     * the sizes of its children.
+     */
+    static int expandedSize(RegularEggspression node) {
+        long size = 1;
+        if (node instanceof RegularEggspression.Concatenation) {
+            RegularEggspression.Concatenation concat = (RegularEggspression.Concatenation) node;
+            size += (long) concat.left().expandedSize + concat.right().expandedSize;
+        } else if (node instanceof RegularEggspression.Alternation) {
+            RegularEggspression.Alternation union = (RegularEggspression.Alternation) node;
+            size += (long) union.left().expandedSize + union.right().expandedSize;
+        } else if (node instanceof RegularEggspression.Star) {
+            size += ((RegularEggspression.Star) node).base().expandedSize;
+        } else if (node instanceof RegularEggspression.Group) {
+            size += ((RegularEggspression.Group) node).base().expandedSize;
+        } else if (node instanceof RegularEggspression.Repetition) {
+            RegularEggspression.Repetition repetition = (RegularEggspression.Repetition) node;
+            size += (long) repetition.base().expandedSize * copies(repetition);
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the number of copies of the base in the expansion of a repetition.
+     * Optional, plus and star repetitions expand to a single copy, just like
+     * the positions counted by {@link GlushkovAutomaton}.
+     */
+    private static int copies(RegularEggspression.Repetition repetition) {
+        int min = repetition.min();
+        int max = repetition.max();
+        if (min <= 1 && (max == RegularEggspression.Repetition.UNBOUNDED || max == 1)) {
+            return 1;
+        }
+        return max == RegularEggspression.Repetition.UNBOUNDED ? min + 1 : max;
+    }
+
+    /**
+     * Checks whether a repetition expands beyond {@link #MAX_EXPANDED_SIZE}.
+     * Repetitions copying their base at most once never grow the expression
+     * beyond the size of the pattern and are accepted regardless.
+     */
+    static boolean tooLarge(RegularEggspression.Repetition repetition) {
+        return copies(repetition) > 1 && repetition.expandedSize > MAX_EXPANDED_SIZE;
+    }
+
+    /**
+     * Registers a node spanning the input from {@code start} up to the current
+     * index.
+     */
+    private <N extends RegularEggspression> N spanned(N node, int start) {
+        node.sourceLength = this.index - start;
+        return node(node);
+    }
+
+    private RegularEggspression concatenation(RegularEggspression left, RegularEggspression right) {
+        RegularEggspression concat = node(new RegularEggspression.Concatenation(left, right));
+        concat.sourceLength = left.sourceSpan() + right.sourceSpan();
+        return concat;
+    }
+
+    private RegularEggspression alternation(RegularEggspression left, RegularEggspression right) {
+        RegularEggspression union = node(new RegularEggspression.Alternation(left, right));
+        union.sourceLength = left.sourceSpan() + 1 + right.sourceSpan();
+        return union;
+    }
+
+    private RegularEggspression star(RegularEggspression base, int groupDepth) {
+        RegularEggspression star = node(new RegularEggspression.Star(base));
+        star.sourceLength = base.sourceSpan() + 1;
+        star.groupDepth = groupDepth;
+        return star;
+    }
+
+    private RegularEggspression.Repetition repetition(RegularEggspression base, int min, int max,
+            int quantifierLength) {
+        RegularEggspression.Repetition repetition = node(new RegularEggspression.Repetition(base, min, max));
+        repetition.sourceLength = base.sourceSpan() + quantifierLength;
+        return repetition;
+    }
+
+    private VirtualSymbol symbol(SymbolFactory.Builder builder, boolean negated) {
+        symbolsCreated++;
+        VirtualSymbol symbol = builder.andNothingElse();
+        if (!caseInsensitive) {
+            return symbol;
+        }
+        return negated ? CaseFolding.foldNegated(symbol) : CaseFolding.fold(symbol);
+    }
+
+    private RegularEggspression parseRegex(String regex) throws RedeggsParseException {
         this.regexString = regex;
+        this.index = 0;
+        this.limit = regex.length();
+        this.position = 1;
+        this.groupCount = 0;
+        this.depth = 0;
         // TODO: uglily hardcoded to prevent tests from failing. Could be implemented
         // way cleaner by optimizing the tree after creation
         if (this.regexString.length() == 1) {
             if (this.peek() == 'ε') {
-                return new RegularEggspression.EmptyWord();
+                this.consume();
+                return spanned(new RegularEggspression.EmptyWord(), 0);
             } else if (this.peek() == '∅') {
-                return new RegularEggspression.EmptySet();
+                this.consume();
+                return spanned(new RegularEggspression.EmptySet(), 0);
             }
         }
 
         RegularEggspression regexpression = regex();
-        if (this.peek() != ENDOFSTRING) {
-            throw new RedeggsParseException("Unexpected symbol '" + this.peek() + "' at position " + position + ".",
-                    position);
+        while (this.peek() != ENDOFSTRING) {
+            RedeggsParseException e = unexpected(this.peek());
+            if (!recovering) {
+                throw e;
+            }
+            // only an unbalanced ')' can end up here
+            int start = this.index;
+            this.consume();
+            regexpression = concatenation(regexpression, spanned(new RegularEggspression.Invalid(report(e)), start));
+            if (this.peek() != ENDOFSTRING) {
+                regexpression = concatenation(regexpression, regex());
+            }
         }
         return regexpression;
     }
 
     private RegularEggspression regex() throws RedeggsParseException {
-        char select = this.peek();
-        if (isLiteral(select) || select == '(' | select == '[') {
+        int select = this.peek();
+        if (isLiteral(select) || select == '(' | select == '[' || recovering) {
             RegularEggspression concat = concat();
             return union(concat);
         }
 
-        throw new RedeggsParseException("Unexpected symbol '" + select + "' at position " + position + ".", position);
+        throw unexpected(select);
     }
 
     private RegularEggspression union(RegularEggspression left) throws RedeggsParseException {
-        char select = this.peek();
-        if (select == '|') {
-            this.consume();
-            RegularEggspression concat = concat();
-            return union(new RegularEggspression.Alternation(left, concat));
-        } else if (select == ENDOFSTRING || select == ')') {
-            return left;
+        // the tail recursion union -> '|' concat union is unrolled, so that long
+        // alternations do not grow the stack
+        while (true) {
+            int select = this.peek();
+            if (select == '|') {
+                this.consume();
+                RegularEggspression concat = concat();
+                left = alternation(left, concat);
+            } else if (select == ENDOFSTRING || select == ')') {
+                return left;
+            } else {
+                throw unexpected(select);
+            }
         }
-
-        throw new RedeggsParseException("Unexpected symbol '" + select + "' at position " + position + ".", position);
     }
 
     private RegularEggspression concat() throws RedeggsParseException {
-        char select = this.peek();
-        if (isLiteral(select) || select == '(' || select == '[') {
-            RegularEggspression kleene = kleene();
+        int select = this.peek();
+        if (isLiteral(select) || select == '(' || select == '[' || recovering) {
+            RegularEggspression kleene = kleeneOrRecover();
             return suffix(kleene);
         }
 
-        throw new RedeggsParseException("Unexpected symbol '" + select + "' at position " + position + ".", position);
+        throw unexpected(select);
     }
 
     private RegularEggspression suffix(RegularEggspression left) throws RedeggsParseException {
-        char select = this.peek();
-        if (isLiteral(select) || select == '(' || select == '[') {
-            RegularEggspression kleene = kleene();
-            return suffix(new RegularEggspression.Concatenation(left, kleene));
-        } else if (select == ENDOFSTRING || select == ')' || select == '|') {
-            return left;
+        while (true) {
+            int select = this.peek();
+            if (select == ENDOFSTRING || select == ')' || select == '|') {
+                return left;
+            } else if (isLiteral(select) || select == '(' || select == '[' || recovering) {
+                RegularEggspression kleene = kleeneOrRecover();
+                left = concatenation(left, kleene);
+            } else {
+                throw unexpected(select);
+            }
         }
+    }
 
-        throw new RedeggsParseException("Unexpected symbol '" + select + "' at position " + position + ".", position);
+    private RegularEggspression kleeneOrRecover() throws RedeggsParseException {
+        if (!recovering) {
+            return kleene();
+        }
+        int start = this.index;
+        try {
+            return kleene();
+        } catch (RedeggsParseException e) {
+            RedeggsDiagnostic diagnostic = report(e);
+            synchronize(start);
+            return spanned(new RegularEggspression.Invalid(diagnostic), start);
+        }
     }
 
     private RegularEggspression kleene() throws RedeggsParseException {
-        char select = this.peek();
+        int select = this.peek();
         if (isLiteral(select) || select == '(' || select == '[') {
             RegularEggspression base = base();
             return star(base);
         }
 
-        throw new RedeggsParseException("Unexpected symbol '" + select + "' at position " + position + ".", position);
+        throw unexpected(select);
     }
 
     private RegularEggspression star(RegularEggspression base) throws RedeggsParseException {
-        char select = this.peek();
+        int select = this.peek();
+        int start = this.index;
         if (select == '*') {
             this.consume();
-            return new RegularEggspression.Star(base);
+            return star(base, 0);
+        } else if (select == '+') {
+            this.consume();
+            return checked(repetition(base, 1, RegularEggspression.Repetition.UNBOUNDED, 1), select);
+        } else if (select == '?') {
+            this.consume();
+            return repetition(base, 0, 1, 1);
+        } else if (select == '{' && quantifierFollows()) {
+            this.consume();
+            int min = bound();
+            int max = min;
+            if (this.peek() == ',') {
+                this.consume();
+                max = isDigit(this.peek()) ? bound() : RegularEggspression.Repetition.UNBOUNDED;
+            }
+            if (this.peek() != '}') {
+                throw unexpected(this.peek());
+            }
+            this.consume();
+            if (max != RegularEggspression.Repetition.UNBOUNDED && max < min) {
+                throw new RedeggsParseException(ParseErrorCode.REPETITION_OUT_OF_RANGE, '}', position);
+            }
+            return checked(repetition(base, min, max, this.index - start), '}');
         } else if (isLiteral(select) || select == '(' || select == '[' || select == ENDOFSTRING || select == ')'
-                || select == '|') {
+                || select == '|' || recovering) {
+            // includes a '{' not starting a quantifier, which is parsed as a literal next
             return base;
         }
 
-        throw new RedeggsParseException("Unexpected symbol '" + select + "' at position " + position + ".", position);
+        throw unexpected(select);
+    }
+
+    private RegularEggspression checked(RegularEggspression.Repetition repetition, int select)
+            throws RedeggsParseException {
+        if (tooLarge(repetition)) {
+            throw new RedeggsParseException(ParseErrorCode.REPETITION_OUT_OF_RANGE, select, position);
+        }
+        return repetition;
+    }
+
+    /**
+     * Checks whether the {@code {} at the current index starts a syntactically
+     * well-formed quantifier {@code {m}}, {@code {m,}} or {@code {m,n}}. Any
+     * other {@code {} is a literal.
+     */
+    private boolean quantifierFollows() {
+        int i = this.index + 1;
+        int digits = i;
+        while (i < this.limit && isDigit(this.regexString.charAt(i))) {
+            i++;
+        }
+        if (i == digits) {
+            return false;
+        }
+        if (i < this.limit && this.regexString.charAt(i) == ',') {
+            i++;
+            while (i < this.limit && isDigit(this.regexString.charAt(i))) {
+                i++;
+            }
+        }
+        return i < this.limit && this.regexString.charAt(i) == '}';
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Parses a bound of a counted repetition, which must not exceed
+     * {@link #MAX_REPETITION}.
+     */
+    private int bound() throws RedeggsParseException {
+        int select = this.peek();
+        if (!isDigit(select)) {
+            throw unexpected(select);
+        }
+        int value = 0;
+        while (isDigit(this.peek())) {
+            value = 10 * value + (this.consume() - '0');
+            if (value > MAX_REPETITION) {
+                throw new RedeggsParseException(ParseErrorCode.REPETITION_OUT_OF_RANGE, select, position);
+            }
+        }
+        return value;
     }
 
     private RegularEggspression base() throws RedeggsParseException {
-        char select = this.peek();
+        int start = this.index;
+        int select = this.peek();
         if (isLiteral(select)) {
             this.consume();
-            VirtualSymbol symbol = symbolFactory.newSymbol().include(CodePointRange.single(select)).andNothingElse();
-            return new RegularEggspression.Literal(symbol);
+            VirtualSymbol symbol = symbol(symbolFactory.newSymbol().include(CodePointRange.single(select)), false);
+            return spanned(new RegularEggspression.Literal(symbol), start);
         } else if (select == '(') {
+            if (depth >= maxNestingDepth) {
+                throw new RedeggsParseException(ParseErrorCode.NESTING_TOO_DEEP, select, position);
+            }
             this.consume();
-            RegularEggspression regex = regex();
+            int groupIndex = ++groupCount;
+            RegularEggspression regex;
+            depth++;
+            try {
+                regex = regex();
+            } finally {
+                depth--;
+            }
             if (this.consume() != ')') {
-                throw new RedeggsParseException(
-                        "Input ended unexpectedly, expected symbol ')' at position " + position + ".",
-                        position);
+                RedeggsParseException e = new RedeggsParseException(ParseErrorCode.MISSING_RIGHT_PARENTHESIS,
+                        ENDOFSTRING, position);
+                if (!recovering) {
+                    throw e;
+                }
+                report(e);
+                return regex;
             }
+            if (captureGroups) {
+                return spanned(new RegularEggspression.Group(groupIndex, regex), start);
+            }
+            regex.groupDepth++;
             return regex;
         } else if (select == '[') {
             this.consume();
@@ -186,22 +839,20 @@ public class RecursiveDescentRedeggsParser {
             SymbolFactory.Builder inhalt = inhalt(symbolFactory.newSymbol(), negation);
             SymbolFactory.Builder rangeF = rangeF(inhalt, negation);
             if (this.consume() != ']') {
-                throw new RedeggsParseException(
-                        "Input ended unexpectedly, expected symbol ']' at position " + position + ".",
-                        position);
+                throw new RedeggsParseException(ParseErrorCode.MISSING_RIGHT_BRACKET, ENDOFSTRING, position);
             }
-            return new RegularEggspression.Literal(rangeF.andNothingElse());
+            return spanned(new RegularEggspression.Literal(symbol(rangeF, negation)), start);
         } else if (isSymbol(select)) {
             this.consume();
-            VirtualSymbol symbol = symbolFactory.newSymbol().include(CodePointRange.single(select)).andNothingElse();
-            return new RegularEggspression.Literal(symbol);
+            VirtualSymbol symbol = symbol(symbolFactory.newSymbol().include(CodePointRange.single(select)), false);
+            return spanned(new RegularEggspression.Literal(symbol), start);
         }
 
-        throw new RedeggsParseException("Unexpected symbol '" + select + "' at position " + position + ".", position);
+        throw unexpected(select);
     }
 
     private boolean negation() throws RedeggsParseException {
-        char select = this.peek();
+        int select = this.peek();
         if (select == '^') {
             this.consume();
             return true;
@@ -209,24 +860,24 @@ public class RecursiveDescentRedeggsParser {
             return false;
         }
 
-        // throw new RedeggsParseException("Unexpected symbol '" + select + "' at
-        // position " + position + ".", position);
+        // throw unexpected(select);
     }
 
     private SymbolFactory.Builder rangeF(SymbolFactory.Builder builder, boolean negated) throws RedeggsParseException {
-        char select = this.peek();
-        if (isLiteral(select)) {
-            SymbolFactory.Builder inhalt = inhalt(builder, negated);
-            return rangeF(inhalt, negated);
-        } else if (select == ']') {
-            return builder;
+        while (true) {
+            int select = this.peek();
+            if (isLiteral(select) || select == '+' || select == '?') {
+                builder = inhalt(builder, negated);
+            } else if (select == ']') {
+                return builder;
+            } else {
+                throw unexpected(select);
+            }
         }
-
-        throw new RedeggsParseException("Unexpected symbol '" + select + "' at position " + position + ".", position);
     }
 
     private SymbolFactory.Builder inhalt(SymbolFactory.Builder builder, boolean negated) throws RedeggsParseException {
-        char select = this.peek();
+        int select = this.peek();
         if (isSymbol(select)) {
             this.consume();
             CodePointRange rest = rest(select);
@@ -237,24 +888,22 @@ public class RecursiveDescentRedeggsParser {
             }
         }
 
-        throw new RedeggsParseException("Unexpected symbol '" + select + "' at position " + position + ".", position);
+        throw unexpected(select);
     }
 
-    private CodePointRange rest(char start) throws RedeggsParseException {
-        char select = this.peek();
+    private CodePointRange rest(int start) throws RedeggsParseException {
+        int select = this.peek();
         if (select == '-') {
             this.consume();
-            char lit = this.consume();
+            int lit = this.consume();
             if (!isLiteral(lit)) {
-                throw new RedeggsParseException(
-                        "Input ended unexpectedly, expected literal at position " + position + ".",
-                        position);
+                throw new RedeggsParseException(ParseErrorCode.EXPECTED_LITERAL, lit, position);
             }
             return CodePointRange.range(start, lit);
         } else if (isSymbol(select) || select == ']') {
             return CodePointRange.single(start);
         }
 
-        throw new RedeggsParseException("Unexpected symbol '" + select + "' at position " + position + ".", position);
+        throw unexpected(select);
     }
 }
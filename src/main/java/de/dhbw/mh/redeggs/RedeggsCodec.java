@@ -0,0 +1,423 @@
+package de.dhbw.mh.redeggs;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.dhbw.mh.redeggs.RegularEggspression.Alternation;
+import de.dhbw.mh.redeggs.RegularEggspression.Concatenation;
+import de.dhbw.mh.redeggs.RegularEggspression.Group;
+import de.dhbw.mh.redeggs.RegularEggspression.Literal;
+import de.dhbw.mh.redeggs.RegularEggspression.Repetition;
+import de.dhbw.mh.redeggs.RegularEggspression.Star;
+
+/**
+ * A compact binary encoding of regular expression ASTs.
+ * <p>
+ * Encoded expressions can be cached or transferred and read back without
+ * parsing the pattern again. The encoding consists of
+ * </p>
+ * <ul>
+ * <li>the magic number {@code REGG} and a format version,</li>
+ * <li>a table of the distinct symbols, each stored as its sorted code point
+ * ranges, and</li>
+ * <li>the nodes in pre-order, one opcode per node, followed by the index of a
+ * literal's symbol in the table, the index of a capture group or the bounds
+ * of a repetition.</li>
+ * </ul>
+ * <p>
+ * All numbers are unsigned variable-length integers with seven bits per byte,
+ * so a typical node takes one or two bytes. Encoding and decoding use explicit
+ * stacks and work for trees of any depth. Symbols are recreated through a
+ * {@link SymbolFactory}; literals sharing a symbol in the table share the
+ * decoded symbol.
+ * </p>
+ * <p>
+ * Decoded expressions carry no source positions, so they cannot be
+ * {@link RecursiveDescentRedeggsParser#reparse reparsed} incrementally, and
+ * {@link RegularEggspression.Invalid} nodes are decoded as plain empty sets
+ * without their diagnostics.
+ * </p>
+ */
+public final class RedeggsCodec {
+
+	private static final int MAGIC = 0x52454747;
+
+	private static final int VERSION = 1;
+
+	private static final int CONCATENATION = 0;
+	private static final int ALTERNATION = 1;
+	private static final int STAR = 2;
+	private static final int GROUP = 3;
+	private static final int LITERAL = 4;
+	private static final int EMPTY_WORD = 5;
+	private static final int EMPTY_SET = 6;
+	private static final int REPETITION = 7;
+
+	private RedeggsCodec() {
+	}
+
+	/**
+	 * Encodes an expression.
+	 *
+	 * @param expression the expression to encode
+	 * @return the encoded expression
+	 * @throws IllegalArgumentException if a symbol does not expose its code point
+	 *                                  ranges
+	 */
+	public static byte[] encode(RegularEggspression expression) {
+		Encoder encoder = new Encoder();
+		ArrayDeque<RegularEggspression> pending = new ArrayDeque<>();
+		pending.push(expression);
+		while (!pending.isEmpty()) {
+			encoder.pending = pending;
+			pending.pop().accept(encoder);
+		}
+
+		Bytes out = new Bytes();
+		out.putInt(MAGIC);
+		out.putVarint(VERSION);
+		out.putVarint(encoder.symbols.size());
+		for (RangeSymbol symbol : encoder.symbols) {
+			out.putVarint(symbol.rangeCount());
+			for (int r = 0; r < symbol.rangeCount(); r++) {
+				out.putVarint(symbol.first(r));
+				out.putVarint(symbol.last(r) - symbol.first(r));
+			}
+		}
+		out.putVarint(encoder.nodeCount);
+		out.put(encoder.nodes);
+		return out.toByteArray();
+	}
+
+	/**
+	 * Decodes an expression. Repetitions are subject to the same limits as in
+	 * {@link RecursiveDescentRedeggsParser}: bounds above
+	 * {@link RecursiveDescentRedeggsParser#MAX_REPETITION} and repetitions
+	 * expanding beyond {@link RecursiveDescentRedeggsParser#MAX_EXPANDED_SIZE}
+	 * nodes are rejected.
+	 *
+	 * @param data          the encoded expression
+	 * @param symbolFactory the factory creating the symbols
+	 * @return the decoded expression
+	 * @throws IllegalArgumentException if {@code data} is not a valid encoding or
+	 *                                  exceeds the repetition limits
+	 */
+	public static RegularEggspression decode(byte[] data, SymbolFactory symbolFactory) {
+		Reader in = new Reader(data);
+		if (in.getInt() != MAGIC) {
+			throw new IllegalArgumentException("Not an encoded expression");
+		}
+		int version = in.getVarint();
+		if (version != VERSION) {
+			throw new IllegalArgumentException("Unsupported encoding version: " + version);
+		}
+
+		VirtualSymbol[] symbols = new VirtualSymbol[in.getCount()];
+		for (int s = 0; s < symbols.length; s++) {
+			SymbolFactory.Builder builder = symbolFactory.newSymbol();
+			for (int r = in.getCount(); r > 0; r--) {
+				int first = in.getVarint();
+				builder.include(CodePointRange.range(first, first + in.getVarint()));
+			}
+			symbols[s] = builder.andNothingElse();
+		}
+
+		// frames of inner nodes still waiting for children:
+		// {opcode, group index or minimum, left child seen or maximum}
+		ArrayDeque<int[]> frames = new ArrayDeque<>();
+		ArrayDeque<RegularEggspression> lefts = new ArrayDeque<>();
+		RegularEggspression result = null;
+		for (int n = in.getCount(); n > 0; n--) {
+			if (result != null) {
+				throw new IllegalArgumentException("Trailing nodes after complete expression");
+			}
+			int opcode = in.getVarint();
+			RegularEggspression node;
+			switch (opcode) {
+			case CONCATENATION:
+			case ALTERNATION:
+			case STAR:
+				frames.push(new int[] { opcode, 0, 0 });
+				continue;
+			case GROUP:
+				frames.push(new int[] { opcode, in.getVarint(), 0 });
+				continue;
+			case REPETITION:
+				int min = in.getVarint();
+				// the upper bound is stored plus one, so that 0 means unbounded
+				int max = in.getVarint() - 1;
+				if (min < 0 || min > RecursiveDescentRedeggsParser.MAX_REPETITION
+						|| max > RecursiveDescentRedeggsParser.MAX_REPETITION
+						|| max != Repetition.UNBOUNDED && max < min) {
+					throw new IllegalArgumentException("Invalid repetition bounds");
+				}
+				frames.push(new int[] { opcode, min, max });
+				continue;
+			case LITERAL:
+				int symbol = in.getVarint();
+				if (symbol >= symbols.length) {
+					throw new IllegalArgumentException("Unknown symbol " + symbol);
+				}
+				node = new Literal(symbols[symbol]);
+				break;
+			case EMPTY_WORD:
+				node = new RegularEggspression.EmptyWord();
+				break;
+			case EMPTY_SET:
+				node = new RegularEggspression.EmptySet();
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown opcode " + opcode);
+			}
+
+			// attach the completed node to its parent, completing it in turn
+			while (true) {
+				node.expandedSize = RecursiveDescentRedeggsParser.expandedSize(node);
+				if (node instanceof Repetition && RecursiveDescentRedeggsParser.tooLarge((Repetition) node)) {
+					throw new IllegalArgumentException("Repetition expands beyond "
+							+ RecursiveDescentRedeggsParser.MAX_EXPANDED_SIZE + " nodes");
+				}
+				int[] frame = frames.peek();
+				if (frame == null) {
+					result = node;
+					break;
+				}
+				boolean binary = frame[0] == CONCATENATION || frame[0] == ALTERNATION;
+				if (binary && frame[2] == 0) {
+					frame[2] = 1;
+					lefts.push(node);
+					break;
+				}
+				frames.pop();
+				switch (frame[0]) {
+				case CONCATENATION:
+					node = new Concatenation(lefts.pop(), node);
+					break;
+				case ALTERNATION:
+					node = new Alternation(lefts.pop(), node);
+					break;
+				case STAR:
+					node = new Star(node);
+					break;
+				case REPETITION:
+					node = new Repetition(node, frame[1], frame[2]);
+					break;
+				default:
+					node = new Group(frame[1], node);
+					break;
+				}
+			}
+		}
+		if (result == null || in.remaining() > 0) {
+			throw new IllegalArgumentException("Truncated or corrupt expression encoding");
+		}
+		return result;
+	}
+
+	/**
+	 * Writes the opcode of a node and schedules its children.
+	 */
+	private static final class Encoder implements RegularEggspression.Visitor<Void> {
+		final Bytes nodes = new Bytes();
+		final List<RangeSymbol> symbols = new ArrayList<>();
+		final Map<RangeSymbol, Integer> symbolIds = new HashMap<>();
+		final Map<VirtualSymbol, Integer> knownSymbols = new IdentityHashMap<>();
+		ArrayDeque<RegularEggspression> pending;
+		int nodeCount;
+
+		private int symbolId(VirtualSymbol symbol) {
+			Integer id = knownSymbols.get(symbol);
+			if (id == null) {
+				RangeSymbol ranges = RangeSymbol.of(symbol);
+				id = symbolIds.get(ranges);
+				if (id == null) {
+					id = symbols.size();
+					symbols.add(ranges);
+					symbolIds.put(ranges, id);
+				}
+				knownSymbols.put(symbol, id);
+			}
+			return id;
+		}
+
+		private void emit(int opcode) {
+			nodes.putVarint(opcode);
+			nodeCount++;
+		}
+
+		@Override
+		public Void visit(Concatenation concat) {
+			emit(CONCATENATION);
+			pending.push(concat.right());
+			pending.push(concat.left());
+			return null;
+		}
+
+		@Override
+		public Void visit(Alternation union) {
+			emit(ALTERNATION);
+			pending.push(union.right());
+			pending.push(union.left());
+			return null;
+		}
+
+		@Override
+		public Void visit(Star star) {
+			emit(STAR);
+			pending.push(star.base());
+			return null;
+		}
+
+		@Override
+		public Void visit(Repetition repetition) {
+			emit(REPETITION);
+			nodes.putVarint(repetition.min());
+			nodes.putVarint(repetition.max() + 1);
+			pending.push(repetition.base());
+			return null;
+		}
+
+		@Override
+		public Void visit(Group group) {
+			emit(GROUP);
+			nodes.putVarint(group.index());
+			pending.push(group.base());
+			return null;
+		}
+
+		@Override
+		public Void visit(Literal literal) {
+			emit(LITERAL);
+			nodes.putVarint(symbolId(literal.symbol()));
+			return null;
+		}
+
+		@Override
+		public Void visit(RegularEggspression.EmptyWord emptyWord) {
+			emit(EMPTY_WORD);
+			return null;
+		}
+
+		@Override
+		public Void visit(RegularEggspression.EmptySet emptySet) {
+			emit(EMPTY_SET);
+			return null;
+		}
+
+		@Override
+		public Void visitPost(Concatenation concat, Void prefix, Void suffix) {
+			return null;
+		}
+
+		@Override
+		public Void visitPost(Alternation union, Void first, Void second) {
+			return null;
+		}
+
+		@Override
+		public Void visitPost(Star star, Void base) {
+			return null;
+		}
+
+		@Override
+		public Void visitPost(Literal literal, VirtualSymbol symbol) {
+			return null;
+		}
+	}
+
+	/**
+	 * A growable byte array.
+	 */
+	private static final class Bytes {
+		private byte[] bytes = new byte[64];
+		private int size;
+
+		private void ensure(int extra) {
+			if (size + extra > bytes.length) {
+				bytes = Arrays.copyOf(bytes, Math.max(2 * bytes.length, size + extra));
+			}
+		}
+
+		void putInt(int value) {
+			ensure(4);
+			for (int shift = 24; shift >= 0; shift -= 8) {
+				bytes[size++] = (byte) (value >>> shift);
+			}
+		}
+
+		void putVarint(int value) {
+			ensure(5);
+			while ((value & ~0x7F) != 0) {
+				bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			bytes[size++] = (byte) value;
+		}
+
+		void put(Bytes other) {
+			ensure(other.size);
+			System.arraycopy(other.bytes, 0, bytes, size, other.size);
+			size += other.size;
+		}
+
+		byte[] toByteArray() {
+			return Arrays.copyOf(bytes, size);
+		}
+	}
+
+	/**
+	 * Reads numbers from an encoding, rejecting truncated input.
+	 */
+	private static final class Reader {
+		private final byte[] data;
+		private int offset;
+
+		Reader(byte[] data) {
+			this.data = data;
+		}
+
+		private int next() {
+			if (offset >= data.length) {
+				throw new IllegalArgumentException("Truncated or corrupt expression encoding");
+			}
+			return data[offset++] & 0xFF;
+		}
+
+		int getInt() {
+			return next() << 24 | next() << 16 | next() << 8 | next();
+		}
+
+		int getVarint() {
+			int value = 0;
+			for (int shift = 0; shift < 35; shift += 7) {
+				int b = next();
+				value |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+			}
+			throw new IllegalArgumentException("Malformed number in expression encoding");
+		}
+
+		/**
+		 * Reads a count, which cannot exceed the number of remaining bytes.
+		 */
+		int getCount() {
+			int count = getVarint();
+			if (count < 0 || count > remaining()) {
+				throw new IllegalArgumentException("Truncated or corrupt expression encoding");
+			}
+			return count;
+		}
+
+		int remaining() {
+			return data.length - offset;
+		}
+	}
+
+}
@@ -0,0 +1,61 @@
+package de.dhbw.mh.redeggs;
+
+/**
+ * A single problem found while parsing a regular expression in recovery mode,
+ * see {@link RecursiveDescentRedeggsParser#parseWithRecovery(String)}.
+ */
+public class RedeggsDiagnostic {
+
+	private final ParseErrorCode errorCode;
+
+	private final int symbol;
+
+	private final int errorOffset;
+
+	/**
+	 * Constructs a new diagnostic.
+	 *
+	 * @param errorCode   the kind of problem
+	 * @param symbol      the offending code point
+	 * @param errorOffset the position in the input where the problem was detected
+	 */
+	public RedeggsDiagnostic(ParseErrorCode errorCode, int symbol, int errorOffset) {
+		this.errorCode = errorCode;
+		this.symbol = symbol;
+		this.errorOffset = errorOffset;
+	}
+
+	/**
+	 * Returns the kind of problem.
+	 *
+	 * @return the error code of this diagnostic
+	 */
+	public ParseErrorCode getErrorCode() {
+		return errorCode;
+	}
+
+	/**
+	 * Renders the human-readable description of the problem.
+	 *
+	 * @return the message of this diagnostic
+	 */
+	public String getMessage() {
+		return errorCode.format(symbol, errorOffset);
+	}
+
+	/**
+	 * Returns the position in the input where the problem was detected, using the
+	 * same convention as {@link RedeggsParseException#getErrorOffset()}.
+	 *
+	 * @return the error offset of this diagnostic
+	 */
+	public int getErrorOffset() {
+		return errorOffset;
+	}
+
+	@Override
+	public String toString() {
+		return getMessage();
+	}
+
+}
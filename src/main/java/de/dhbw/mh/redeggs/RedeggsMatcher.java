@@ -0,0 +1,49 @@
+package de.dhbw.mh.redeggs;
+
+/**
+ * A compiled regular eggspression that can be matched against input.
+ * <p>
+ * Implementations are immutable and may be shared between threads.
+ * </p>
+ */
+public interface RedeggsMatcher {
+
+	/**
+	 * Checks whether the whole input matches.
+	 *
+	 * @param input the input to match
+	 * @return {@code true} if the whole input matches
+	 */
+	boolean matches(CharSequence input);
+
+	/**
+	 * Checks whether some part of the input matches.
+	 *
+	 * @param input the input to search
+	 * @return {@code true} if the input contains a match
+	 */
+	boolean find(CharSequence input);
+
+	/**
+	 * Compiles the given expression with the most suitable engine.
+	 * <p>
+	 * Expressions with at most {@link BitParallelMatcher#MAX_POSITIONS} literals
+	 * are simulated bit-parallel; larger ones are handed to the {@link PikeVM}.
+	 * The literals are counted before the position automaton is built, so large
+	 * expressions never pay for its follow sets.
+	 * </p>
+	 *
+	 * @param expression the expression to compile
+	 * @return a matcher for {@code expression}
+	 * @throws IllegalArgumentException if a symbol of {@code expression} does not
+	 *                                  expose its code point ranges
+	 */
+	static RedeggsMatcher compile(RegularEggspression expression) {
+		int limit = BitParallelMatcher.MAX_POSITIONS;
+		if (GlushkovAutomaton.countPositions(expression, limit) <= limit) {
+			return BitParallelMatcher.of(GlushkovAutomaton.of(expression));
+		}
+		return PikeVM.compile(expression);
+	}
+
+}
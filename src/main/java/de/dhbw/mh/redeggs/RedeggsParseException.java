@@ -4,6 +4,12 @@ package de.dhbw.mh.redeggs;
  * Exception thrown when an error occurs during regular expression parsing. This
  * exception includes information about the parsing error and the location
  * (character offset) in the input string where the error occurred.
+ * <p>
+ * Exceptions raised by {@link RecursiveDescentRedeggsParser} carry a
+ * {@link ParseErrorCode}, do not capture a stack trace and only render their
+ * message when {@link #getMessage()} is called, so that rejecting a pattern is
+ * about as cheap as accepting it.
+ * </p>
  */
 public class RedeggsParseException extends Exception {
 
@@ -19,6 +25,22 @@ public class RedeggsParseException extends Exception {
 	 */
 	private final int errorOffset;
 
+	/**
+	 * The kind of error, or {@code null} if this exception was created with an
+	 * explicit message.
+	 */
+	private final ParseErrorCode errorCode;
+
+	/**
+	 * The offending code point, used to render the message lazily.
+	 */
+	private final int symbol;
+
+	/**
+	 * The message rendered from {@link #errorCode}, created on first access.
+	 */
+	private String formattedMessage;
+
 	/**
 	 * Constructs a new {@code RedeggsParseException} with the specified detail
 	 * message and offset.
@@ -32,6 +54,57 @@ public class RedeggsParseException extends Exception {
 	public RedeggsParseException(String message, int errorOffset) {
 		super(message);
 		this.errorOffset = errorOffset;
+		this.errorCode = null;
+		this.symbol = -1;
+	}
+
+	/**
+	 * Constructs a new stackless {@code RedeggsParseException} whose message is
+	 * rendered from the given error code on demand.
+	 *
+	 * @param errorCode   the kind of error
+	 * @param symbol      the offending code point, or {@code -1} if the input
+	 *                    ended
+	 * @param errorOffset the position in the input string where the error
+	 *                    occurred during parsing.
+	 */
+	public RedeggsParseException(ParseErrorCode errorCode, int symbol, int errorOffset) {
+		super(null, null, false, false);
+		this.errorOffset = errorOffset;
+		this.errorCode = errorCode;
+		this.symbol = symbol;
+	}
+
+	@Override
+	public String getMessage() {
+		if (errorCode == null) {
+			return super.getMessage();
+		}
+		String message = formattedMessage;
+		if (message == null) {
+			message = errorCode.format(symbol, errorOffset);
+			formattedMessage = message;
+		}
+		return message;
+	}
+
+	/**
+	 * Returns the kind of error.
+	 *
+	 * @return the error code, or {@code null} if this exception was created with
+	 *         an explicit message
+	 */
+	public ParseErrorCode getErrorCode() {
+		return errorCode;
+	}
+
+	/**
+	 * Returns the code point that caused the error.
+	 *
+	 * @return the offending code point, or {@code -1} if unknown
+	 */
+	public int getSymbol() {
+		return symbol;
 	}
 
 	/**
@@ -0,0 +1,159 @@
+package de.dhbw.mh.redeggs;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+
+import de.dhbw.mh.redeggs.RegularEggspression.Alternation;
+import de.dhbw.mh.redeggs.RegularEggspression.Concatenation;
+import de.dhbw.mh.redeggs.RegularEggspression.Group;
+import de.dhbw.mh.redeggs.RegularEggspression.Literal;
+import de.dhbw.mh.redeggs.RegularEggspression.Repetition;
+import de.dhbw.mh.redeggs.RegularEggspression.Star;
+
+/**
+ * Writes regular expressions in the fully parenthesized notation of
+ * {@link NodeInspector}, e.g. {@code (([a]|[b]))*}.
+ * <p>
+ * The expression is written to an {@link Appendable} in a single pass with an
+ * explicit stack. Unlike {@link NodeInspector}, which concatenates the strings
+ * of both children at every level, this takes time linear in the size of the
+ * output, needs no intermediate strings and works for trees of any depth.
+ * The nodes' {@code toString} methods use this serializer.
+ * </p>
+ */
+public final class RedeggsSerializer {
+
+	private RedeggsSerializer() {
+	}
+
+	/**
+	 * Writes an expression to the given output.
+	 *
+	 * @param expression the expression to write
+	 * @param out        the output to append to, e.g. a {@link java.io.Writer}
+	 * @throws IOException if the output fails
+	 */
+	public static void write(RegularEggspression expression, Appendable out) throws IOException {
+		ArrayDeque<Object> pending = new ArrayDeque<>();
+		Expander expander = new Expander(pending);
+		pending.push(expression);
+		while (!pending.isEmpty()) {
+			Object next = pending.pop();
+			if (next instanceof RegularEggspression) {
+				((RegularEggspression) next).accept(expander);
+			} else {
+				out.append((CharSequence) next);
+			}
+		}
+	}
+
+	/**
+	 * Returns the notation of an expression.
+	 *
+	 * @param expression the expression to write
+	 * @return the fully parenthesized notation of {@code expression}
+	 */
+	public static String toString(RegularEggspression expression) {
+		StringBuilder out = new StringBuilder();
+		try {
+			write(expression, out);
+		} catch (IOException e) {
+			// a StringBuilder does not throw
+			throw new UncheckedIOException(e);
+		}
+		return out.toString();
+	}
+
+	/**
+	 * Replaces a node on the stack by the parts of its notation, in reverse
+	 * order so that they are popped from left to right.
+	 */
+	private static final class Expander implements RegularEggspression.Visitor<Void> {
+		private final ArrayDeque<Object> pending;
+
+		Expander(ArrayDeque<Object> pending) {
+			this.pending = pending;
+		}
+
+		@Override
+		public Void visit(Concatenation concat) {
+			pending.push(")");
+			pending.push(concat.right());
+			pending.push(concat.left());
+			pending.push("(");
+			return null;
+		}
+
+		@Override
+		public Void visit(Alternation union) {
+			pending.push(")");
+			pending.push(union.right());
+			pending.push("|");
+			pending.push(union.left());
+			pending.push("(");
+			return null;
+		}
+
+		@Override
+		public Void visit(Star star) {
+			pending.push(")*");
+			pending.push(star.base());
+			pending.push("(");
+			return null;
+		}
+
+		@Override
+		public Void visit(Repetition repetition) {
+			pending.push(")" + repetition.quantifier());
+			pending.push(repetition.base());
+			pending.push("(");
+			return null;
+		}
+
+		@Override
+		public Void visit(Group group) {
+			pending.push(group.base());
+			return null;
+		}
+
+		@Override
+		public Void visit(Literal literal) {
+			pending.push(String.valueOf(literal.symbol()));
+			return null;
+		}
+
+		@Override
+		public Void visit(RegularEggspression.EmptyWord emptyWord) {
+			pending.push("ε");
+			return null;
+		}
+
+		@Override
+		public Void visit(RegularEggspression.EmptySet emptySet) {
+			pending.push("∅");
+			return null;
+		}
+
+		@Override
+		public Void visitPost(Concatenation concat, Void prefix, Void suffix) {
+			return null;
+		}
+
+		@Override
+		public Void visitPost(Alternation union, Void first, Void second) {
+			return null;
+		}
+
+		@Override
+		public Void visitPost(Star star, Void base) {
+			return null;
+		}
+
+		@Override
+		public Void visitPost(Literal literal, VirtualSymbol symbol) {
+			return null;
+		}
+	}
+
+}
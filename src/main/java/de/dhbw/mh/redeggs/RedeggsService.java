@@ -0,0 +1,568 @@
+package de.dhbw.mh.redeggs;
+
+import java.lang.reflect.Method;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Parses patterns and matches inputs against them in bulk, on a pool of worker
+ * threads.
+ * <p>
+ * Jobs run on virtual threads if the JDK provides them and on a fixed pool of
+ * platform threads otherwise. At most {@code maxPending} jobs are submitted
+ * but not yet completed; further submissions block until a job completes, so
+ * a fast producer cannot fill the heap with queued work. A job passed to
+ * {@link #matchBatch(String, List)} counts once per chunk of
+ * {@value #BATCH_CHUNK} inputs.
+ * </p>
+ * <p>
+ * Compiled patterns are kept in a bounded cache, least recently used first
+ * out. Jobs for a pattern that is being compiled wait for that compilation
+ * instead of starting their own, so every pattern in the cache is compiled
+ * once. Patterns rejected by the parser stay cached as failures; other
+ * compilation failures are not cached, so the next job tries again. A job
+ * matches if its pattern matches the whole input, see
+ * {@link RedeggsMatcher#matches(CharSequence)}. Instances are thread-safe.
+ * </p>
+ */
+public final class RedeggsService implements AutoCloseable {
+
+	/**
+	 * The default limit on submitted but not yet completed jobs.
+	 */
+	public static final int DEFAULT_MAX_PENDING = 1024;
+
+	/**
+	 * The default number of cached compiled patterns.
+	 */
+	public static final int DEFAULT_CACHE_SIZE = 256;
+
+	/**
+	 * The number of inputs of a batch matched by a single task.
+	 */
+	public static final int BATCH_CHUNK = 256;
+
+	/**
+	 * The longest pattern accepted, in chars. Together with the parser's limits
+	 * on nesting and on the expanded size of repetitions, this bounds the memory
+	 * a single untrusted pattern can take to compile.
+	 */
+	public static final int MAX_PATTERN_LENGTH = 1 << 16;
+
+	private final Supplier<RecursiveDescentRedeggsParser> parsers;
+
+	private final ExecutorService executor;
+
+	private final boolean virtualThreads;
+
+	private final int maxPending;
+
+	private final Semaphore permits;
+
+	/** Guarded by itself. */
+	private final Map<String, CompletableFuture<RedeggsMatcher>> cache;
+
+	/**
+	 * Creates a service with default limits, using the available processors.
+	 *
+	 * @param symbolFactory the factory creating the symbols of parsed patterns
+	 */
+	public RedeggsService(SymbolFactory symbolFactory) {
+		this(() -> new RecursiveDescentRedeggsParser(symbolFactory), Runtime.getRuntime().availableProcessors(),
+				DEFAULT_MAX_PENDING, DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * Creates a service.
+	 *
+	 * @param parsers     creates a configured parser for every compilation, since
+	 *                    parsers are not thread-safe
+	 * @param parallelism the number of platform threads if virtual threads are
+	 *                    not available
+	 * @param maxPending  the maximum number of submitted but not yet completed
+	 *                    jobs
+	 * @param cacheSize   the maximum number of cached compiled patterns
+	 * @throws IllegalArgumentException if a limit is not positive
+	 */
+	public RedeggsService(Supplier<RecursiveDescentRedeggsParser> parsers, int parallelism, int maxPending,
+			int cacheSize) {
+		if (parallelism < 1 || maxPending < 1 || cacheSize < 1) {
+			throw new IllegalArgumentException("limits must be positive");
+		}
+		this.parsers = Objects.requireNonNull(parsers);
+		ExecutorService virtual = newVirtualThreadExecutor();
+		this.virtualThreads = virtual != null;
+		this.executor = virtual != null ? virtual : Executors.newFixedThreadPool(parallelism, runnable -> {
+			Thread thread = new Thread(runnable, "redeggs-worker");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.maxPending = maxPending;
+		this.permits = new Semaphore(maxPending);
+		this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<RedeggsMatcher>> eldest) {
+				return size() > cacheSize;
+			}
+		};
+	}
+
+	/**
+	 * Creates an executor starting a virtual thread per task, or returns
+	 * {@code null} if the JDK does not support virtual threads.
+	 */
+	private static ExecutorService newVirtualThreadExecutor() {
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// before JDK 21, or with preview features disabled
+			return null;
+		}
+	}
+
+	/**
+	 * Checks whether jobs run on virtual threads.
+	 *
+	 * @return {@code true} if jobs run on virtual threads, {@code false} if they
+	 *         run on a fixed pool of platform threads
+	 */
+	public boolean usesVirtualThreads() {
+		return virtualThreads;
+	}
+
+	/**
+	 * Returns the number of submitted jobs that have not completed yet.
+	 *
+	 * @return the number of pending jobs
+	 */
+	public int pendingJobs() {
+		return maxPending - permits.availablePermits();
+	}
+
+	/**
+	 * Returns the number of cached patterns, including failed compilations.
+	 *
+	 * @return the number of cached patterns
+	 */
+	public int cachedPatterns() {
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+
+	/**
+	 * Returns the compiled matcher for a pattern, compiling it on first use.
+	 *
+	 * @param pattern the pattern to compile
+	 * @return the matcher, or a future failed with the
+	 *         {@link RedeggsParseException} rejecting the pattern or with an
+	 *         {@link IllegalArgumentException} if the pattern is longer than
+	 *         {@link #MAX_PATTERN_LENGTH}
+	 */
+	public CompletableFuture<RedeggsMatcher> compile(String pattern) {
+		if (pattern.length() > MAX_PATTERN_LENGTH) {
+			return CompletableFuture.failedFuture(new IllegalArgumentException(
+					"pattern of " + pattern.length() + " chars exceeds " + MAX_PATTERN_LENGTH));
+		}
+		CompletableFuture<RedeggsMatcher> compiled;
+		synchronized (cache) {
+			compiled = cache.get(pattern);
+			if (compiled != null) {
+				return compiled;
+			}
+			compiled = new CompletableFuture<>();
+			cache.put(pattern, compiled);
+		}
+		try {
+			compiled.complete(RedeggsMatcher.compile(parsers.get().parse(pattern)));
+		} catch (RedeggsParseException e) {
+			compiled.completeExceptionally(e);
+		} catch (Throwable e) {
+			// waiting jobs must not hang, and the failure may be transient
+			synchronized (cache) {
+				cache.remove(pattern, compiled);
+			}
+			compiled.completeExceptionally(e);
+		}
+		return compiled;
+	}
+
+	/**
+	 * Submits a job matching one input, blocking while {@code maxPending} jobs
+	 * are pending.
+	 *
+	 * @param pattern the pattern to match
+	 * @param input   the input to match
+	 * @return whether the pattern matches the whole input, or a future failed
+	 *         with the {@link RedeggsParseException} rejecting the pattern
+	 */
+	public CompletableFuture<Boolean> match(String pattern, CharSequence input) {
+		return run(() -> matcher(pattern).matches(input));
+	}
+
+	/**
+	 * Submits jobs matching several inputs against the same pattern, which is
+	 * compiled once. The inputs are split into chunks of {@value #BATCH_CHUNK},
+	 * which are matched in parallel and count as one pending job each.
+	 *
+	 * @param pattern the pattern to match
+	 * @param inputs  the inputs to match
+	 * @return for every input, whether the pattern matches it as a whole, or a
+	 *         future failed with the {@link RedeggsParseException} rejecting the
+	 *         pattern
+	 */
+	public CompletableFuture<boolean[]> matchBatch(String pattern, List<? extends CharSequence> inputs) {
+		boolean[] results = new boolean[inputs.size()];
+		int chunks = (inputs.size() + BATCH_CHUNK - 1) / BATCH_CHUNK;
+		CompletableFuture<?>[] parts = new CompletableFuture<?>[chunks];
+		for (int chunk = 0; chunk < chunks; chunk++) {
+			int from = chunk * BATCH_CHUNK;
+			int to = Math.min(inputs.size(), from + BATCH_CHUNK);
+			parts[chunk] = run(() -> {
+				RedeggsMatcher matcher = matcher(pattern);
+				for (int i = from; i < to; i++) {
+					results[i] = matcher.matches(inputs.get(i));
+				}
+				return null;
+			});
+		}
+		return CompletableFuture.allOf(parts).thenApply(done -> results);
+	}
+
+	/**
+	 * Returns a publisher matching the given jobs and emitting a result for
+	 * each, in the order of completion.
+	 * <p>
+	 * Every subscription iterates over {@code jobs} on a thread of its own,
+	 * which also delivers the results. It submits a job only for a result the
+	 * subscriber has requested and not received yet, and only while fewer than
+	 * {@code maxPending} jobs are pending. Workers merely queue the result of a
+	 * job, so a slow subscriber delays its own jobs but never holds a pending
+	 * job or a worker thread. The publisher completes after the result of the
+	 * last job, fails with the exception thrown by the iteration after the
+	 * results of the jobs submitted before, and stops iterating when the
+	 * subscription is cancelled.
+	 * </p>
+	 *
+	 * @param jobs the jobs to run
+	 * @return the publisher of the results
+	 */
+	public Flow.Publisher<Result> matchAll(Iterable<Job> jobs) {
+		return subscriber -> {
+			JobSubscription subscription = new JobSubscription(jobs.iterator(), subscriber);
+			subscriber.onSubscribe(subscription);
+			Thread feeder = new Thread(subscription, "redeggs-feeder");
+			feeder.setDaemon(true);
+			feeder.start();
+		};
+	}
+
+	/**
+	 * A subscription to the results of {@link #matchAll(Iterable)}, run by its
+	 * feeder thread. Each requested result is a credit for submitting one job.
+	 */
+	private final class JobSubscription implements Flow.Subscription, Runnable {
+
+		private final Iterator<Job> jobs;
+
+		private final Flow.Subscriber<? super Result> subscriber;
+
+		/** Results of completed jobs, queued by the workers. */
+		private final Queue<Result> results = new ConcurrentLinkedQueue<>();
+
+		/** Requested results no job has been submitted for. Guarded by this. */
+		private long credit;
+
+		/** Submitted jobs whose results were not delivered. Guarded by this. */
+		private int outstanding;
+
+		/** Guarded by this. */
+		private boolean cancelled;
+
+		/** An invalid request, signalled as an error. Guarded by this. */
+		private Throwable failure;
+
+		JobSubscription(Iterator<Job> jobs, Flow.Subscriber<? super Result> subscriber) {
+			this.jobs = jobs;
+			this.subscriber = subscriber;
+		}
+
+		@Override
+		public synchronized void request(long n) {
+			if (n <= 0) {
+				failure = new IllegalArgumentException("non-positive request " + n);
+			} else {
+				credit = credit + n < 0 ? Long.MAX_VALUE : credit + n;
+			}
+			notifyAll();
+		}
+
+		@Override
+		public synchronized void cancel() {
+			cancelled = true;
+			notifyAll();
+		}
+
+		private void completed(Result result) {
+			results.add(result);
+			synchronized (this) {
+				notifyAll();
+			}
+		}
+
+		@Override
+		public void run() {
+			boolean exhausted = false;
+			Throwable error = null;
+			try {
+				while (true) {
+					Result result;
+					while ((result = results.poll()) != null) {
+						synchronized (this) {
+							if (cancelled) {
+								return;
+							}
+							outstanding--;
+						}
+						subscriber.onNext(result);
+					}
+					synchronized (this) {
+						if (cancelled) {
+							return;
+						}
+						if (failure != null) {
+							error = failure;
+							break;
+						}
+						if (exhausted && outstanding == 0) {
+							break;
+						}
+						if (exhausted || credit == 0) {
+							if (results.isEmpty()) {
+								wait();
+							}
+							continue;
+						}
+					}
+					try {
+						if (!jobs.hasNext()) {
+							exhausted = true;
+							continue;
+						}
+						submit(jobs.next());
+					} catch (RuntimeException e) {
+						exhausted = true;
+						error = e;
+					}
+				}
+			} catch (InterruptedException e) {
+				error = e;
+			} catch (RuntimeException e) {
+				// a failing subscriber cancels its subscription
+				cancel();
+				return;
+			}
+			if (error == null) {
+				subscriber.onComplete();
+			} else {
+				subscriber.onError(error);
+			}
+		}
+
+		private void submit(Job job) {
+			synchronized (this) {
+				credit--;
+				outstanding++;
+			}
+			Task<Result> task = () -> new Result(job, matcher(job.pattern).matches(job.input), null);
+			RedeggsService.this.run(task, (result, error) -> {
+				if (error != null) {
+					Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+					result = new Result(job, false, cause);
+				}
+				completed(result);
+			});
+		}
+	}
+
+	private RedeggsMatcher matcher(String pattern) {
+		return compile(pattern).join();
+	}
+
+	@FunctionalInterface
+	private interface Task<T> {
+		T call() throws Exception;
+	}
+
+	private <T> CompletableFuture<T> run(Task<T> task) {
+		return run(task, null);
+	}
+
+	/**
+	 * Runs a task once a permit is available. The permit is released before the
+	 * completion callback runs on the worker, which must not block.
+	 */
+	private <T> CompletableFuture<T> run(Task<T> task, BiConsumer<T, Throwable> callback) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		try {
+			permits.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			future.completeExceptionally(e);
+			if (callback != null) {
+				callback.accept(null, e);
+			}
+			return future;
+		}
+		try {
+			executor.execute(() -> {
+				T result = null;
+				Throwable error = null;
+				try {
+					result = task.call();
+				} catch (Throwable e) {
+					error = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+				}
+				permits.release();
+				if (callback != null) {
+					callback.accept(result, error);
+				}
+				if (error == null) {
+					future.complete(result);
+				} else {
+					future.completeExceptionally(error);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			permits.release();
+			future.completeExceptionally(e);
+			if (callback != null) {
+				callback.accept(null, e);
+			}
+		}
+		return future;
+	}
+
+	/**
+	 * Stops accepting jobs and waits for the pending ones to complete.
+	 */
+	@Override
+	public void close() {
+		executor.shutdown();
+		boolean interrupted = false;
+		while (!executor.isTerminated()) {
+			try {
+				executor.awaitTermination(1, TimeUnit.DAYS);
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * A pattern and an input to match against it.
+	 */
+	public static final class Job {
+
+		private final String pattern;
+
+		private final CharSequence input;
+
+		/**
+		 * Creates a job.
+		 *
+		 * @param pattern the pattern to match
+		 * @param input   the input to match
+		 */
+		public Job(String pattern, CharSequence input) {
+			this.pattern = Objects.requireNonNull(pattern);
+			this.input = Objects.requireNonNull(input);
+		}
+
+		/**
+		 * Returns the pattern to match.
+		 *
+		 * @return the pattern
+		 */
+		public String pattern() {
+			return pattern;
+		}
+
+		/**
+		 * Returns the input to match.
+		 *
+		 * @return the input
+		 */
+		public CharSequence input() {
+			return input;
+		}
+	}
+
+	/**
+	 * The outcome of a {@link Job}.
+	 */
+	public static final class Result {
+
+		private final Job job;
+
+		private final boolean matched;
+
+		private final Throwable error;
+
+		Result(Job job, boolean matched, Throwable error) {
+			this.job = job;
+			this.matched = matched;
+			this.error = error;
+		}
+
+		/**
+		 * Returns the job this is the outcome of.
+		 *
+		 * @return the job
+		 */
+		public Job job() {
+			return job;
+		}
+
+		/**
+		 * Checks whether the pattern matches the whole input.
+		 *
+		 * @return {@code true} if the job succeeded and the input matches
+		 */
+		public boolean matched() {
+			return matched;
+		}
+
+		/**
+		 * Returns the error that prevented matching, typically a
+		 * {@link RedeggsParseException} for an invalid pattern.
+		 *
+		 * @return the error, or {@code null} if the job succeeded
+		 */
+		public Throwable error() {
+			return error;
+		}
+	}
+
+}
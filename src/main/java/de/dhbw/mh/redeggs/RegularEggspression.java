@@ -7,6 +7,35 @@ package de.dhbw.mh.redeggs;
  */
 public abstract class RegularEggspression {
 
+	/**
+	 * The number of chars this node was parsed from, excluding the parentheses
+	 * directly enclosing it, or {@code -1} if the node was not created by a
+	 * parser. Used for incremental re-parsing.
+	 */
+	int sourceLength = -1;
+
+	/**
+	 * The number of parenthesis pairs directly enclosing this node in the text it
+	 * was parsed from.
+	 */
+	int groupDepth;
+
+	/**
+	 * The number of nodes of this node's subtree after expanding all
+	 * repetitions, see {@link Repetition#expand()}, saturating at
+	 * {@link Integer#MAX_VALUE}. Maintained by the parser to reject patterns
+	 * whose nested repetitions multiply to an excessive size.
+	 */
+	int expandedSize = 1;
+
+	/**
+	 * Returns the number of chars this node spans in its source text, including
+	 * the parentheses directly enclosing it.
+	 */
+	int sourceSpan() {
+		return sourceLength + 2 * groupDepth;
+	}
+
 	/**
 	 * A visitor interface for traversing and processing different types of regular
 	 * expression nodes.
@@ -60,6 +89,31 @@ public abstract class RegularEggspression {
 			return visitPost(literal, literal.symbol);
 		}
 
+		/**
+		 * Visits a capture group node. By default, capture groups are transparent:
+		 * the result of the base is passed to
+		 * {@link #visitPost(RegularEggspression.Group, Object)}.
+		 *
+		 * @param group the capture group node to visit
+		 * @return the result of visiting the node
+		 */
+		public default T visit(RegularEggspression.Group group) {
+			T base = group.base.accept(this);
+			return visitPost(group, base);
+		}
+
+		/**
+		 * Visits a counted repetition node. By default, the repetition is replaced
+		 * by its {@link RegularEggspression.Repetition#expand() expansion}, so
+		 * visitors only need to handle the basic operators.
+		 *
+		 * @param repetition the repetition node to visit
+		 * @return the result of visiting the node
+		 */
+		public default T visit(RegularEggspression.Repetition repetition) {
+			return repetition.expand().accept(this);
+		}
+
 		/**
 		 * Visits an empty word node.
 		 *
@@ -76,6 +130,17 @@ public abstract class RegularEggspression {
 		 */
 		public T visit(RegularEggspression.EmptySet concat);
 
+		/**
+		 * Visits an invalid node produced by error recovery. By default, invalid
+		 * nodes are treated like the empty set.
+		 *
+		 * @param invalid the invalid node to visit
+		 * @return the result of visiting the node
+		 */
+		public default T visit(RegularEggspression.Invalid invalid) {
+			return visit((RegularEggspression.EmptySet) invalid);
+		}
+
 		/**
 		 * Post-visit processing for concatenation nodes.
 		 *
@@ -113,6 +178,18 @@ public abstract class RegularEggspression {
 		 * @return the result of post-processing
 		 */
 		public T visitPost(RegularEggspression.Literal literal, VirtualSymbol symbol);
+
+		/**
+		 * Post-visit processing for capture group nodes. By default, the result of
+		 * the base is returned unchanged.
+		 *
+		 * @param group the capture group node
+		 * @param base  the result of visiting the grouped expression
+		 * @return the result of post-processing
+		 */
+		public default T visitPost(RegularEggspression.Group group, T base) {
+			return base;
+		}
 	}
 
 	/**
@@ -124,6 +201,17 @@ public abstract class RegularEggspression {
 	 */
 	public abstract <T> T accept(RegularEggspression.Visitor<T> visitor);
 
+	/**
+	 * Returns the fully parenthesized notation of this expression, see
+	 * {@link RedeggsSerializer}.
+	 *
+	 * @return the notation of this expression
+	 */
+	@Override
+	public String toString() {
+		return RedeggsSerializer.toString(this);
+	}
+
 	/**
 	 * Represents a concatenation of two regular expressions.
 	 */
@@ -142,14 +230,27 @@ public abstract class RegularEggspression {
 			this.right = right;
 		}
 
-		@Override
-		public <T> T accept(Visitor<T> visitor) {
-			return visitor.visit(this);
+		/**
+		 * Returns the left operand of this concatenation.
+		 *
+		 * @return the left operand
+		 */
+		public RegularEggspression left() {
+			return left;
+		}
+
+		/**
+		 * Returns the right operand of this concatenation.
+		 *
+		 * @return the right operand
+		 */
+		public RegularEggspression right() {
+			return right;
 		}
 
 		@Override
-		public String toString() {
-			return String.format("(%s%s)", left, right);
+		public <T> T accept(Visitor<T> visitor) {
+			return visitor.visit(this);
 		}
 	}
 
@@ -171,14 +272,27 @@ public abstract class RegularEggspression {
 			this.right = right;
 		}
 
-		@Override
-		public <T> T accept(Visitor<T> visitor) {
-			return visitor.visit(this);
+		/**
+		 * Returns the left operand of this alternation.
+		 *
+		 * @return the left operand
+		 */
+		public RegularEggspression left() {
+			return left;
+		}
+
+		/**
+		 * Returns the right operand of this alternation.
+		 *
+		 * @return the right operand
+		 */
+		public RegularEggspression right() {
+			return right;
 		}
 
 		@Override
-		public String toString() {
-			return String.format("(%s|%s)", left, right);
+		public <T> T accept(Visitor<T> visitor) {
+			return visitor.visit(this);
 		}
 	}
 
@@ -198,14 +312,196 @@ public abstract class RegularEggspression {
 			this.base = base;
 		}
 
+		/**
+		 * Returns the repeated expression.
+		 *
+		 * @return the base of this star
+		 */
+		public RegularEggspression base() {
+			return base;
+		}
+
 		@Override
 		public <T> T accept(Visitor<T> visitor) {
 			return visitor.visit(this);
 		}
+	}
+
+	/**
+	 * Represents a counted repetition {@code base{min,max}} of a regular
+	 * expression, which also covers {@code base+} ({@code {1,}}) and
+	 * {@code base?} ({@code {0,1}}).
+	 * <p>
+	 * The node stores its base once, no matter how large the bounds are.
+	 * Engines that cannot count expand it on demand, see {@link #expand()}.
+	 * </p>
+	 */
+	public static class Repetition extends RegularEggspression {
+		/**
+		 * The upper bound of a repetition without limit.
+		 */
+		public static final int UNBOUNDED = -1;
+
+		private final RegularEggspression base;
+		private final int min;
+		private final int max;
+
+		/**
+		 * Constructs a new repetition.
+		 *
+		 * @param base the regular expression to repeat
+		 * @param min  the minimum number of repetitions
+		 * @param max  the maximum number of repetitions, or {@link #UNBOUNDED}
+		 * @throws IllegalArgumentException if {@code min} is negative or greater
+		 *                                  than a bounded {@code max}
+		 */
+		public Repetition(RegularEggspression base, int min, int max) {
+			super();
+			if (min < 0 || (max != UNBOUNDED && max < min)) {
+				throw new IllegalArgumentException("invalid repetition bounds {" + min + "," + max + "}");
+			}
+			this.base = base;
+			this.min = min;
+			this.max = max;
+		}
+
+		/**
+		 * Returns the repeated expression.
+		 *
+		 * @return the base of this repetition
+		 */
+		public RegularEggspression base() {
+			return base;
+		}
+
+		/**
+		 * Returns the minimum number of repetitions.
+		 *
+		 * @return the lower bound
+		 */
+		public int min() {
+			return min;
+		}
+
+		/**
+		 * Returns the maximum number of repetitions.
+		 *
+		 * @return the upper bound, or {@link #UNBOUNDED}
+		 */
+		public int max() {
+			return max;
+		}
+
+		/**
+		 * Returns the operator of this repetition as written in a pattern, i.e.
+		 * {@code +}, {@code ?}, {@code {m}}, {@code {m,}} or {@code {m,n}}.
+		 *
+		 * @return the quantifier
+		 */
+		public String quantifier() {
+			if (max == UNBOUNDED) {
+				return min == 1 ? "+" : "{" + min + ",}";
+			}
+			if (min == 0 && max == 1) {
+				return "?";
+			}
+			return min == max ? "{" + min + "}" : "{" + min + "," + max + "}";
+		}
+
+		/**
+		 * Rewrites this repetition with the basic operators.
+		 * <p>
+		 * {@code b{m,n}} becomes {@code b^m (b|ε)^(n-m)} and {@code b{m,}} becomes
+		 * {@code b^m b*}. Powers are built by repeated squaring from nodes that
+		 * share their children, so the expansion consists of {@code O(log n)} new
+		 * nodes and is only {@code O(log n)} levels deeper than the base, while
+		 * visitors that do not memoize still see {@code n} copies of the base.
+		 * </p>
+		 *
+		 * @return an equivalent expression without this node
+		 */
+		public RegularEggspression expand() {
+			RegularEggspression required = power(base, min);
+			RegularEggspression optional = null;
+			if (max == UNBOUNDED) {
+				optional = new Star(base);
+			} else if (max > min) {
+				optional = power(new Alternation(base, new EmptyWord()), max - min);
+			}
+			if (required == null) {
+				return optional == null ? new EmptyWord() : optional;
+			}
+			return optional == null ? required : new Concatenation(required, optional);
+		}
+
+		/**
+		 * Concatenates {@code n} occurrences of {@code node} by repeated squaring,
+		 * or returns {@code null} for {@code n == 0}.
+		 */
+		private static RegularEggspression power(RegularEggspression node, int n) {
+			RegularEggspression result = null;
+			RegularEggspression square = node;
+			while (n > 0) {
+				if ((n & 1) != 0) {
+					result = result == null ? square : new Concatenation(result, square);
+				}
+				n >>>= 1;
+				if (n > 0) {
+					square = new Concatenation(square, square);
+				}
+			}
+			return result;
+		}
 
 		@Override
-		public String toString() {
-			return String.format("(%s)*", base);
+		public <T> T accept(Visitor<T> visitor) {
+			return visitor.visit(this);
+		}
+	}
+
+	/**
+	 * Represents a capture group {@code (...)}, whose match boundaries are
+	 * reported by matching engines supporting submatch extraction.
+	 */
+	public static class Group extends RegularEggspression {
+		private final int index;
+		private final RegularEggspression base;
+
+		/**
+		 * Constructs a new capture group.
+		 *
+		 * @param index the number of the group, counting opening parentheses from
+		 *              {@code 1}
+		 * @param base  the grouped expression
+		 */
+		public Group(int index, RegularEggspression base) {
+			super();
+			this.index = index;
+			this.base = base;
+		}
+
+		/**
+		 * Returns the number of this group, counting opening parentheses from
+		 * {@code 1}.
+		 *
+		 * @return the index of this group
+		 */
+		public int index() {
+			return index;
+		}
+
+		/**
+		 * Returns the grouped expression.
+		 *
+		 * @return the base of this group
+		 */
+		public RegularEggspression base() {
+			return base;
+		}
+
+		@Override
+		public <T> T accept(Visitor<T> visitor) {
+			return visitor.visit(this);
 		}
 	}
 
@@ -225,14 +521,18 @@ public abstract class RegularEggspression {
 			this.symbol = virtualSymbol;
 		}
 
-		@Override
-		public <T> T accept(Visitor<T> visitor) {
-			return visitor.visit(this);
+		/**
+		 * Returns the symbol matched by this literal.
+		 *
+		 * @return the virtual symbol of this literal
+		 */
+		public VirtualSymbol symbol() {
+			return symbol;
 		}
 
 		@Override
-		public String toString() {
-			return String.format("%s", symbol);
+		public <T> T accept(Visitor<T> visitor) {
+			return visitor.visit(this);
 		}
 	}
 
@@ -264,4 +564,37 @@ public abstract class RegularEggspression {
 		}
 	}
 
+	/**
+	 * Represents a region of the input that could not be parsed. It is only
+	 * created by {@link RecursiveDescentRedeggsParser#parseWithRecovery(String)}
+	 * and, like the empty set, matches nothing.
+	 */
+	public static class Invalid extends EmptySet {
+		private final RedeggsDiagnostic diagnostic;
+
+		/**
+		 * Constructs a new invalid node.
+		 *
+		 * @param diagnostic the problem that caused this node
+		 */
+		public Invalid(RedeggsDiagnostic diagnostic) {
+			super();
+			this.diagnostic = diagnostic;
+		}
+
+		/**
+		 * Returns the problem that caused this node.
+		 *
+		 * @return the diagnostic of this node
+		 */
+		public RedeggsDiagnostic diagnostic() {
+			return diagnostic;
+		}
+
+		@Override
+		public <T> T accept(Visitor<T> visitor) {
+			return visitor.visit(this);
+		}
+	}
+
 }
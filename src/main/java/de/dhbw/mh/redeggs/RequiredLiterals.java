@@ -0,0 +1,233 @@
+package de.dhbw.mh.redeggs;
+
+import de.dhbw.mh.redeggs.RegularEggspression.Alternation;
+import de.dhbw.mh.redeggs.RegularEggspression.Concatenation;
+import de.dhbw.mh.redeggs.RegularEggspression.Literal;
+import de.dhbw.mh.redeggs.RegularEggspression.Star;
+
+/**
+ * The literal strings every match of a regular expression must contain.
+ * <p>
+ * For {@code ERROR[0-9]*timeout}, every match starts with {@code ERROR} (the
+ * required prefix), ends with {@code timeout} (the required suffix), and
+ * {@code timeout} is its longest required factor. Such literals can be searched
+ * for with a fast substring search before running the full matcher, see
+ * {@link LiteralPrefilter}.
+ * </p>
+ * <p>
+ * Only literals whose symbol consists of a single code point contribute to
+ * required strings. Factors are limited to {@value #MAX_LENGTH} chars, which
+ * keeps the analysis linear in the size of the expression.
+ * </p>
+ */
+public final class RequiredLiterals {
+
+	/**
+	 * The maximum length of the extracted literals in chars.
+	 */
+	public static final int MAX_LENGTH = 64;
+
+	private final String prefix;
+
+	private final String suffix;
+
+	private final String factor;
+
+	private RequiredLiterals(Info info) {
+		this.prefix = info.prefix;
+		this.suffix = info.suffix;
+		String longest = info.inner;
+		if (info.prefix.length() > longest.length()) {
+			longest = info.prefix;
+		}
+		if (info.suffix.length() > longest.length()) {
+			longest = info.suffix;
+		}
+		this.factor = longest;
+	}
+
+	/**
+	 * Computes the required literals of the given expression.
+	 *
+	 * @param expression the expression to analyze
+	 * @return the required literals of {@code expression}
+	 */
+	public static RequiredLiterals of(RegularEggspression expression) {
+		return new RequiredLiterals(expression.accept(new MemoizingVisitor<>(new Analysis())));
+	}
+
+	/**
+	 * Returns a string every match starts with.
+	 *
+	 * @return the required prefix, possibly empty
+	 */
+	public String prefix() {
+		return prefix;
+	}
+
+	/**
+	 * Returns a string every match ends with.
+	 *
+	 * @return the required suffix, possibly empty
+	 */
+	public String suffix() {
+		return suffix;
+	}
+
+	/**
+	 * Returns the longest known string every match contains.
+	 *
+	 * @return the longest required factor, possibly empty
+	 */
+	public String factor() {
+		return factor;
+	}
+
+	/**
+	 * Checks whether no required literal is known.
+	 *
+	 * @return {@code true} if every required literal is empty
+	 */
+	public boolean isEmpty() {
+		return factor.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("prefix=\"%s\", suffix=\"%s\", factor=\"%s\"", prefix, suffix, factor);
+	}
+
+	/**
+	 * The literal information of a subexpression. If {@code exact} is not
+	 * {@code null}, the subexpression matches exactly this string.
+	 */
+	private static final class Info {
+		static final Info NONE = new Info(null, "", "", "");
+		static final Info EMPTY = new Info("", "", "", "");
+
+		final String exact;
+		final String prefix;
+		final String suffix;
+		final String inner;
+
+		Info(String exact, String prefix, String suffix, String inner) {
+			this.exact = exact;
+			this.prefix = prefix;
+			this.suffix = suffix;
+			this.inner = inner;
+		}
+
+		static Info exactly(String string) {
+			if (string.length() <= MAX_LENGTH) {
+				return new Info(string, string, string, string);
+			}
+			String head = head(string);
+			return new Info(null, head, tail(string), head);
+		}
+	}
+
+	private static String head(String string) {
+		if (string.length() <= MAX_LENGTH) {
+			return string;
+		}
+		int end = MAX_LENGTH;
+		if (splitsSurrogatePair(string, end)) {
+			end--;
+		}
+		return string.substring(0, end);
+	}
+
+	private static String tail(String string) {
+		if (string.length() <= MAX_LENGTH) {
+			return string;
+		}
+		int start = string.length() - MAX_LENGTH;
+		if (splitsSurrogatePair(string, start)) {
+			start++;
+		}
+		return string.substring(start);
+	}
+
+	/**
+	 * Checks whether cutting {@code string} at {@code index} would separate a
+	 * high surrogate from its low surrogate.
+	 */
+	private static boolean splitsSurrogatePair(String string, int index) {
+		return index > 0 && index < string.length() && Character.isHighSurrogate(string.charAt(index - 1))
+				&& Character.isLowSurrogate(string.charAt(index));
+	}
+
+	private static String longest(String a, String b) {
+		return b.length() > a.length() ? b : a;
+	}
+
+	/**
+	 * Computes the literal information bottom-up.
+	 */
+	private static final class Analysis implements RegularEggspression.Visitor<Info> {
+
+		@Override
+		public Info visit(RegularEggspression.EmptyWord emptyWord) {
+			return Info.EMPTY;
+		}
+
+		@Override
+		public Info visit(RegularEggspression.EmptySet emptySet) {
+			return Info.NONE;
+		}
+
+		@Override
+		public Info visitPost(Concatenation concat, Info left, Info right) {
+			if (left.exact != null && right.exact != null) {
+				return Info.exactly(left.exact + right.exact);
+			}
+			String prefix = left.exact != null ? head(left.exact + right.prefix) : left.prefix;
+			String suffix = right.exact != null ? tail(left.suffix + right.exact) : right.suffix;
+			String inner = longest(longest(left.inner, right.inner), head(left.suffix + right.prefix));
+			return new Info(null, prefix, suffix, longest(inner, longest(prefix, suffix)));
+		}
+
+		@Override
+		public Info visitPost(Alternation union, Info left, Info right) {
+			if (left.exact != null && left.exact.equals(right.exact)) {
+				return left;
+			}
+			int common = 0;
+			int max = Math.min(left.prefix.length(), right.prefix.length());
+			while (common < max && left.prefix.charAt(common) == right.prefix.charAt(common)) {
+				common++;
+			}
+			if (splitsSurrogatePair(left.prefix, common)) {
+				common--;
+			}
+			String prefix = left.prefix.substring(0, common);
+			common = 0;
+			max = Math.min(left.suffix.length(), right.suffix.length());
+			while (common < max && left.suffix.charAt(left.suffix.length() - 1 - common) == right.suffix
+					.charAt(right.suffix.length() - 1 - common)) {
+				common++;
+			}
+			if (splitsSurrogatePair(left.suffix, left.suffix.length() - common)) {
+				common--;
+			}
+			String suffix = left.suffix.substring(left.suffix.length() - common);
+			return new Info(null, prefix, suffix, longest(prefix, suffix));
+		}
+
+		@Override
+		public Info visitPost(Star star, Info base) {
+			return base.exact != null && base.exact.isEmpty() ? Info.EMPTY : Info.NONE;
+		}
+
+		@Override
+		public Info visitPost(Literal literal, VirtualSymbol symbol) {
+			int codePoint = RangeSymbol.of(symbol).singleCodePoint();
+			if (codePoint < 0) {
+				return Info.NONE;
+			}
+			return Info.exactly(new String(Character.toChars(codePoint)));
+		}
+
+	}
+
+}
@@ -0,0 +1,101 @@
+package de.dhbw.mh.redeggs;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A set of rules that are matched against the same inputs, e.g. the patterns
+ * of a log filter.
+ * <p>
+ * An {@link AhoCorasickPrefilter} scans each input once and selects the rules
+ * whose required literal occurs in it; only those, and the rules without a
+ * required literal, are run with their {@link RedeggsMatcher}.
+ * </p>
+ * <p>
+ * A rule set created with a {@link MatchProfiler} reports every rule selected
+ * by its literal as a prefilter hit, and hits whose matcher finds no match as
+ * false positives. Instances are immutable and may be shared between threads.
+ * </p>
+ */
+public final class RuleSet {
+
+	private final AhoCorasickPrefilter prefilter;
+
+	private final RedeggsMatcher[] matchers;
+
+	private final MatchProfiler profiler;
+
+	private RuleSet(List<? extends RegularEggspression> rules, MatchProfiler profiler) {
+		this.prefilter = AhoCorasickPrefilter.of(rules);
+		this.matchers = new RedeggsMatcher[rules.size()];
+		for (int rule = 0; rule < matchers.length; rule++) {
+			matchers[rule] = RedeggsMatcher.compile(rules.get(rule));
+		}
+		this.profiler = profiler;
+	}
+
+	/**
+	 * Compiles the given rules.
+	 *
+	 * @param rules the rules, identified by their index in the list
+	 * @return the rule set
+	 * @throws IllegalArgumentException if a symbol does not expose its code point
+	 *                                  ranges
+	 */
+	public static RuleSet compile(List<? extends RegularEggspression> rules) {
+		return new RuleSet(rules, null);
+	}
+
+	/**
+	 * Compiles the given rules into a profiling rule set.
+	 *
+	 * @param rules    the rules, identified by their index in the list
+	 * @param profiler receives the prefilter counters, or {@code null} to disable
+	 *                 profiling
+	 * @return the rule set
+	 * @throws IllegalArgumentException if a symbol does not expose its code point
+	 *                                  ranges
+	 */
+	public static RuleSet compile(List<? extends RegularEggspression> rules, MatchProfiler profiler) {
+		return new RuleSet(rules, profiler);
+	}
+
+	/**
+	 * Returns the number of rules.
+	 *
+	 * @return the number of rules
+	 */
+	public int ruleCount() {
+		return matchers.length;
+	}
+
+	/**
+	 * Returns the prefilter selecting the rules to run.
+	 *
+	 * @return the prefilter
+	 */
+	public AhoCorasickPrefilter prefilter() {
+		return prefilter;
+	}
+
+	/**
+	 * Returns the rules finding a match in the given input.
+	 *
+	 * @param input the input to search
+	 * @return the indices of all rules matching some part of {@code input}
+	 */
+	public BitSet matchingRules(CharSequence input) {
+		BitSet rules = prefilter.scan(input);
+		for (int rule = rules.nextSetBit(0); rule >= 0; rule = rules.nextSetBit(rule + 1)) {
+			boolean found = matchers[rule].find(input);
+			if (!found) {
+				rules.clear(rule);
+			}
+			if (profiler != null && !prefilter.literal(rule).isEmpty()) {
+				profiler.prefilterHit(rule, found);
+			}
+		}
+		return rules;
+	}
+
+}
@@ -0,0 +1,113 @@
+package de.dhbw.mh.redeggs;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * A lock-free pool of mutable scratch objects, such as the state sets and
+ * thread lists an engine needs while matching.
+ * <p>
+ * Compiled engines are immutable and shared by any number of threads; each
+ * match {@link #acquire() acquires} scratch space for its duration and
+ * {@link #release(Object) releases} it afterwards. Unlike a
+ * {@link ThreadLocal}, the pool holds scratch objects for the matches running
+ * at the same time only, not for every thread that ever matched, which keeps
+ * memory bounded with many short-lived threads.
+ * </p>
+ * <p>
+ * Idle objects are kept in a fixed array of slots. A thread starts probing at
+ * a slot derived from its id, so it usually gets back the object it released
+ * last, and takes or returns an object with a single compare-and-set. If all
+ * slots are empty, a new object is created; if all slots are taken, a
+ * released object is left to the garbage collector. Neither blocks.
+ * </p>
+ *
+ * @param <T> the type of the scratch objects
+ */
+public final class ScratchPool<T> {
+
+	private final Supplier<? extends T> factory;
+
+	private final AtomicReferenceArray<T> slots;
+
+	private final int mask;
+
+	/**
+	 * Creates a pool with a slot count suited to the number of processors.
+	 *
+	 * @param factory creates new scratch objects
+	 */
+	public ScratchPool(Supplier<? extends T> factory) {
+		this(factory, 4 * Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a pool.
+	 *
+	 * @param factory  creates new scratch objects
+	 * @param capacity the minimum number of idle objects kept, rounded up to a
+	 *                 power of two
+	 */
+	public ScratchPool(Supplier<? extends T> factory, int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be positive: " + capacity);
+		}
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity) {
+			size <<= 1;
+		}
+		this.factory = factory;
+		this.slots = new AtomicReferenceArray<>(size);
+		this.mask = size - 1;
+	}
+
+	/**
+	 * Returns the number of slots for idle objects.
+	 *
+	 * @return the capacity of this pool
+	 */
+	public int capacity() {
+		return mask + 1;
+	}
+
+	/**
+	 * Takes an idle scratch object from the pool, or creates a new one.
+	 *
+	 * @return a scratch object owned by the caller until it is released
+	 */
+	public T acquire() {
+		int start = home();
+		for (int i = 0; i <= mask; i++) {
+			int slot = (start + i) & mask;
+			T item = slots.get(slot);
+			if (item != null && slots.compareAndSet(slot, item, null)) {
+				return item;
+			}
+		}
+		return factory.get();
+	}
+
+	/**
+	 * Returns a scratch object to the pool. The caller must not use it
+	 * afterwards.
+	 *
+	 * @param item the scratch object obtained from {@link #acquire()}
+	 */
+	public void release(T item) {
+		int start = home();
+		for (int i = 0; i <= mask; i++) {
+			int slot = (start + i) & mask;
+			if (slots.get(slot) == null && slots.compareAndSet(slot, null, item)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Spreads thread ids over the slots.
+	 */
+	private static int home() {
+		return (int) ((Thread.currentThread().getId() * 0x9E3779B97F4A7C15L) >>> 32);
+	}
+
+}
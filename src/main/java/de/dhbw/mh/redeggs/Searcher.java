@@ -0,0 +1,331 @@
+package de.dhbw.mh.redeggs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import de.dhbw.mh.redeggs.RegularEggspression.Alternation;
+import de.dhbw.mh.redeggs.RegularEggspression.Concatenation;
+import de.dhbw.mh.redeggs.RegularEggspression.Literal;
+import de.dhbw.mh.redeggs.RegularEggspression.Star;
+
+/**
+ * Finds all non-overlapping leftmost-longest matches of one or more rules.
+ * <p>
+ * A forward DFA knows where a match ends, but not where it started. The
+ * searcher therefore compiles two DFAs: an unanchored DFA for the reversed
+ * rules, {@code Σ*(rev(R1)|...|rev(Rn))}, and an anchored DFA for the rules
+ * themselves. A single right-to-left pass of the reversed DFA over the input
+ * accepts exactly at the indices where some match starts. The forward DFA
+ * then runs from the leftmost remaining start and reports its longest match;
+ * the search continues at the match's end.
+ * </p>
+ * <p>
+ * The reverse pass is linear in the input. A forward run may read past the end
+ * of its match before the DFA dies, e.g. {@code a|a*b} on a long run of
+ * {@code a}s reads to the end of the run. The (state, index) pairs visited
+ * after a run's last accepting state are therefore remembered as failed, and
+ * later runs stop as soon as they reach such a pair (Reps, "Maximal-munch
+ * tokenization in linear time"). Every pair fails at most once, so all
+ * forward runs together take time linear in the input for a fixed DFA.
+ * </p>
+ * <p>
+ * When several rules match the longest span, the rule with the lowest index is
+ * reported. Empty matches are reported, and the search then continues one
+ * code point further.
+ * </p>
+ */
+public final class Searcher {
+
+	private final Dfa forward;
+
+	private final Dfa reverse;
+
+	private final ScratchPool<Scratch> scratch = new ScratchPool<>(Scratch::new);
+
+	private Searcher(Dfa forward, Dfa reverse) {
+		this.forward = forward;
+		this.reverse = reverse;
+	}
+
+	/**
+	 * Compiles a single rule.
+	 *
+	 * @param rule the rule to search for
+	 * @return the searcher
+	 * @throws IllegalArgumentException if a symbol does not expose its code point
+	 *                                  ranges
+	 * @throws IllegalStateException    if a DFA needs more than
+	 *                                  {@value DfaCompiler#DEFAULT_MAX_STATES}
+	 *                                  states
+	 */
+	public static Searcher compile(RegularEggspression rule) {
+		return compile(List.of(rule));
+	}
+
+	/**
+	 * Compiles a list of rules.
+	 *
+	 * @param rules the rules to search for
+	 * @return the searcher
+	 * @throws IllegalArgumentException if a symbol does not expose its code point
+	 *                                  ranges
+	 * @throws IllegalStateException    if a DFA needs more than
+	 *                                  {@value DfaCompiler#DEFAULT_MAX_STATES}
+	 *                                  states
+	 */
+	public static Searcher compile(List<? extends RegularEggspression> rules) {
+		List<RegularEggspression> reversed = new ArrayList<>();
+		for (RegularEggspression rule : rules) {
+			reversed.add(reverse(rule));
+		}
+		return new Searcher(DfaCompiler.compile(rules, DfaCompiler.DEFAULT_MAX_STATES, false),
+				DfaCompiler.compile(reversed, DfaCompiler.DEFAULT_MAX_STATES, true));
+	}
+
+	/**
+	 * Returns an expression matching the reversed words of the given one.
+	 * Capture groups are dropped.
+	 *
+	 * @param expression the expression to reverse
+	 * @return the reversed expression
+	 */
+	static RegularEggspression reverse(RegularEggspression expression) {
+		return expression.accept(new MemoizingVisitor<>(new Reverser()));
+	}
+
+	/**
+	 * Finds all non-overlapping matches from left to right.
+	 *
+	 * @param input the input to search
+	 * @return the matches in order
+	 */
+	public List<Match> findAll(CharSequence input) {
+		List<Match> matches = new ArrayList<>();
+		findAll(input, (start, end, rule) -> matches.add(new Match(start, end, rule)));
+		return matches;
+	}
+
+	/**
+	 * Finds all non-overlapping matches from left to right and passes them to
+	 * the given sink. Apart from growing pooled scratch space for larger inputs,
+	 * this does not allocate.
+	 *
+	 * @param input the input to search
+	 * @param sink  receives the matches in order
+	 * @return the number of matches
+	 */
+	public int findAll(CharSequence input, MatchSink sink) {
+		Scratch s = scratch.acquire();
+		try {
+			matchStarts(input, s.starts);
+			s.failed.clear();
+			return findAll(input, s, sink);
+		} finally {
+			scratch.release(s);
+		}
+	}
+
+	private int findAll(CharSequence input, Scratch s, MatchSink sink) {
+		BitSet starts = s.starts;
+		PairSet failed = s.failed;
+		int length = input.length();
+		int count = 0;
+		for (int from = starts.nextSetBit(0); from >= 0; from = starts.nextSetBit(from)) {
+			int state = Dfa.START;
+			int end = from;
+			int rule = forward.acceptLabel(state);
+			// the pairs visited since the last accepting state
+			s.trailSize = 0;
+			for (int i = from; i < length;) {
+				int codePoint = Character.codePointAt(input, i);
+				i += Character.charCount(codePoint);
+				state = forward.next(state, forward.classOf(codePoint));
+				if (state == Dfa.DEAD || failed.contains(state, i)) {
+					break;
+				}
+				int label = forward.acceptLabel(state);
+				if (label != Dfa.NO_RULE) {
+					end = i;
+					rule = label;
+					s.trailSize = 0;
+				} else {
+					s.addTrail(state, i);
+				}
+			}
+			// no accepting state is reachable from any pair of the trail
+			for (int t = 0; t < s.trailSize; t++) {
+				failed.add(s.trailStates[t], s.trailIndices[t]);
+			}
+			sink.match(from, end, rule);
+			count++;
+			if (end > from) {
+				from = end;
+			} else if (from < length) {
+				from += Character.charCount(Character.codePointAt(input, from));
+			} else {
+				break;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Runs the reversed DFA from right to left and marks every index at which a
+	 * match starts.
+	 */
+	private void matchStarts(CharSequence input, BitSet starts) {
+		starts.clear();
+		int state = Dfa.START;
+		if (reverse.acceptLabel(state) != Dfa.NO_RULE) {
+			starts.set(input.length());
+		}
+		for (int i = input.length(); i > 0;) {
+			int codePoint = Character.codePointBefore(input, i);
+			i -= Character.charCount(codePoint);
+			state = reverse.next(state, reverse.classOf(codePoint));
+			if (reverse.acceptLabel(state) != Dfa.NO_RULE) {
+				starts.set(i);
+			}
+		}
+	}
+
+	/**
+	 * The mutable state of a single search.
+	 */
+	private static final class Scratch {
+		final BitSet starts = new BitSet();
+		final PairSet failed = new PairSet();
+		int[] trailStates = new int[16];
+		int[] trailIndices = new int[16];
+		int trailSize;
+
+		void addTrail(int state, int index) {
+			if (trailSize == trailStates.length) {
+				trailStates = Arrays.copyOf(trailStates, 2 * trailSize);
+				trailIndices = Arrays.copyOf(trailIndices, 2 * trailSize);
+			}
+			trailStates[trailSize] = state;
+			trailIndices[trailSize++] = index;
+		}
+	}
+
+	/**
+	 * An open-addressing hash set of (state, index) pairs. Slots are tagged with
+	 * the generation they were written in, so clearing takes constant time.
+	 */
+	private static final class PairSet {
+		long[] keys = new long[64];
+		int[] generations = new int[64];
+		int generation = 1;
+		int size;
+
+		void clear() {
+			size = 0;
+			if (++generation == 0) {
+				Arrays.fill(generations, 0);
+				generation = 1;
+			}
+		}
+
+		boolean contains(int state, int index) {
+			if (size == 0) {
+				return false;
+			}
+			long key = key(state, index);
+			int mask = keys.length - 1;
+			for (int slot = slot(key, mask); generations[slot] == generation; slot = (slot + 1) & mask) {
+				if (keys[slot] == key) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		void add(int state, int index) {
+			if (2 * (size + 1) > keys.length) {
+				grow();
+			}
+			insert(key(state, index));
+		}
+
+		private void insert(long key) {
+			int mask = keys.length - 1;
+			int slot = slot(key, mask);
+			while (generations[slot] == generation) {
+				if (keys[slot] == key) {
+					return;
+				}
+				slot = (slot + 1) & mask;
+			}
+			keys[slot] = key;
+			generations[slot] = generation;
+			size++;
+		}
+
+		private void grow() {
+			long[] oldKeys = keys;
+			int[] oldGenerations = generations;
+			int oldGeneration = generation;
+			keys = new long[2 * oldKeys.length];
+			generations = new int[2 * oldKeys.length];
+			generation = 1;
+			size = 0;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldGenerations[i] == oldGeneration) {
+					insert(oldKeys[i]);
+				}
+			}
+		}
+
+		private static long key(int state, int index) {
+			return ((long) index << 32) | state;
+		}
+
+		private static int slot(long key, int mask) {
+			long hash = key * 0x9E3779B97F4A7C15L;
+			return (int) (hash >>> 32) & mask;
+		}
+	}
+
+	/**
+	 * Reverses an expression bottom-up, reusing leaves.
+	 */
+	private static final class Reverser implements RegularEggspression.Visitor<RegularEggspression> {
+
+		@Override
+		public RegularEggspression visit(RegularEggspression.EmptyWord emptyWord) {
+			return emptyWord;
+		}
+
+		@Override
+		public RegularEggspression visit(RegularEggspression.EmptySet emptySet) {
+			return emptySet;
+		}
+
+		@Override
+		public RegularEggspression visitPost(Concatenation concat, RegularEggspression prefix,
+				RegularEggspression suffix) {
+			return new Concatenation(suffix, prefix);
+		}
+
+		@Override
+		public RegularEggspression visitPost(Alternation union, RegularEggspression first,
+				RegularEggspression second) {
+			return new Alternation(first, second);
+		}
+
+		@Override
+		public RegularEggspression visitPost(Star star, RegularEggspression base) {
+			return new Star(base);
+		}
+
+		@Override
+		public RegularEggspression visitPost(Literal literal, VirtualSymbol symbol) {
+			return literal;
+		}
+
+	}
+
+}
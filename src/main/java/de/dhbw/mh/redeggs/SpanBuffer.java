@@ -0,0 +1,112 @@
+package de.dhbw.mh.redeggs;
+
+import java.util.Arrays;
+
+/**
+ * A growable buffer of match spans, stored as consecutive {@code start, end,
+ * rule} triples in a single {@code int} array.
+ * <p>
+ * The buffer only allocates when it has to grow, so a buffer that is
+ * {@link #clear() cleared} and reused for every input stops allocating once it
+ * has reached the size of the largest result. Instances are not thread-safe;
+ * use one buffer per thread.
+ * </p>
+ */
+public final class SpanBuffer implements MatchSink {
+
+	private int[] spans;
+
+	private int size;
+
+	/**
+	 * Creates a buffer with room for 16 spans.
+	 */
+	public SpanBuffer() {
+		this(16);
+	}
+
+	/**
+	 * Creates a buffer with room for the given number of spans.
+	 *
+	 * @param capacity the initial number of spans
+	 */
+	public SpanBuffer(int capacity) {
+		this.spans = new int[3 * Math.max(1, capacity)];
+	}
+
+	@Override
+	public void match(int start, int end, int rule) {
+		if (3 * size + 3 > spans.length) {
+			spans = Arrays.copyOf(spans, 2 * spans.length);
+		}
+		spans[3 * size] = start;
+		spans[3 * size + 1] = end;
+		spans[3 * size + 2] = rule;
+		size++;
+	}
+
+	/**
+	 * Removes all spans, keeping the allocated capacity.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Returns the number of spans.
+	 *
+	 * @return the number of spans
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the start index of a span.
+	 *
+	 * @param span the index of the span
+	 * @return the index of its first char
+	 */
+	public int start(int span) {
+		return spans[3 * checked(span)];
+	}
+
+	/**
+	 * Returns the end index of a span.
+	 *
+	 * @param span the index of the span
+	 * @return the index after its last char
+	 */
+	public int end(int span) {
+		return spans[3 * checked(span) + 1];
+	}
+
+	/**
+	 * Returns the rule of a span.
+	 *
+	 * @param span the index of the span
+	 * @return the index of the matching rule, or {@link Dfa#NO_RULE}
+	 */
+	public int rule(int span) {
+		return spans[3 * checked(span) + 2];
+	}
+
+	/**
+	 * Returns the backing array. Span {@code i} occupies the entries
+	 * {@code 3 * i} to {@code 3 * i + 2}; entries from {@code 3 * size()} on are
+	 * unused. The array is replaced when the buffer grows.
+	 *
+	 * @return the backing array
+	 */
+	public int[] array() {
+		return spans;
+	}
+
+	private int checked(int span) {
+		if (span < 0 || span >= size) {
+			throw new IndexOutOfBoundsException("Span " + span + " out of bounds for size " + size);
+		}
+		return span;
+	}
+
+}
@@ -0,0 +1,48 @@
+package de.dhbw.mh.redeggs;
+
+/**
+ * The memory layout of the transition table of a compiled {@link Dfa}.
+ */
+public enum TableLayout {
+
+	/**
+	 * One {@code int} per state and class; one table read per transition.
+	 */
+	DENSE {
+		@Override
+		Dfa apply(ArrayDfa dfa) {
+			return dfa;
+		}
+	},
+
+	/**
+	 * A default transition per state plus a comb vector holding the remaining
+	 * transitions as {@code int}s, see {@link CompressedDfa}.
+	 */
+	COMPRESSED {
+		@Override
+		Dfa apply(ArrayDfa dfa) {
+			return CompressedDfa.of(dfa, false);
+		}
+	},
+
+	/**
+	 * Like {@link #COMPRESSED}, but states are stored as {@code byte}s or
+	 * {@code short}s if there are few enough of them.
+	 */
+	COMPRESSED_NARROW {
+		@Override
+		Dfa apply(ArrayDfa dfa) {
+			return CompressedDfa.of(dfa, true);
+		}
+	};
+
+	/**
+	 * Converts a dense DFA to this layout.
+	 *
+	 * @param dfa the dense DFA
+	 * @return an equivalent DFA with this layout
+	 */
+	abstract Dfa apply(ArrayDfa dfa);
+
+}
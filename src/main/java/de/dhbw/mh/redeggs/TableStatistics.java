@@ -0,0 +1,135 @@
+package de.dhbw.mh.redeggs;
+
+/**
+ * Size and lookup cost of the transition table of a {@link Dfa}.
+ */
+public final class TableStatistics {
+
+	private final TableLayout layout;
+
+	private final int stateCount;
+
+	private final int classCount;
+
+	private final int stateBytes;
+
+	private final long tableBytes;
+
+	private final long storedTransitions;
+
+	private final int readsPerLookup;
+
+	/**
+	 * Creates the statistics of a transition table.
+	 *
+	 * @param layout            the layout of the table
+	 * @param stateCount        the number of states
+	 * @param classCount        the number of classes
+	 * @param stateBytes        the bytes used to store one state
+	 * @param tableBytes        the size of the transition table in bytes
+	 * @param storedTransitions the number of explicitly stored transitions
+	 * @param readsPerLookup    the number of table reads per transition
+	 */
+	TableStatistics(TableLayout layout, int stateCount, int classCount, int stateBytes, long tableBytes,
+			long storedTransitions, int readsPerLookup) {
+		this.layout = layout;
+		this.stateCount = stateCount;
+		this.classCount = classCount;
+		this.stateBytes = stateBytes;
+		this.tableBytes = tableBytes;
+		this.storedTransitions = storedTransitions;
+		this.readsPerLookup = readsPerLookup;
+	}
+
+	/**
+	 * Returns the layout of the table.
+	 *
+	 * @return the layout
+	 */
+	public TableLayout layout() {
+		return layout;
+	}
+
+	/**
+	 * Returns the number of states.
+	 *
+	 * @return the number of states
+	 */
+	public int stateCount() {
+		return stateCount;
+	}
+
+	/**
+	 * Returns the number of code point classes.
+	 *
+	 * @return the number of classes
+	 */
+	public int classCount() {
+		return classCount;
+	}
+
+	/**
+	 * Returns the number of bytes used to store a single state number.
+	 *
+	 * @return 1, 2 or 4
+	 */
+	public int stateBytes() {
+		return stateBytes;
+	}
+
+	/**
+	 * Returns the size of the transition table, including default transitions
+	 * and row offsets, but excluding the alphabet and accept labels.
+	 *
+	 * @return the size in bytes
+	 */
+	public long tableBytes() {
+		return tableBytes;
+	}
+
+	/**
+	 * Returns the size a dense {@code int} table would need.
+	 *
+	 * @return the dense size in bytes
+	 */
+	public long denseTableBytes() {
+		return (long) stateCount * classCount * Integer.BYTES;
+	}
+
+	/**
+	 * Returns how much smaller the table is than a dense one.
+	 *
+	 * @return the dense size divided by the actual size
+	 */
+	public double compressionRatio() {
+		return (double) denseTableBytes() / tableBytes;
+	}
+
+	/**
+	 * Returns the number of transitions stored explicitly; all others are
+	 * served by default transitions.
+	 *
+	 * @return the number of stored transitions
+	 */
+	public long storedTransitions() {
+		return storedTransitions;
+	}
+
+	/**
+	 * Returns the number of dependent array reads needed to look up one
+	 * transition.
+	 *
+	 * @return the reads per lookup
+	 */
+	public int readsPerLookup() {
+		return readsPerLookup;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s: %d states x %d classes, %d bytes/state, %d bytes (dense %d, ratio %.1f), "
+				+ "%d stored transitions, %d reads/lookup", layout, stateCount, classCount, stateBytes, tableBytes,
+				denseTableBytes(), compressionRatio(), storedTransitions, readsPerLookup);
+	}
+
+}
@@ -0,0 +1,90 @@
+package de.dhbw.mh.redeggs;
+
+/**
+ * Describes a single edit of a pattern's text: {@code removedLength} chars
+ * starting at {@code offset} are replaced by {@code insertedText}.
+ *
+ * @see RecursiveDescentRedeggsParser#reparse(RegularEggspression, String,
+ *      TextEdit)
+ */
+public class TextEdit {
+
+	private final int offset;
+
+	private final int removedLength;
+
+	private final String insertedText;
+
+	/**
+	 * Constructs a new text edit.
+	 *
+	 * @param offset        the zero-based char offset where the edit starts
+	 * @param removedLength the number of chars removed at {@code offset}
+	 * @param insertedText  the text inserted at {@code offset}
+	 */
+	public TextEdit(int offset, int removedLength, String insertedText) {
+		if (offset < 0 || removedLength < 0) {
+			throw new IllegalArgumentException("offset and removed length must not be negative");
+		}
+		this.offset = offset;
+		this.removedLength = removedLength;
+		this.insertedText = insertedText;
+	}
+
+	/**
+	 * Returns the zero-based char offset where the edit starts.
+	 *
+	 * @return the offset of this edit
+	 */
+	public int offset() {
+		return offset;
+	}
+
+	/**
+	 * Returns the number of chars removed at {@link #offset()}.
+	 *
+	 * @return the removed length
+	 */
+	public int removedLength() {
+		return removedLength;
+	}
+
+	/**
+	 * Returns the text inserted at {@link #offset()}.
+	 *
+	 * @return the inserted text
+	 */
+	public String insertedText() {
+		return insertedText;
+	}
+
+	/**
+	 * Returns the difference between the length of the edited and the original
+	 * text.
+	 *
+	 * @return the change in length caused by this edit
+	 */
+	public int delta() {
+		return insertedText.length() - removedLength;
+	}
+
+	/**
+	 * Applies this edit to the given text.
+	 *
+	 * @param text the original text
+	 * @return the edited text
+	 * @throws IllegalArgumentException if the edit does not fit into {@code text}
+	 */
+	public String applyTo(String text) {
+		if (offset + removedLength > text.length()) {
+			throw new IllegalArgumentException("edit exceeds text of length " + text.length());
+		}
+		return text.substring(0, offset) + insertedText + text.substring(offset + removedLength);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("@%d -%d +\"%s\"", offset, removedLength, insertedText);
+	}
+
+}
@@ -0,0 +1,164 @@
+package de.dhbw.mh.redeggs;
+
+import java.util.List;
+
+/**
+ * Splits an input into tokens by maximal munch over a {@link Dfa}.
+ * <p>
+ * Starting at the beginning of the input, the tokenizer reports the longest
+ * non-empty prefix matched by some rule, labeled with the lowest such rule,
+ * and continues after it. Chars no rule can start with are collected into
+ * spans labeled {@link Dfa#NO_RULE}, so that the reported spans cover the
+ * whole input without gaps.
+ * </p>
+ * <p>
+ * Spans are passed to a {@link MatchSink}; with a reused {@link SpanBuffer},
+ * tokenizing does not allocate. Instances are immutable and may be shared
+ * between threads.
+ * </p>
+ * <p>
+ * A tokenizer created with a {@link MatchProfiler} reports every span to it,
+ * together with the number of transitions taken to find it.
+ * </p>
+ */
+public final class Tokenizer {
+
+	private final Dfa dfa;
+
+	private final MatchProfiler profiler;
+
+	/**
+	 * Creates a tokenizer for the rules of the given DFA.
+	 *
+	 * @param dfa the DFA recognizing the token rules
+	 */
+	public Tokenizer(Dfa dfa) {
+		this(dfa, null);
+	}
+
+	/**
+	 * Creates a profiling tokenizer for the rules of the given DFA.
+	 *
+	 * @param dfa      the DFA recognizing the token rules
+	 * @param profiler receives the per-rule counters, or {@code null} to disable
+	 *                 profiling
+	 */
+	public Tokenizer(Dfa dfa, MatchProfiler profiler) {
+		this.dfa = dfa;
+		this.profiler = profiler;
+	}
+
+	/**
+	 * Compiles a tokenizer for the given rules.
+	 *
+	 * @param rules  the token rules, in order of priority
+	 * @param layout the layout of the transition table
+	 * @return the tokenizer
+	 * @throws IllegalArgumentException if a symbol does not expose its code point
+	 *                                  ranges
+	 * @throws IllegalStateException    if the DFA needs more than
+	 *                                  {@value DfaCompiler#DEFAULT_MAX_STATES}
+	 *                                  states
+	 */
+	public static Tokenizer compile(List<? extends RegularEggspression> rules, TableLayout layout) {
+		return new Tokenizer(DfaCompiler.compile(rules, DfaCompiler.DEFAULT_MAX_STATES, layout));
+	}
+
+	/**
+	 * Returns the DFA recognizing the token rules.
+	 *
+	 * @return the DFA
+	 */
+	public Dfa dfa() {
+		return dfa;
+	}
+
+	/**
+	 * Returns the profiler of this tokenizer.
+	 *
+	 * @return the profiler, or {@code null} if profiling is disabled
+	 */
+	public MatchProfiler profiler() {
+		return profiler;
+	}
+
+	/**
+	 * Tokenizes the whole input.
+	 *
+	 * @param input the input to tokenize
+	 * @param sink  receives the tokens and unmatched spans in order
+	 * @return the number of reported spans
+	 */
+	public int tokenize(CharSequence input, MatchSink sink) {
+		return tokenize(input, 0, input.length(), sink);
+	}
+
+	/**
+	 * Tokenizes a region of the input.
+	 *
+	 * @param input the input to tokenize
+	 * @param from  the index of the first char of the region
+	 * @param to    the index after the last char of the region
+	 * @param sink  receives the tokens and unmatched spans in order
+	 * @return the number of reported spans
+	 */
+	public int tokenize(CharSequence input, int from, int to, MatchSink sink) {
+		int count = 0;
+		int unmatched = -1;
+		int unmatchedSteps = 0;
+		int position = from;
+		while (position < to) {
+			int state = Dfa.START;
+			int end = position;
+			int rule = Dfa.NO_RULE;
+			int i = position;
+			while (i < to) {
+				int codePoint = Character.codePointAt(input, i);
+				i += Character.charCount(codePoint);
+				state = dfa.next(state, dfa.classOf(codePoint));
+				if (state == Dfa.DEAD) {
+					break;
+				}
+				int label = dfa.acceptLabel(state);
+				if (label != Dfa.NO_RULE) {
+					end = i;
+					rule = label;
+				}
+			}
+			if (end == position) {
+				if (unmatched < 0) {
+					unmatched = position;
+					unmatchedSteps = 0;
+				}
+				if (profiler != null) {
+					unmatchedSteps += Character.codePointCount(input, position, i);
+				}
+				position += Character.charCount(Character.codePointAt(input, position));
+				continue;
+			}
+			if (unmatched >= 0) {
+				sink.match(unmatched, position, Dfa.NO_RULE);
+				count++;
+				if (profiler != null) {
+					profiler.token(Dfa.NO_RULE, position - unmatched, unmatchedSteps);
+				}
+				unmatched = -1;
+			}
+			sink.match(position, end, rule);
+			count++;
+			if (profiler != null) {
+				profiler.token(rule, end - position, Character.codePointCount(input, position, i));
+			}
+			position = end;
+		}
+		if (unmatched >= 0) {
+			sink.match(unmatched, to, Dfa.NO_RULE);
+			count++;
+			if (profiler != null) {
+				profiler.token(Dfa.NO_RULE, to - unmatched, unmatchedSteps);
+			}
+		}
+		return count;
+	}
+
+}
@@ -0,0 +1,55 @@
+package de.dhbw.mh.redeggs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link AhoCorasickPrefilter}.
+ */
+public class AhoCorasickPrefilterTest {
+
+    /** The parser used to create the rules under test. */
+    private final RecursiveDescentRedeggsParser parser = new RecursiveDescentRedeggsParser(new RangeSymbolFactory());
+
+    private List<RegularEggspression> rules(String... patterns) throws RedeggsParseException {
+        List<RegularEggspression> rules = new ArrayList<>();
+        for (String pattern : patterns) {
+            rules.add(parser.parse(pattern));
+        }
+        return rules;
+    }
+
+    @Test
+    public void wakesRulesWhoseLiteralsOccur() throws RedeggsParseException {
+        AhoCorasickPrefilter prefilter = AhoCorasickPrefilter
+                .of(rules("ERROR[0-9]*", "[a-z]*timeout", "x*", "disk(full|error)"));
+
+        BitSet awake = prefilter.scan("disk error timeout");
+
+        assertThat(awake.stream().toArray()).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    public void findsOverlappingLiterals() throws RedeggsParseException {
+        AhoCorasickPrefilter prefilter = AhoCorasickPrefilter.of(rules("she", "he", "hers", "his"));
+
+        char[] text = "ushers".toCharArray();
+        BitSet awake = new BitSet();
+        prefilter.scan(text, 0, text.length, awake);
+
+        assertThat(awake.stream().toArray()).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    public void handlesNonAsciiLiterals() throws RedeggsParseException {
+        AhoCorasickPrefilter prefilter = AhoCorasickPrefilter.of(rules("grüß", "gruss"));
+
+        assertThat(prefilter.scan("viele Grüße, grüß dich").stream().toArray()).containsExactly(0);
+    }
+
+}
@@ -0,0 +1,97 @@
+package de.dhbw.mh.redeggs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link GlushkovAutomaton} and the
+ * {@link BitParallelMatcher} simulating it.
+ */
+public class BitParallelMatcherTest {
+
+    /** The parser used to create the expressions under test. */
+    private final RecursiveDescentRedeggsParser parser = new RecursiveDescentRedeggsParser(new RangeSymbolFactory());
+
+    @Test
+    public void glushkovSetsOfSimpleExpression() throws RedeggsParseException {
+        GlushkovAutomaton automaton = GlushkovAutomaton.of(parser.parse("(a|b)*c"));
+
+        assertThat(automaton.positionCount()).isEqualTo(3);
+        assertThat(automaton.isNullable()).isFalse();
+        assertThat(automaton.first().stream()).containsExactly(0, 1, 2);
+        assertThat(automaton.last().stream()).containsExactly(2);
+        assertThat(automaton.follow(0).stream()).containsExactly(0, 1, 2);
+        assertThat(automaton.follow(2).stream()).isEmpty();
+    }
+
+    @Test
+    public void compilePicksEngineBySize() throws RedeggsParseException {
+        assertThat(RedeggsMatcher.compile(parser.parse("(a|b)*c"))).isInstanceOf(BitParallelMatcher.class);
+        assertThat(RedeggsMatcher.compile(parser.parse("a".repeat(BitParallelMatcher.MAX_POSITIONS + 1))))
+                .isInstanceOf(PikeVM.class);
+    }
+
+    @Test
+    public void countsPositionsWithoutBuildingAutomaton() throws RedeggsParseException {
+        int limit = BitParallelMatcher.MAX_POSITIONS;
+
+        assertThat(GlushkovAutomaton.countPositions(parser.parse("(a|b)+c{3}d?e{0}"), limit)).isEqualTo(6);
+        RegularEggspression nested = parser.parse("a{1000}");
+        for (int i = 0; i < 5; i++) {
+            // too large for the parser, but the count must not overflow
+            nested = new RegularEggspression.Repetition(nested, 1000, 1000);
+        }
+        assertThat(GlushkovAutomaton.countPositions(nested, limit)).isEqualTo(limit + 1);
+        // deep enough to overflow the stack of the recursive Glushkov construction
+        RegularEggspression literal = parser.parse("a".repeat(5000));
+        RegularEggspression union = parser.parse("ab|".repeat(4999) + "ab");
+        assertThat(GlushkovAutomaton.countPositions(literal, limit)).isEqualTo(limit + 1);
+        assertThat(RedeggsMatcher.compile(literal).matches("a".repeat(5000))).isTrue();
+        assertThat(RedeggsMatcher.compile(union).matches("ab")).isTrue();
+    }
+
+    @Test
+    public void singleWordAgreesWithJavaRegex() throws RedeggsParseException {
+        assertAgreesWithJavaRegex("(a|b)*c", "(a|b)*c", 1);
+        assertAgreesWithJavaRegex("[a-c]*(ab|c)", "[a-c]*(ab|c)", 1);
+        assertAgreesWithJavaRegex("(ab)*|c*", "(ab)*|c*", 1);
+    }
+
+    @Test
+    public void multipleWordsAgreeWithJavaRegex() throws RedeggsParseException {
+        String regex = "(" + "ab|".repeat(40) + "c)*" + "ba".repeat(20);
+        assertAgreesWithJavaRegex(regex, regex, 2);
+    }
+
+    @Test
+    public void matchesSupplementaryCodePoints() throws RedeggsParseException {
+        BitParallelMatcher matcher = BitParallelMatcher.compile(parser.parse("a🥚*b"));
+
+        assertThat(matcher.matches("a🥚🥚b")).isTrue();
+        assertThat(matcher.matches("a🥚🥛b")).isFalse();
+        assertThat(matcher.find("xxa🥚byy")).isTrue();
+    }
+
+    private void assertAgreesWithJavaRegex(String regex, String javaRegex, int words)
+            throws RedeggsParseException {
+        BitParallelMatcher matcher = BitParallelMatcher.compile(parser.parse(regex));
+        Pattern pattern = Pattern.compile(javaRegex);
+        assertThat(matcher.stateWords()).isEqualTo(words);
+
+        Random random = new Random(34);
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder input = new StringBuilder();
+            for (int n = random.nextInt(60); n > 0; n--) {
+                input.append("abcd".charAt(random.nextInt(4)));
+            }
+            String text = input.toString();
+            assertThat(matcher.matches(text)).as("matches %s", text).isEqualTo(pattern.matcher(text).matches());
+            assertThat(matcher.find(text)).as("find %s", text).isEqualTo(pattern.matcher(text).find());
+        }
+    }
+
+}
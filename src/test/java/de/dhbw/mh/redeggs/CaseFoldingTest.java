@@ -0,0 +1,115 @@
+package de.dhbw.mh.redeggs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link CaseFolding} and case-insensitive parsing.
+ */
+public class CaseFoldingTest {
+
+    /** The parser used to create the case-sensitive expressions. */
+    private final RecursiveDescentRedeggsParser parser = new RecursiveDescentRedeggsParser(new RangeSymbolFactory());
+
+    /** The parser used to create the case-insensitive expressions. */
+    private final RecursiveDescentRedeggsParser insensitive = new RecursiveDescentRedeggsParser(
+            new RangeSymbolFactory());
+
+    {
+        insensitive.setCaseInsensitive(true);
+    }
+
+    private static RangeSymbol symbol(int first, int last) {
+        return RangeSymbol.of(List.of(CodePointRange.range(first, last)));
+    }
+
+    @Test
+    public void orbitsFollowSimpleCaseFolding() {
+        assertThat(CaseFolding.equivalents('k')).containsExactly('K', 'k', 0x212A);
+        assertThat(CaseFolding.equivalents('S')).containsExactly('S', 's', 0x17F);
+        assertThat(CaseFolding.equivalents(0xDF)).containsExactly(0xDF, 0x1E9E);
+        assertThat(CaseFolding.equivalents(0x3B8)).containsExactly(0x398, 0x3B8, 0x3D1, 0x3F4);
+        assertThat(CaseFolding.equivalents('i')).containsExactly('I', 'i');
+        assertThat(CaseFolding.equivalents(0x130)).containsExactly(0x130);
+        assertThat(CaseFolding.equivalents('7')).containsExactly('7');
+    }
+
+    @Test
+    public void noCodePointBeyondTheTableHasCaseMappings() {
+        assertThat(CaseFolding.equivalents(0x1E900)).containsExactly(0x1E900, 0x1E922);
+        int cased = -1;
+        for (int c = CaseFolding.LAST_CASED + 1; c <= Character.MAX_CODE_POINT && cased < 0; c++) {
+            if (Character.toLowerCase(c) != c || Character.toUpperCase(c) != c || Character.toTitleCase(c) != c) {
+                cased = c;
+            }
+        }
+        assertThat(cased).isEqualTo(-1);
+    }
+
+    @Test
+    public void foldsWholeRangesAtOnce() {
+        RangeSymbol letters = CaseFolding.fold(symbol('a', 'z'));
+        assertThat(letters.contains('Q')).isTrue();
+        assertThat(letters.contains(0x17F)).isTrue();
+        assertThat(letters.contains(0x212A)).isTrue();
+        assertThat(letters.contains('@')).isFalse();
+
+        // upper and lower case alternate in Latin Extended-A
+        RangeSymbol extended = CaseFolding.fold(symbol(0x100, 0x100));
+        assertThat(extended).isEqualTo(symbol(0x100, 0x101));
+
+        assertThat(CaseFolding.fold(symbol('0', '9'))).isEqualTo(symbol('0', '9'));
+        RangeSymbol everything = symbol(0, RangeSymbol.MAX_CODE_POINT);
+        assertThat(CaseFolding.fold(everything)).isEqualTo(everything);
+    }
+
+    @Test
+    public void foldingAgreesWithJavaRegex() {
+        for (int c = 0; c < 0x600; c++) {
+            if (c == 0x130 || c == 0x131 || !Character.isLetter(c)) {
+                continue;
+            }
+            Pattern reference = Pattern.compile(Pattern.quote(new String(Character.toChars(c))),
+                    Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+            RangeSymbol folded = CaseFolding.fold(symbol(c, c));
+            for (int d = 0; d < 0x600; d++) {
+                if (d == 0x130 || d == 0x131) {
+                    continue;
+                }
+                assertThat(folded.contains(d)).as("U+%04X ~ U+%04X", c, d)
+                        .isEqualTo(reference.matcher(new String(Character.toChars(d))).matches());
+            }
+        }
+    }
+
+    @Test
+    public void caseInsensitivePatternsKeepTheirSize() throws RedeggsParseException {
+        String pattern = "select|from|where|[a-z_][a-z0-9_]*";
+        RegularEggspression sensitive = parser.parse(pattern);
+        RegularEggspression folded = insensitive.parse(pattern);
+
+        assertThat(GlushkovAutomaton.of(folded).positionCount())
+                .isEqualTo(GlushkovAutomaton.of(sensitive).positionCount());
+        Dfa dfa = DfaCompiler.compile(folded);
+        assertThat(dfa.stateCount()).isEqualTo(DfaCompiler.compile(sensitive).stateCount());
+        assertThat(dfa.matches("SeLeCt")).isTrue();
+        assertThat(dfa.matches("Ünicode")).isFalse();
+        assertThat(dfa.matches("My_Table2")).isTrue();
+    }
+
+    @Test
+    public void negatedClassesExcludeEveryCase() throws RedeggsParseException {
+        RedeggsMatcher matcher = RedeggsMatcher.compile(insensitive.parse("[^a-c]x"));
+
+        assertThat(matcher.matches("ax")).isFalse();
+        assertThat(matcher.matches("BX")).isFalse();
+        assertThat(matcher.matches("dX")).isTrue();
+        assertThat(insensitive.isCaseInsensitive()).isTrue();
+        assertThat(parser.isCaseInsensitive()).isFalse();
+    }
+
+}
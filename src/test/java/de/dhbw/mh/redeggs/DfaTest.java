@@ -0,0 +1,184 @@
+package de.dhbw.mh.redeggs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for the {@link DfaCompiler} and the {@link Dfa} implementations.
+ */
+public class DfaTest {
+
+    /** The parser used to create the expressions under test. */
+    private final RecursiveDescentRedeggsParser parser = new RecursiveDescentRedeggsParser(new RangeSymbolFactory());
+
+    private List<RegularEggspression> rules(String... regexes) throws RedeggsParseException {
+        List<RegularEggspression> rules = new ArrayList<>();
+        for (String regex : regexes) {
+            rules.add(parser.parse(regex));
+        }
+        return rules;
+    }
+
+    private static List<String> randomInputs(String alphabet, int count) {
+        Random random = new Random(36);
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            StringBuilder input = new StringBuilder();
+            for (int n = random.nextInt(12); n > 0; n--) {
+                input.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            inputs.add(input.toString());
+        }
+        return inputs;
+    }
+
+    @Test
+    public void compiledDfaAgreesWithJavaRegex() throws RedeggsParseException {
+        ArrayDfa dfa = DfaCompiler.compile(parser.parse("[a-c]*(ab|c)(a|d)*"));
+        Pattern pattern = Pattern.compile("[a-c]*(ab|c)(a|d)*");
+
+        for (String input : randomInputs("abcde", 3000)) {
+            assertThat(dfa.matches(input)).as(input).isEqualTo(pattern.matcher(input).matches());
+        }
+    }
+
+    @Test
+    public void lowestRuleWinsOnOverlap() throws RedeggsParseException {
+        ArrayDfa dfa = DfaCompiler.compile(rules("if", "[a-z]*", "[0-9]*"));
+
+        assertThat(dfa.match("if")).isEqualTo(0);
+        assertThat(dfa.match("iff")).isEqualTo(1);
+        assertThat(dfa.match("42")).isEqualTo(2);
+        assertThat(dfa.match("")).isEqualTo(1);
+        assertThat(dfa.match("a1")).isEqualTo(Dfa.NO_RULE);
+    }
+
+    @Test
+    public void stateLimitIsEnforced() throws RedeggsParseException {
+        RegularEggspression blowup = parser.parse("(a|b)*a(a|b)(a|b)(a|b)(a|b)(a|b)(a|b)(a|b)(a|b)");
+
+        assertThatThrownBy(() -> DfaCompiler.compile(List.of(blowup), 100))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(DfaCompiler.compile(blowup).stateCount()).isGreaterThan(256);
+    }
+
+    @Test
+    public void byteBufferDfaBehavesLikeArrayDfa(@TempDir Path directory) throws RedeggsParseException, IOException {
+        ArrayDfa dfa = DfaCompiler.compile(rules("(ab)*", "[a-z🥚]*", "x🥚🥚*y"));
+        Path file = directory.resolve("lexer.dfa");
+        ByteBufferDfa.write(dfa, file);
+
+        List<Dfa> copies = List.of(ByteBufferDfa.copyOf(dfa), ByteBufferDfa.map(file));
+        for (Dfa copy : copies) {
+            assertThat(copy.stateCount()).isEqualTo(dfa.stateCount());
+            assertThat(copy.classCount()).isEqualTo(dfa.classCount());
+            for (String input : randomInputs("abxy🥚Z", 500)) {
+                assertThat(copy.match(input)).as(input).isEqualTo(dfa.match(input));
+            }
+        }
+    }
+
+    @Test
+    public void wrapDetectsByteOrderAndRejectsGarbage() throws RedeggsParseException {
+        ArrayDfa dfa = DfaCompiler.compile(parser.parse("a[b-d]*"));
+        ByteBuffer tables = ByteBufferDfa.copyOf(dfa).buffer();
+        ByteOrder opposite = tables.order() == ByteOrder.BIG_ENDIAN ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+        ByteBuffer swapped = ByteBuffer.allocate(tables.capacity()).order(opposite);
+        while (tables.hasRemaining()) {
+            swapped.putInt(tables.getInt());
+        }
+        swapped.flip();
+        tables.clear();
+
+        assertThat(ByteBufferDfa.wrap(swapped).matches("abcd")).isTrue();
+        assertThat(ByteBufferDfa.wrap(swapped).matches("ba")).isFalse();
+        assertThatThrownBy(() -> ByteBufferDfa.wrap(ByteBuffer.allocate(64)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ByteBufferDfa.wrap(tables.limit(40)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void wrapRejectsHostileTables() throws RedeggsParseException {
+        ArrayDfa dfa = DfaCompiler.compile(parser.parse("a[b-d]*"));
+        ByteBuffer tables = ByteBufferDfa.copyOf(dfa).buffer();
+        ByteBuffer copy = ByteBuffer.allocate(tables.capacity()).order(tables.order()).put(tables);
+
+        // stateCount * classCount * 4 wraps around to a small int
+        ByteBuffer overflowing = ByteBuffer.allocate(copy.capacity()).order(copy.order()).put(copy.clear());
+        overflowing.putInt(2 * Integer.BYTES, 1 << 16).putInt(3 * Integer.BYTES, 1 << 14);
+        assertThatThrownBy(() -> ByteBufferDfa.wrap(overflowing.clear()))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        int transitions = copy.capacity() - (dfa.stateCount() * dfa.classCount() + dfa.stateCount()) * Integer.BYTES;
+        copy.putInt(transitions + Integer.BYTES, dfa.stateCount());
+        assertThatThrownBy(() -> ByteBufferDfa.wrap(copy.clear())).isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("out of range");
+    }
+
+    @Test
+    public void compressedLayoutsBehaveLikeDenseTable() throws RedeggsParseException {
+        List<RegularEggspression> lexer = rules("if|else|while|return", "[a-zA-Z_][a-zA-Z_0-9]*", "[0-9][0-9]*",
+                "[ \t\n][ \t\n]*", "[-+/=<>!][=]*", "\"[^\"]*\"");
+        ArrayDfa dense = DfaCompiler.compile(lexer);
+
+        for (TableLayout layout : TableLayout.values()) {
+            Dfa dfa = DfaCompiler.compile(lexer, DfaCompiler.DEFAULT_MAX_STATES, layout);
+            assertThat(dfa.statistics().layout()).isEqualTo(layout);
+            for (int state = 0; state < dense.stateCount(); state++) {
+                for (int cls = 0; cls < dense.classCount(); cls++) {
+                    assertThat(dfa.next(state, cls)).isEqualTo(dense.next(state, cls));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void statisticsReportCompression() throws RedeggsParseException {
+        List<RegularEggspression> lexer = rules("abc", "def", "[a-z]*x", "[0-9]*");
+        TableStatistics dense = DfaCompiler.compile(lexer).statistics();
+        TableStatistics compressed = DfaCompiler
+                .compile(lexer, DfaCompiler.DEFAULT_MAX_STATES, TableLayout.COMPRESSED_NARROW).statistics();
+
+        assertThat(dense.readsPerLookup()).isEqualTo(1);
+        assertThat(dense.compressionRatio()).isEqualTo(1.0);
+        assertThat(compressed.stateBytes()).isEqualTo(1);
+        assertThat(compressed.storedTransitions()).isLessThan(dense.storedTransitions());
+        assertThat(compressed.tableBytes()).isLessThan(dense.tableBytes());
+    }
+
+    @Test
+    public void longLiteralsHitTheStateLimitInsteadOfTheStack() throws RedeggsParseException {
+        String text = "a".repeat(6000);
+        RegularEggspression literal = parser.parse(text);
+        assertThat(DfaCompiler.compile(literal).matches(text)).isTrue();
+        assertThat(LazyDfa.of(literal).acceptLabel(Dfa.START)).isEqualTo(Dfa.NO_RULE);
+
+        RegularEggspression huge = parser.parse("ab".repeat(50_000));
+        GlushkovAutomaton automaton = GlushkovAutomaton.of(huge);
+        assertThat(automaton.positionCount()).isEqualTo(100_000);
+        assertThat(automaton.follow(99_998).stream()).containsExactly(99_999);
+        assertThatThrownBy(() -> DfaCompiler.compile(List.of(huge), DfaCompiler.DEFAULT_MAX_STATES, TableLayout.DENSE))
+                .isInstanceOf(IllegalStateException.class);
+        LazyDfa lazy = LazyDfa.of(List.of(huge), 1000);
+        assertThatThrownBy(() -> {
+            int state = Dfa.START;
+            for (int i = 0; i < 2000; i++) {
+                state = lazy.next(state, lazy.classOf("ab".charAt(i % 2)));
+            }
+        }).isInstanceOf(IllegalStateException.class);
+    }
+
+}
@@ -0,0 +1,87 @@
+package de.dhbw.mh.redeggs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link LanguageRelations} and the {@link LazyDfa} it relies
+ * on.
+ */
+public class LanguageRelationsTest {
+
+    /** The parser used to create the expressions under test. */
+    private final RecursiveDescentRedeggsParser parser = new RecursiveDescentRedeggsParser(new RangeSymbolFactory());
+
+    private static final RegularEggspression EMPTY_SET = new RegularEggspression.EmptySet();
+
+    private RegularEggspression then(String regex, RegularEggspression suffix) throws RedeggsParseException {
+        return new RegularEggspression.Concatenation(parser.parse(regex), suffix);
+    }
+
+    @Test
+    public void emptiness() throws RedeggsParseException {
+        assertThat(LanguageRelations.isEmpty(
+                new RegularEggspression.Alternation(then("a", EMPTY_SET), then("b", EMPTY_SET)))).isTrue();
+        assertThat(LanguageRelations.isEmpty(new RegularEggspression.Star(EMPTY_SET))).isFalse();
+        assertThat(LanguageRelations.isEmpty(
+                then("a", new RegularEggspression.Alternation(EMPTY_SET, parser.parse("b"))))).isFalse();
+        assertThat(LanguageRelations.isEmpty(parser.parse("∅"))).isTrue();
+    }
+
+    @Test
+    public void equivalenceOfDifferentlyWrittenRules() throws RedeggsParseException {
+        assertThat(LanguageRelations.areEquivalent(parser.parse("(a|b)*"), parser.parse("(a*b*)*"))).isTrue();
+        assertThat(LanguageRelations.areEquivalent(parser.parse("[a-c]"), parser.parse("a|b|c"))).isTrue();
+        assertThat(LanguageRelations.areEquivalent(parser.parse("(ab)*a"), parser.parse("a(ba)*"))).isTrue();
+        assertThat(LanguageRelations.areEquivalent(parser.parse("(ab)*"), parser.parse("(ab)*a"))).isFalse();
+    }
+
+    @Test
+    public void distinguishingWordIsShortest() throws RedeggsParseException {
+        assertThat(LanguageRelations.distinguishingWord(parser.parse("(a|b)*"), parser.parse("(a|b)*abb|a*")))
+                .contains("b");
+        assertThat(LanguageRelations.distinguishingWord(parser.parse("🥚*"),
+                new RegularEggspression.Alternation(new RegularEggspression.EmptyWord(), parser.parse("🥚🥚*")))).isEmpty();
+        assertThat(LanguageRelations.distinguishingWord(parser.parse("x🥚*"), parser.parse("x|x🥚")))
+                .contains("x🥚🥚");
+    }
+
+    @Test
+    public void inclusion() throws RedeggsParseException {
+        assertThat(LanguageRelations.isSubsetOf(parser.parse("abc"), parser.parse("[a-z]*"))).isTrue();
+        assertThat(LanguageRelations.isSubsetOf(parser.parse("[a-z]*"), parser.parse("abc"))).isFalse();
+        assertThat(LanguageRelations.isSubsetOf(parser.parse("∅"), parser.parse("abc"))).isTrue();
+    }
+
+    @Test
+    public void equivalenceClassesGroupRedundantRules() throws RedeggsParseException {
+        List<RegularEggspression> rules = new ArrayList<>();
+        for (String regex : new String[] { "(a|b)*", "x", "(b|a)*" }) {
+            rules.add(parser.parse(regex));
+        }
+        rules.add(then("a", EMPTY_SET));
+        rules.add(parser.parse("(a*b*)*"));
+        rules.add(parser.parse("∅"));
+        rules.add(parser.parse("[x]"));
+
+        assertThat(LanguageRelations.equivalenceClasses(rules)).containsExactly(0, 1, 0, 3, 0, 3, 1);
+    }
+
+    @Test
+    public void lazyDfaBuildsOnlyVisitedStates() throws RedeggsParseException {
+        RegularEggspression blowup = parser.parse("(a|b)*a(a|b)(a|b)(a|b)(a|b)(a|b)(a|b)(a|b)(a|b)(a|b)(a|b)");
+        LazyDfa dfa = LazyDfa.of(blowup);
+
+        assertThat(dfa.match("aaaaaaaaaaa")).isEqualTo(0);
+        assertThat(dfa.match("baaaaaaaaaa")).isEqualTo(Dfa.NO_RULE);
+        assertThat(dfa.stateCount()).isLessThan(30);
+        int misses = dfa.computedTransitions();
+        dfa.match("aaaaaaaaaaa");
+        assertThat(dfa.computedTransitions()).isEqualTo(misses);
+    }
+
+}
@@ -0,0 +1,107 @@
+package de.dhbw.mh.redeggs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link RequiredLiterals}, {@link HorspoolSearcher} and
+ * {@link LiteralPrefilter}.
+ */
+public class LiteralPrefilterTest {
+
+    /** The parser used to create the expressions under test. */
+    private final RecursiveDescentRedeggsParser parser = new RecursiveDescentRedeggsParser(new RangeSymbolFactory());
+
+    @Test
+    public void extractsPrefixSuffixAndFactor() throws RedeggsParseException {
+        RequiredLiterals literals = RequiredLiterals.of(parser.parse("ERROR[0-9]*timeout"));
+
+        assertThat(literals.prefix()).isEqualTo("ERROR");
+        assertThat(literals.suffix()).isEqualTo("timeout");
+        assertThat(literals.factor()).isEqualTo("timeout");
+    }
+
+    @Test
+    public void alternationKeepsCommonAffixes() throws RedeggsParseException {
+        RequiredLiterals literals = RequiredLiterals.of(parser.parse("(foobar|fooqux)x*"));
+
+        assertThat(literals.prefix()).isEqualTo("foo");
+        assertThat(literals.suffix()).isEmpty();
+    }
+
+    @Test
+    public void starRequiresNothing() throws RedeggsParseException {
+        RequiredLiterals literals = RequiredLiterals.of(parser.parse("(abc)*"));
+
+        assertThat(literals.isEmpty()).isTrue();
+        assertThat(LiteralPrefilter.of(parser.parse("(abc)*")).isEffective()).isFalse();
+    }
+
+    @Test
+    public void horspoolFindsOccurrences() {
+        HorspoolSearcher searcher = new HorspoolSearcher("timeout");
+        String text = "connection timed out, retry timeout";
+
+        assertThat(searcher.indexOf(text, 0)).isEqualTo(text.indexOf("timeout"));
+        assertThat(searcher.indexOf(text.toCharArray(), 0, text.length())).isEqualTo(text.indexOf("timeout"));
+        assertThat(searcher.indexOf(text.getBytes(StandardCharsets.UTF_8), 0, text.length()))
+                .isEqualTo(text.indexOf("timeout"));
+        assertThat(searcher.indexOf(text, 29)).isEqualTo(-1);
+    }
+
+    @Test
+    public void horspoolHandlesLowByteCollisions() {
+        // U+0161 and 'a' share the low byte 0x61
+        HorspoolSearcher searcher = new HorspoolSearcher("šb");
+
+        assertThat(searcher.indexOf("aabšb", 0)).isEqualTo(3);
+    }
+
+    @Test
+    public void prefilterJumpsToPrefix() throws RedeggsParseException {
+        LiteralPrefilter prefilter = LiteralPrefilter.of(parser.parse("ERROR[0-9]*timeout"));
+        String text = "INFO ok\nERROR42timeout\n";
+
+        assertThat(prefilter.isAnchored()).isTrue();
+        assertThat(prefilter.nextCandidate(text, 0)).isEqualTo(8);
+        assertThat(prefilter.nextCandidate(text, 9)).isEqualTo(-1);
+    }
+
+    @Test
+    public void prefilterRejectsTextWithoutFactor() throws RedeggsParseException {
+        LiteralPrefilter prefilter = LiteralPrefilter.of(parser.parse("[a-z]*timeout"));
+
+        assertThat(prefilter.isAnchored()).isFalse();
+        assertThat(prefilter.mightMatch("no time out here")).isFalse();
+        assertThat(prefilter.nextCandidate("abc timeout", 2)).isEqualTo(2);
+    }
+
+    @Test
+    public void literalsDoNotSplitSurrogatePairs() throws RedeggsParseException {
+        String egg = new String(Character.toChars(0x1F95A));
+        String pattern = "a" + egg.repeat(40);
+        String text = "xx" + pattern;
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        LiteralPrefilter prefilter = LiteralPrefilter.of(parser.parse(pattern));
+
+        assertThat(RequiredLiterals.of(parser.parse(pattern)).prefix()).isEqualTo("a" + egg.repeat(31));
+        assertThat(prefilter.nextCandidate(text, 0)).isEqualTo(2);
+        assertThat(prefilter.nextCandidate(bytes, 0, bytes.length)).isEqualTo(2);
+
+        // both chicks start with the high surrogate U+D83D
+        String chicks = new String(Character.toChars(0x1F423)) + "x|" + new String(Character.toChars(0x1F424)) + "x";
+        RequiredLiterals literals = RequiredLiterals.of(parser.parse(chicks));
+        text = "a" + new String(Character.toChars(0x1F424)) + "x";
+        bytes = text.getBytes(StandardCharsets.UTF_8);
+        prefilter = LiteralPrefilter.of(parser.parse(chicks));
+
+        assertThat(literals.prefix()).isEmpty();
+        assertThat(literals.suffix()).isEqualTo("x");
+        assertThat(prefilter.nextCandidate(text, 0)).isEqualTo(0);
+        assertThat(prefilter.nextCandidate(bytes, 0, bytes.length)).isEqualTo(0);
+    }
+
+}
@@ -0,0 +1,113 @@
+package de.dhbw.mh.redeggs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link MatchProfiler} and the engines reporting to it.
+ */
+public class MatchProfilerTest {
+
+    /** The parser used to create the rules under test. */
+    private final RecursiveDescentRedeggsParser parser = new RecursiveDescentRedeggsParser(new RangeSymbolFactory());
+
+    private List<RegularEggspression> rules(String... patterns) throws RedeggsParseException {
+        List<RegularEggspression> rules = new ArrayList<>();
+        for (String pattern : patterns) {
+            rules.add(parser.parse(pattern));
+        }
+        return rules;
+    }
+
+    @Test
+    public void tokenizerAttributesCostToRules() throws RedeggsParseException {
+        MatchProfiler profiler = new MatchProfiler(3);
+        Tokenizer tokenizer = new Tokenizer(
+                DfaCompiler.compile(rules("[a-z][a-z]*", "[0-9][0-9]*", " "), DfaCompiler.DEFAULT_MAX_STATES,
+                        TableLayout.DENSE),
+                profiler);
+
+        assertThat(tokenizer.tokenize("abc 12 x!?", new SpanBuffer())).isEqualTo(6);
+
+        MatchProfile profile = profiler.snapshot();
+        assertThat(profile.tokens(0)).isEqualTo(2);
+        assertThat(profile.averageTokenLength(0)).isEqualTo(2.0);
+        // "abc" and "x" each need one more transition to see the token end
+        assertThat(profile.statesVisited(0)).isEqualTo(4 + 2);
+        assertThat(profile.tokens(1)).isEqualTo(1);
+        assertThat(profile.statesVisited(1)).isEqualTo(3);
+        assertThat(profile.tokens(2)).isEqualTo(2);
+        assertThat(profile.tokens(Dfa.NO_RULE)).isEqualTo(1);
+        assertThat(profile.chars(Dfa.NO_RULE)).isEqualTo(2);
+        assertThat(profile.statesVisited(Dfa.NO_RULE)).isEqualTo(2);
+
+        profiler.reset();
+        assertThat(profiler.snapshot().tokens(0)).isZero();
+        assertThat(new Tokenizer(tokenizer.dfa()).profiler()).isNull();
+    }
+
+    @Test
+    public void ruleSetCountsPrefilterFalsePositives() throws RedeggsParseException {
+        MatchProfiler profiler = new MatchProfiler(3);
+        RuleSet rules = RuleSet.compile(rules("ERROR[0-9][0-9]*", "disk(full|error)", "x*"), profiler);
+
+        assertThat(rules.matchingRules("ERROR42").stream().toArray()).containsExactly(0, 2);
+        assertThat(rules.matchingRules("ERROR: diskerror").stream().toArray()).containsExactly(1, 2);
+        assertThat(rules.matchingRules("disk ok").stream().toArray()).containsExactly(2);
+
+        MatchProfile profile = profiler.snapshot();
+        assertThat(profile.prefilterHits(0)).isEqualTo(2);
+        assertThat(profile.prefilterFalsePositives(0)).isEqualTo(1);
+        assertThat(profile.prefilterFalsePositiveRate(0)).isEqualTo(0.5);
+        assertThat(profile.prefilterHits(1)).isEqualTo(2);
+        assertThat(profile.prefilterFalsePositives(1)).isEqualTo(1);
+        // rules without a required literal are not filtered
+        assertThat(profile.prefilterHits(2)).isZero();
+    }
+
+    @Test
+    public void lazyDfaReportsCacheMisses() throws RedeggsParseException {
+        MatchProfiler profiler = new MatchProfiler(1);
+        LazyDfa dfa = LazyDfa.of(rules("(a|b)*abb"), Integer.MAX_VALUE, profiler);
+
+        dfa.match("abababb");
+        long misses = profiler.snapshot().cacheMisses();
+        assertThat(misses).isEqualTo(dfa.computedTransitions()).isPositive();
+
+        dfa.match("abababb");
+        assertThat(profiler.snapshot().cacheMisses()).isEqualTo(misses);
+    }
+
+    @Test
+    public void countersOfConcurrentThreadsAreMerged() throws Exception {
+        MatchProfiler profiler = new MatchProfiler(2);
+        Tokenizer tokenizer = new Tokenizer(DfaCompiler.compile(rules("[a-z][a-z]*", " ")), profiler);
+        String input = "the quick brown fox ".repeat(100);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> tokenizer.tokenize(input, new SpanBuffer())));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        MatchProfile profile = profiler.snapshot();
+        assertThat(profile.tokens(0)).isEqualTo(8 * 400);
+        assertThat(profile.chars(0)).isEqualTo(8 * 1600);
+        assertThat(profile.tokens(1)).isEqualTo(8 * 400);
+    }
+
+}
@@ -0,0 +1,170 @@
+package de.dhbw.mh.redeggs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import de.dhbw.mh.redeggs.RegularEggspression.Alternation;
+import de.dhbw.mh.redeggs.RegularEggspression.Concatenation;
+import de.dhbw.mh.redeggs.RegularEggspression.Literal;
+import de.dhbw.mh.redeggs.RegularEggspression.Star;
+
+/**
+ * Unit tests for {@link MemoizingVisitor} and {@link AnalysisPass}.
+ */
+public class MemoizingVisitorTest {
+
+    /** The parser used to create the expressions under test. */
+    private final RecursiveDescentRedeggsParser parser = new RecursiveDescentRedeggsParser(new RangeSymbolFactory());
+
+    /**
+     * Counts the nodes of an expression, counting shared subtrees once per
+     * path, and records how often it was invoked.
+     */
+    private static final class SizeAnalysis implements RegularEggspression.Visitor<Long> {
+        int invocations;
+
+        @Override
+        public Long visit(RegularEggspression.EmptyWord emptyWord) {
+            invocations++;
+            return 1L;
+        }
+
+        @Override
+        public Long visit(RegularEggspression.EmptySet emptySet) {
+            invocations++;
+            return 1L;
+        }
+
+        @Override
+        public Long visitPost(Concatenation concat, Long prefix, Long suffix) {
+            invocations++;
+            return 1 + prefix + suffix;
+        }
+
+        @Override
+        public Long visitPost(Alternation union, Long first, Long second) {
+            invocations++;
+            return 1 + first + second;
+        }
+
+        @Override
+        public Long visitPost(Star star, Long base) {
+            invocations++;
+            return 1 + base;
+        }
+
+        @Override
+        public Long visitPost(Literal literal, VirtualSymbol symbol) {
+            invocations++;
+            return 1L;
+        }
+    }
+
+    /**
+     * Checks whether an expression matches the empty word.
+     */
+    private static final class NullableAnalysis implements RegularEggspression.Visitor<Boolean> {
+        @Override
+        public Boolean visit(RegularEggspression.EmptyWord emptyWord) {
+            return true;
+        }
+
+        @Override
+        public Boolean visit(RegularEggspression.EmptySet emptySet) {
+            return false;
+        }
+
+        @Override
+        public Boolean visitPost(Concatenation concat, Boolean prefix, Boolean suffix) {
+            return prefix && suffix;
+        }
+
+        @Override
+        public Boolean visitPost(Alternation union, Boolean first, Boolean second) {
+            return first || second;
+        }
+
+        @Override
+        public Boolean visitPost(Star star, Boolean base) {
+            return true;
+        }
+
+        @Override
+        public Boolean visitPost(Literal literal, VirtualSymbol symbol) {
+            return false;
+        }
+    }
+
+    @Test
+    public void sharedSubtreesAreVisitedOnce() throws RedeggsParseException {
+        RegularEggspression expr = parser.parse("a");
+        for (int i = 0; i < 20; i++) {
+            expr = new Concatenation(expr, new Alternation(expr, new Star(expr)));
+        }
+        SizeAnalysis size = new SizeAnalysis();
+
+        long result = expr.accept(new MemoizingVisitor<>(size));
+
+        assertThat(result).isGreaterThan(1L << 30);
+        assertThat(size.invocations).isEqualTo(1 + 3 * 20);
+    }
+
+    @Test
+    public void structureKeyingSharesEqualSubtrees() throws RedeggsParseException {
+        SizeAnalysis size = new SizeAnalysis();
+        MemoizingVisitor<Long> visitor = new MemoizingVisitor<>(size, MemoizingVisitor.Keying.STRUCTURE,
+                MemoizingVisitor.Retention.WEAK);
+
+        assertThat(parser.parse("(ab)*|(ab)*").accept(visitor)).isEqualTo(9L);
+        assertThat(parser.parse("(ab)*c").accept(visitor)).isEqualTo(6L);
+
+        // a, b, ab, (ab)*, the alternation, c and (ab)*c
+        assertThat(size.invocations).isEqualTo(7);
+        assertThat(visitor.cachedResults()).isLessThan(visitor.cachedNodes());
+    }
+
+    @Test
+    public void analysisPassRunsAllAnalysesInOneTraversal() throws RedeggsParseException {
+        AnalysisPass pass = new AnalysisPass();
+        SizeAnalysis sizeAnalysis = new SizeAnalysis();
+        AnalysisPass.Key<Long> size = pass.add(sizeAnalysis);
+        AnalysisPass.Key<Boolean> nullable = pass.add(new NullableAnalysis());
+
+        AnalysisPass.Results results = pass.run(parser.parse("a(b|c)*"));
+
+        assertThat(results.get(size)).isEqualTo(6L);
+        assertThat(results.get(nullable)).isFalse();
+        assertThat(sizeAnalysis.invocations).isEqualTo(6);
+        assertThatThrownBy(() -> pass.add(new NullableAnalysis())).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> results.get(new AnalysisPass().add(new NullableAnalysis())))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void analysesHandleVeryLongLiterals() throws RedeggsParseException {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) {
+            builder.append((char) ('a' + random.nextInt(26)));
+        }
+        String text = builder.toString();
+        RegularEggspression literal = parser.parse(text);
+        RegularEggspression b = parser.parse("0");
+
+        assertThat(RequiredLiterals.of(literal).prefix()).isEqualTo(text.substring(0, RequiredLiterals.MAX_LENGTH));
+        assertThat(AhoCorasickPrefilter.of(List.of(literal)).literal(0)).hasSize(RequiredLiterals.MAX_LENGTH);
+        assertThat(RuleSet.compile(List.of(literal, b)).matchingRules(text).stream()).containsExactly(0);
+        // the forward DFA of the literal exceeds the state limit
+        assertThatThrownBy(() -> Searcher.compile(literal)).isInstanceOf(IllegalStateException.class);
+        assertThat(LanguageRelations.isEmpty(literal)).isFalse();
+        assertThat(LanguageRelations.distinguishingWord(literal, b)).contains("0");
+        assertThat(LanguageRelations.isSubsetOf(b, literal)).isFalse();
+        assertThat(LanguageRelations.equivalenceClasses(List.of(literal, b))).containsExactly(0, 1);
+    }
+
+}
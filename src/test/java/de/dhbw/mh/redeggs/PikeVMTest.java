@@ -0,0 +1,86 @@
+package de.dhbw.mh.redeggs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Unit tests for the {@link PikeVM} and the capture groups it reports.
+ */
+public class PikeVMTest {
+
+    /** The parser used to create the expressions under test. */
+    private final RecursiveDescentRedeggsParser parser = new RecursiveDescentRedeggsParser(new RangeSymbolFactory());
+
+    @BeforeEach
+    public void enableCaptureGroups() {
+        parser.setCaptureGroups(true);
+    }
+
+    private PikeVM compile(String regex) throws RedeggsParseException {
+        return PikeVM.compile(parser.parse(regex));
+    }
+
+    @Test
+    public void parserNumbersGroupsByOpeningParenthesis() throws RedeggsParseException {
+        RegularEggspression expr = parser.parse("((a)|b)c");
+
+        assertThat(expr).isInstanceOf(RegularEggspression.Concatenation.class);
+        RegularEggspression.Group outer = (RegularEggspression.Group) ((RegularEggspression.Concatenation) expr)
+                .left();
+        assertThat(outer.index()).isEqualTo(1);
+        RegularEggspression.Group inner = (RegularEggspression.Group) ((RegularEggspression.Alternation) outer.base())
+                .left();
+        assertThat(inner.index()).isEqualTo(2);
+    }
+
+    @Test
+    public void matchesReportsGroupBoundaries() throws RedeggsParseException {
+        PikeVM vm = compile("(a*)(b|bc)");
+        int[] groups = new int[2 * (vm.groupCount() + 1)];
+
+        assertThat(vm.matches("aabc", groups)).isTrue();
+        assertThat(groups).containsExactly(0, 4, 0, 2, 2, 4);
+        assertThat(vm.matches("aabcx")).isFalse();
+    }
+
+    @Test
+    public void findReportsLeftmostFirstMatch() throws RedeggsParseException {
+        PikeVM vm = compile("a(b|c)*");
+        int[] groups = new int[4];
+
+        assertThat(vm.find("xxabcby", 0, groups)).isTrue();
+        assertThat(groups).containsExactly(2, 6, 5, 6);
+        assertThat(vm.find("xxabcby", 6, groups)).isFalse();
+    }
+
+    @Test
+    public void unsetGroupsAreReportedAsMinusOne() throws RedeggsParseException {
+        PikeVM vm = compile("(a)|(b)");
+        int[] groups = new int[6];
+
+        assertThat(vm.matches("b", groups)).isTrue();
+        assertThat(groups).containsExactly(0, 1, -1, -1, 0, 1);
+    }
+
+    @Test
+    public void negatedClassesAndSupplementaryCharacters() throws RedeggsParseException {
+        PikeVM vm = compile("[^a]🥚");
+
+        assertThat(vm.matches("x🥚")).isTrue();
+        assertThat(vm.matches("a🥚")).isFalse();
+    }
+
+    @Test
+    @Timeout(5)
+    public void adversarialInputTakesLinearTime() throws RedeggsParseException {
+        PikeVM vm = compile("(a*)*(a|b)*c");
+        String input = "a".repeat(100_000);
+
+        assertThat(vm.matches(input)).isFalse();
+        assertThat(vm.find(input, 0, null)).isFalse();
+    }
+
+}
@@ -0,0 +1,182 @@
+package de.dhbw.mh.redeggs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Stress tests for the {@link RecursiveDescentRedeggsParser}.
+ * <p>
+ * Every case parses a large or pathological pattern and asserts a time and an
+ * allocation budget. The budgets are generous enough for slow build machines,
+ * but a parser that copies the input, recurses per symbol or otherwise scales
+ * worse than linearly exceeds them by orders of magnitude.
+ * </p>
+ */
+public class RecursiveDescentRedeggsParserStressTest {
+
+    private static final int MEGABYTE = 1 << 20;
+
+    /** The parser used to create the expressions under test. */
+    private final RecursiveDescentRedeggsParser parser = new RecursiveDescentRedeggsParser(new RangeSymbolFactory());
+
+    private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory
+            .getThreadMXBean();
+
+    @FunctionalInterface
+    private interface Parse {
+        RegularEggspression run() throws RedeggsParseException;
+    }
+
+    /**
+     * Runs the given parse and checks that it stays within the given budgets.
+     *
+     * @return the bytes allocated by the parse
+     */
+    private static long assertWithinBudget(Duration time, long bytes, Parse parse) throws RedeggsParseException {
+        long allocatedBefore = THREADS.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        parse.run();
+        long elapsed = System.nanoTime() - start;
+        long allocated = THREADS.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        assertThat(Duration.ofNanos(elapsed)).as("parse time").isLessThanOrEqualTo(time);
+        assertThat(allocated).as("allocated bytes").isLessThanOrEqualTo(bytes);
+        return allocated;
+    }
+
+    private static String literals(int length, Random random) {
+        StringBuilder pattern = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            pattern.append((char) ('a' + random.nextInt(26)));
+        }
+        return pattern.toString();
+    }
+
+    @Test
+    public void deepNestingUpToTheLimitParses() throws RedeggsParseException {
+        int depth = RecursiveDescentRedeggsParser.DEFAULT_MAX_NESTING_DEPTH;
+        String pattern = "(".repeat(depth) + "a" + ")".repeat(depth);
+
+        assertWithinBudget(Duration.ofSeconds(1), 4 * MEGABYTE, () -> parser.parse(pattern));
+    }
+
+    @Test
+    public void deeperNestingFailsWithParseException() {
+        int depth = 100_000;
+        String pattern = "(".repeat(depth) + "a" + ")".repeat(depth);
+
+        assertThatThrownBy(() -> assertWithinBudget(Duration.ofSeconds(1), MEGABYTE, () -> parser.parse(pattern)))
+                .isInstanceOfSatisfying(RedeggsParseException.class, e -> {
+                    assertThat(e.getErrorCode()).isEqualTo(ParseErrorCode.NESTING_TOO_DEEP);
+                    assertThat(e.getErrorOffset()).isEqualTo(RecursiveDescentRedeggsParser.DEFAULT_MAX_NESTING_DEPTH + 1);
+                });
+    }
+
+    @Test
+    public void megabyteLiteralScalesLinearly() throws RedeggsParseException {
+        Random random = new Random(41);
+        String half = literals(MEGABYTE / 2, random);
+        String full = literals(MEGABYTE, random);
+
+        long halfBytes = assertWithinBudget(Duration.ofSeconds(5), 400L * MEGABYTE / 2, () -> parser.parse(half));
+        long fullBytes = assertWithinBudget(Duration.ofSeconds(5), 400L * MEGABYTE, () -> parser.parse(full));
+
+        assertThat((double) fullBytes / halfBytes).isLessThan(2.5);
+    }
+
+    @Test
+    public void hundredThousandWayAlternation() throws RedeggsParseException {
+        Random random = new Random(41);
+        StringBuilder pattern = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) {
+            if (i > 0) {
+                pattern.append('|');
+            }
+            pattern.append(literals(1 + random.nextInt(8), random));
+        }
+        String alternation = pattern.toString();
+
+        assertWithinBudget(Duration.ofSeconds(5), 400L * alternation.length(), () -> parser.parse(alternation));
+    }
+
+    @Test
+    public void hugeCharacterClass() throws RedeggsParseException {
+        Random random = new Random(41);
+        StringBuilder pattern = new StringBuilder("[^");
+        for (int i = 0; i < 100_000; i++) {
+            int first = 0x100 + random.nextInt(0xD000);
+            pattern.append((char) first).append('-').append((char) (first + random.nextInt(64)));
+        }
+        String characterClass = pattern.append(']').toString();
+
+        assertWithinBudget(Duration.ofSeconds(5), 50L * characterClass.length(), () -> {
+            RegularEggspression expression = parser.parse(characterClass);
+            assertThat(expression).isInstanceOf(RegularEggspression.Literal.class);
+            return expression;
+        });
+    }
+
+    @Test
+    public void randomGrammarConformingPatterns() throws RedeggsParseException {
+        Random random = new Random(41);
+        for (int i = 0; i < 20; i++) {
+            StringBuilder pattern = new StringBuilder();
+            while (pattern.length() < 50_000) {
+                if (pattern.length() > 0) {
+                    pattern.append('|');
+                }
+                randomRegex(pattern, random, 6);
+            }
+            String regex = pattern.toString();
+            assertThat(regex.codePoints()).contains(0x1F95A);
+
+            assertWithinBudget(Duration.ofSeconds(2), 250L * regex.length(), () -> parser.parse(regex));
+        }
+    }
+
+    /** The literals of random patterns, including a supplementary code point. */
+    private static final int[] LITERALS = "abcxyz0🥚".codePoints().toArray();
+
+    /**
+     * Appends a random pattern derived from the grammar rule {@code regex}.
+     */
+    private static void randomRegex(StringBuilder pattern, Random random, int depth) {
+        int alternatives = 1 + random.nextInt(3);
+        for (int a = 0; a < alternatives; a++) {
+            if (a > 0) {
+                pattern.append('|');
+            }
+            int factors = 1 + random.nextInt(4);
+            for (int f = 0; f < factors; f++) {
+                int kind = depth == 0 ? random.nextInt(2) : random.nextInt(4);
+                if (kind == 0) {
+                    pattern.appendCodePoint(LITERALS[random.nextInt(LITERALS.length)]);
+                } else if (kind == 1) {
+                    pattern.append(random.nextBoolean() ? "[" : "[^");
+                    for (int r = 1 + random.nextInt(3); r > 0; r--) {
+                        char first = (char) ('a' + random.nextInt(20));
+                        pattern.append(first);
+                        if (random.nextBoolean()) {
+                            pattern.append('-').append((char) (first + random.nextInt(6)));
+                        }
+                    }
+                    pattern.append(']');
+                } else {
+                    pattern.append('(');
+                    randomRegex(pattern, random, depth - 1);
+                    pattern.append(')');
+                }
+                if (random.nextInt(3) == 0) {
+                    pattern.append('*');
+                }
+            }
+        }
+    }
+
+}
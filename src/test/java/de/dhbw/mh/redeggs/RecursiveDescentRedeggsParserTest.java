@@ -192,10 +192,26 @@ public class RecursiveDescentRedeggsParserTest {
                                 .andNothingElse().toString()));
     }
 
+    @Test
+    public void supplementaryCodePointIsSingleLiteral() throws RedeggsParseException {
+        RegularEggspression expr = parser.parse("\uD83E\uDD5A*");
+
+        assertThat(expr).isInstanceOf(Star.class);
+        assertThat(expr.accept(INSPECTOR)).isEqualTo("([\\u1F95A])*");
+    }
+
+    @Test
+    public void supplementaryCodePointsFormRange() throws RedeggsParseException {
+        RegularEggspression expr = parser.parse("[\uD83D\uDC23-\uD83D\uDC25]");
+
+        assertThat(expr).isInstanceOf(Literal.class);
+        assertThat(expr.accept(INSPECTOR)).isEqualTo("[\\u1F423-\\u1F425]");
+    }
+
     public static final Random RANDOM = new Random();
 
-    private static final Set<Integer> EXCLUDED_CODEPOINTS = Set.of((int) '*', (int) '+', (int) '.', (int) '|',
-            (int) '(', (int) ')', (int) '[', (int) ']', (int) 'ε', (int) '∅');
+    private static final Set<Integer> EXCLUDED_CODEPOINTS = Set.of((int) '*', (int) '+', (int) '?', (int) '{',
+            (int) '.', (int) '|', (int) '(', (int) ')', (int) '[', (int) ']', (int) 'ε', (int) '∅');
 
     public static Integer[] getRandomCodepoints(int number) {
         int maxCodePoint = 0xffff;
@@ -363,4 +379,151 @@ public class RecursiveDescentRedeggsParserTest {
                 .isThrownBy(() -> parser.parse(input)).withMessage("Unexpected symbol '%c' at position %d.", ')', 6);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void prematureEndOfInputIsReported() {
+        assertThatExceptionOfType(RedeggsParseException.class).isThrownBy(() -> parser.parse("a|"))
+                .withMessage("Input ended unexpectedly at position 3.");
+        assertThatExceptionOfType(RedeggsParseException.class).isThrownBy(() -> parser.parse("[a"))
+                .withMessage("Input ended unexpectedly at position 3.");
+    }
+
+    @Test
+    public void tryParseReturnsExpression() {
+        ParseResult result = parser.tryParse("a|b");
+
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(result.expression().accept(INSPECTOR)).isEqualTo("([\\u0061]|[\\u0062])");
+    }
+
+    @Test
+    public void tryParseReturnsErrorCodeAndOffset() {
+        ParseResult result = parser.tryParse("[[]]");
+
+        assertThat(result.isSuccess()).isFalse();
+        assertThat(result.errorCode()).isEqualTo(ParseErrorCode.UNEXPECTED_SYMBOL);
+        assertThat(result.errorOffset()).isEqualTo(4);
+        assertThat(result.message()).isEqualTo("Unexpected symbol ']' at position 4.");
+    }
+
+    @Test
+    public void parseExceptionsAreStackless() {
+        assertThatExceptionOfType(RedeggsParseException.class).isThrownBy(() -> parser.parse("(a"))
+                .satisfies(e -> assertThat(e.getStackTrace()).isEmpty())
+                .satisfies(e -> assertThat(e.getErrorCode()).isEqualTo(ParseErrorCode.MISSING_RIGHT_PARENTHESIS));
+    }
+
+    @Test
+    public void recoveryCollectsAllErrorsInOnePass() {
+        ParseReport report = parser.parseWithRecovery("a**|[]b|(c");
+
+        assertThat(report.hasErrors()).isTrue();
+        assertThat(report.diagnostics()).extracting(RedeggsDiagnostic::getErrorOffset).containsExactly(3, 6, 11);
+        assertThat(report.diagnostics()).extracting(RedeggsDiagnostic::getMessage).containsExactly(
+                "Unexpected symbol '*' at position 3.", "Unexpected symbol ']' at position 6.",
+                "Input ended unexpectedly, expected symbol ')' at position 11.");
+        assertThat(report.expression().accept(INSPECTOR))
+                .isEqualTo("(((([\\u0061])*∅)|(∅[\\u0062]))|[\\u0063])");
+    }
+
+    @Test
+    public void recoverySkipsUnbalancedRightParen() {
+        ParseReport report = parser.parseWithRecovery("a)b");
+
+        assertThat(report.diagnostics()).extracting(RedeggsDiagnostic::getErrorOffset).containsExactly(2);
+        assertThat(report.expression().accept(INSPECTOR)).isEqualTo("(([\\u0061]∅)[\\u0062])");
+    }
+
+    @Test
+    public void recoveryOfValidInputHasNoErrors() throws RedeggsParseException {
+        ParseReport report = parser.parseWithRecovery("a(b|c)*");
+
+        assertThat(report.hasErrors()).isFalse();
+        assertThat(report.expression().accept(INSPECTOR)).isEqualTo(parser.parse("a(b|c)*").accept(INSPECTOR));
+    }
+
+    @Test
+    public void reparseReusesUntouchedAlternative() throws RedeggsParseException {
+        String oldText = "ab|cd";
+        Alternation previous = (Alternation) parser.parse(oldText);
+
+        RegularEggspression expr = parser.reparse(previous, oldText, new TextEdit(3, 1, "x"));
+
+        assertThat(expr).isInstanceOf(Alternation.class);
+        assertThat(((Alternation) expr).left()).isSameAs(previous.left());
+        assertThat(expr.accept(INSPECTOR)).isEqualTo(parser.parse("ab|xd").accept(INSPECTOR));
+    }
+
+    @Test
+    public void reparseOnlyTouchesEnclosingGroup() throws RedeggsParseException {
+        String oldText = "a(b|c)*d";
+        Concatenation previous = (Concatenation) parser.parse(oldText);
+        Concatenation prefix = (Concatenation) previous.left();
+
+        RegularEggspression expr = parser.reparse(previous, oldText, new TextEdit(4, 1, "ee"));
+
+        Concatenation result = (Concatenation) expr;
+        assertThat(result.right()).isSameAs(previous.right());
+        assertThat(((Concatenation) result.left()).left()).isSameAs(prefix.left());
+        assertThat(expr.accept(INSPECTOR)).isEqualTo(parser.parse("a(b|ee)*d").accept(INSPECTOR));
+    }
+
+    @Test
+    public void reparseFallsBackToFullParse() throws RedeggsParseException {
+        String oldText = "ab(c)";
+        RegularEggspression previous = parser.parse(oldText);
+
+        RegularEggspression expr = parser.reparse(previous, oldText, new TextEdit(1, 0, "|"));
+
+        assertThat(expr.accept(INSPECTOR)).isEqualTo(parser.parse("a|b(c)").accept(INSPECTOR));
+        assertThatExceptionOfType(RedeggsParseException.class)
+                .isThrownBy(() -> parser.reparse(previous, oldText, new TextEdit(4, 0, "(")));
+    }
+
+    @Test
+    public void metricsReportSuccessfulParse() throws RedeggsParseException {
+        long[] reported = new long[4];
+        ParserMetrics metrics = new ParserMetrics() {
+            @Override
+            public void parsed(long durationNanos, int patternLength, int nodesCreated, int symbolsCreated) {
+                reported[0] = durationNanos;
+                reported[1] = patternLength;
+                reported[2] = nodesCreated;
+                reported[3] = symbolsCreated;
+            }
+        };
+
+        new RecursiveDescentRedeggsParser(SYMBOL_FACTORY, metrics).parse("a[bc]*|d");
+
+        assertThat(reported[0]).isPositive();
+        assertThat(reported[1]).isEqualTo(8);
+        assertThat(reported[2]).isEqualTo(6);
+        assertThat(reported[3]).isEqualTo(3);
+    }
+
+    @Test
+    public void metricsReportFailureOffset() {
+        int[] reported = new int[] { -1, -1 };
+        ParserMetrics metrics = new ParserMetrics() {
+            @Override
+            public void failed(long durationNanos, int patternLength, int errorOffset) {
+                reported[0] = patternLength;
+                reported[1] = errorOffset;
+            }
+        };
+
+        assertThatExceptionOfType(RedeggsParseException.class)
+                .isThrownBy(() -> new RecursiveDescentRedeggsParser(SYMBOL_FACTORY, metrics).parse("[[]]"));
+        assertThat(reported).containsExactly(4, 4);
+    }
+
+    @Test
+    public void nestingDepthIsLimited() throws RedeggsParseException {
+        parser.setMaxNestingDepth(2);
+
+        assertThat(parser.parse("((a)b)").accept(INSPECTOR)).isEqualTo("([\\u0061][\\u0062])");
+        assertThatExceptionOfType(RedeggsParseException.class).isThrownBy(() -> parser.parse("(((a)))"))
+                .satisfies(e -> assertThat(e.getErrorCode()).isEqualTo(ParseErrorCode.NESTING_TOO_DEEP))
+                .withMessage("Groups nested too deeply at position 3.");
+    }
+
+}
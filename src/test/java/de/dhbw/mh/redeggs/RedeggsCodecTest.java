@@ -0,0 +1,118 @@
+package de.dhbw.mh.redeggs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link RedeggsSerializer} and {@link RedeggsCodec}.
+ */
+public class RedeggsCodecTest {
+
+    /** The parser used to create the expressions under test. */
+    private final RecursiveDescentRedeggsParser parser = new RecursiveDescentRedeggsParser(new RangeSymbolFactory());
+
+    private static final String[] PATTERNS = { "a", "ab|c", "(a|b)*abb", "[a-z_][a-z0-9_]*", "((a)(b|[x-z]))*",
+            "x(y|ε)z", "🥚(🐣|🐔)*" };
+
+    /** Builds {@code depth} nested concatenations, too deep for recursive visitors. */
+    private RegularEggspression deepChain(int depth) throws RedeggsParseException {
+        RegularEggspression a = parser.parse("a");
+        RegularEggspression result = parser.parse("b");
+        for (int i = 0; i < depth; i++) {
+            result = new RegularEggspression.Concatenation(a, result);
+        }
+        return result;
+    }
+
+    @Test
+    public void serializerMatchesNodeInspector() throws RedeggsParseException, IOException {
+        for (String pattern : PATTERNS) {
+            RegularEggspression expression = parser.parse(pattern);
+            String expected = expression.accept(new NodeInspector());
+            StringWriter out = new StringWriter();
+            RedeggsSerializer.write(expression, out);
+            assertThat(out.toString()).as(pattern).isEqualTo(expected);
+            assertThat(expression.toString()).as(pattern).isEqualTo(expected);
+        }
+        assertThat(new RegularEggspression.Star(new RegularEggspression.EmptySet()).toString()).isEqualTo("(∅)*");
+    }
+
+    @Test
+    public void deepTreesAreSerializedIteratively() throws RedeggsParseException {
+        int depth = 200_000;
+        String text = deepChain(depth).toString();
+        String a = parser.parse("a").toString();
+        String b = parser.parse("b").toString();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            expected.append('(').append(a);
+        }
+        expected.append(b);
+        for (int i = 0; i < depth; i++) {
+            expected.append(')');
+        }
+        assertThat(text.equals(expected.toString())).isTrue();
+    }
+
+    @Test
+    public void roundTripPreservesStructure() throws RedeggsParseException {
+        for (String pattern : PATTERNS) {
+            RegularEggspression expression = parser.parse(pattern);
+            RegularEggspression decoded = RedeggsCodec.decode(RedeggsCodec.encode(expression), new RangeSymbolFactory());
+            assertThat(decoded.toString()).as(pattern).isEqualTo(expression.toString());
+            assertThat(PikeVM.compile(decoded).groupCount()).isEqualTo(PikeVM.compile(expression).groupCount());
+        }
+    }
+
+    @Test
+    public void encodingIsCompactAndSharesSymbols() throws RedeggsParseException {
+        RegularEggspression expression = deepChain(100_000);
+        byte[] encoded = RedeggsCodec.encode(expression);
+        // one byte per concatenation and two per literal
+        assertThat(encoded.length).isLessThan(4 * 100_000);
+
+        RegularEggspression decoded = RedeggsCodec.decode(encoded, new RangeSymbolFactory());
+        RegularEggspression.Concatenation outer = (RegularEggspression.Concatenation) decoded;
+        RegularEggspression.Concatenation inner = (RegularEggspression.Concatenation) outer.right();
+        assertThat(((RegularEggspression.Literal) inner.left()).symbol())
+                .isSameAs(((RegularEggspression.Literal) outer.left()).symbol());
+        assertThat(RedeggsCodec.encode(decoded)).isEqualTo(encoded);
+    }
+
+    @Test
+    public void corruptEncodingsAreRejected() throws RedeggsParseException {
+        byte[] encoded = RedeggsCodec.encode(parser.parse("(ab|c)*"));
+        assertThatThrownBy(() -> RedeggsCodec.decode(Arrays.copyOf(encoded, encoded.length - 1),
+                new RangeSymbolFactory())).isInstanceOf(IllegalArgumentException.class);
+        byte[] wrongMagic = encoded.clone();
+        wrongMagic[0] = 'X';
+        assertThatThrownBy(() -> RedeggsCodec.decode(wrongMagic, new RangeSymbolFactory()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void encodingsBeyondTheRepetitionLimitsAreRejected() throws RedeggsParseException {
+        RegularEggspression ab = parser.parse("ab{1000}");
+        RegularEggspression nested = new RegularEggspression.Repetition(
+                new RegularEggspression.Repetition(ab, 1000, 1000), 1000, 1000);
+        byte[] encoded = RedeggsCodec.encode(nested);
+        assertThat(encoded.length).isLessThan(40);
+        assertThatThrownBy(() -> RedeggsCodec.decode(encoded, new RangeSymbolFactory()))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        RegularEggspression huge = new RegularEggspression.Repetition(parser.parse("a"), 5000, 5000);
+        assertThatThrownBy(() -> RedeggsCodec.decode(RedeggsCodec.encode(huge), new RangeSymbolFactory()))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        RegularEggspression plus = parser.parse("((ab{1000}){50})+");
+        assertThat(RedeggsCodec.decode(RedeggsCodec.encode(plus), new RangeSymbolFactory()).toString())
+                .isEqualTo(plus.toString());
+    }
+
+}
@@ -0,0 +1,280 @@
+package de.dhbw.mh.redeggs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link RedeggsService}.
+ */
+public class RedeggsServiceTest {
+
+    /** Counts the parsers handed out, i.e. the compilations. */
+    private final AtomicInteger compilations = new AtomicInteger();
+
+    private RedeggsService service(int parallelism, int maxPending, int cacheSize) {
+        return new RedeggsService(() -> {
+            compilations.incrementAndGet();
+            return new RecursiveDescentRedeggsParser(new RangeSymbolFactory());
+        }, parallelism, maxPending, cacheSize);
+    }
+
+    @Test
+    public void matchesWholeInput() throws Exception {
+        try (RedeggsService service = service(2, 16, 16)) {
+            assertThat(service.match("a(b|c)*", "abcb").get()).isTrue();
+            assertThat(service.match("a(b|c)*", "abd").get()).isFalse();
+            assertThat(service.matchBatch("[0-9][0-9]*", Arrays.asList("12", "x", "", "7")).get())
+                    .containsExactly(true, false, false, true);
+        }
+    }
+
+    @Test
+    public void invalidPatternFailsJob() {
+        try (RedeggsService service = service(2, 16, 16)) {
+            assertThatThrownBy(() -> service.match("a(b", "ab").get()).isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(RedeggsParseException.class);
+            assertThat(service.pendingJobs()).isZero();
+        }
+    }
+
+    @Test
+    public void compilationErrorsAreNotCached() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        try (RedeggsService service = new RedeggsService(() -> {
+            if (calls.getAndIncrement() == 0) {
+                throw new StackOverflowError();
+            }
+            return new RecursiveDescentRedeggsParser(new RangeSymbolFactory());
+        }, 2, 1, 16)) {
+            assertThatThrownBy(() -> service.match("a", "a").get()).hasCauseInstanceOf(StackOverflowError.class);
+            assertThat(service.cachedPatterns()).isZero();
+            assertThat(service.match("a", "a").get(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(service.pendingJobs()).isZero();
+        }
+    }
+
+    @Test
+    public void largePatternsCompileOrFailFast() throws Exception {
+        try (RedeggsService service = service(2, 16, 16)) {
+            assertThat(service.match("a".repeat(5000), "a".repeat(5000)).get()).isTrue();
+            assertThat(service.match("ab|".repeat(4999) + "ab", "ab").get()).isTrue();
+            assertThatThrownBy(() -> service.match("((a{1000}){1000}){1000}", "a").get())
+                    .hasCauseInstanceOf(RedeggsParseException.class);
+            assertThatThrownBy(() -> service.match("a".repeat(RedeggsService.MAX_PATTERN_LENGTH + 1), "a").get())
+                    .hasCauseInstanceOf(IllegalArgumentException.class);
+            assertThat(service.pendingJobs()).isZero();
+        }
+    }
+
+    @Test
+    public void compilesEachPatternOnce() throws Exception {
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            inputs.add(Integer.toString(i));
+        }
+        try (RedeggsService service = service(4, 64, 16)) {
+            List<CompletableFuture<Boolean>> jobs = new ArrayList<>();
+            for (String input : inputs) {
+                jobs.add(service.match("[1-9][0-9]*|0", input));
+            }
+            assertThat(service.matchBatch("[1-9][0-9]*|0", inputs).get()).doesNotContain(false);
+            for (CompletableFuture<Boolean> job : jobs) {
+                assertThat(job.get()).isTrue();
+            }
+        }
+        assertThat(compilations.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void cacheIsBounded() throws Exception {
+        try (RedeggsService service = service(1, 4, 2)) {
+            service.match("a", "a").get();
+            service.match("b", "b").get();
+            service.match("a", "a").get();
+            service.match("c", "c").get();
+            assertThat(service.cachedPatterns()).isEqualTo(2);
+            // "b" was evicted as the least recently used pattern
+            service.match("b", "b").get();
+            service.match("a", "a").get();
+        }
+        assertThat(compilations.get()).isEqualTo(5);
+    }
+
+    @Test
+    public void submissionBlocksWhileJobsArePending() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CharSequence blocking = new CharSequence() {
+            @Override
+            public int length() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return 1;
+            }
+
+            @Override
+            public char charAt(int index) {
+                return 'a';
+            }
+
+            @Override
+            public CharSequence subSequence(int start, int end) {
+                return "a".subSequence(start, end);
+            }
+        };
+        try (RedeggsService service = service(4, 2, 16)) {
+            service.match("a", blocking);
+            service.match("a", blocking);
+            CompletableFuture<CompletableFuture<Boolean>> third = CompletableFuture
+                    .supplyAsync(() -> service.match("a", "a"));
+
+            Thread.sleep(100);
+            assertThat(third).isNotDone();
+            assertThat(service.pendingJobs()).isEqualTo(2);
+
+            release.countDown();
+            assertThat(third.get(10, TimeUnit.SECONDS).get()).isTrue();
+        }
+    }
+
+    @Test
+    public void publisherEmitsEveryResult() throws Exception {
+        List<RedeggsService.Job> jobs = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            jobs.add(new RedeggsService.Job(i % 3 == 0 ? "(x" : "[a-z]*", i % 2 == 0 ? "abc" : "ab1"));
+        }
+        AtomicInteger matched = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicInteger total = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(1);
+        try (RedeggsService service = service(4, 8, 16)) {
+            service.matchAll(jobs).subscribe(new Flow.Subscriber<RedeggsService.Result>() {
+                private Flow.Subscription subscription;
+
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    this.subscription = subscription;
+                    subscription.request(1);
+                }
+
+                @Override
+                public void onNext(RedeggsService.Result result) {
+                    total.incrementAndGet();
+                    if (result.error() != null) {
+                        assertThat(result.error()).isInstanceOf(RedeggsParseException.class);
+                        failed.incrementAndGet();
+                    } else if (result.matched()) {
+                        matched.incrementAndGet();
+                    }
+                    subscription.request(1);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    done.countDown();
+                }
+
+                @Override
+                public void onComplete() {
+                    done.countDown();
+                }
+            });
+            assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+        }
+        assertThat(total.get()).isEqualTo(1000);
+        assertThat(failed.get()).isEqualTo(334);
+        // even indices not divisible by 3
+        assertThat(matched.get()).isEqualTo(500 - 167);
+    }
+
+    @Test
+    public void slowSubscribersDoNotStallTheService() throws Exception {
+        List<RedeggsService.Job> jobs = new ArrayList<>();
+        // more than the buffer of a SubmissionPublisher
+        for (int i = 0; i < 1000; i++) {
+            jobs.add(new RedeggsService.Job("a", "a"));
+        }
+        AtomicInteger idleResults = new AtomicInteger();
+        AtomicInteger slowResults = new AtomicInteger();
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        try (RedeggsService service = service(2, 2, 16)) {
+            // never requests a result
+            service.matchAll(jobs).subscribe(new Flow.Subscriber<RedeggsService.Result>() {
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                }
+
+                @Override
+                public void onNext(RedeggsService.Result result) {
+                    idleResults.incrementAndGet();
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                }
+
+                @Override
+                public void onComplete() {
+                }
+            });
+            // requests everything, but blocks on the first result
+            service.matchAll(jobs).subscribe(new Flow.Subscriber<RedeggsService.Result>() {
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscription.request(Long.MAX_VALUE);
+                }
+
+                @Override
+                public void onNext(RedeggsService.Result result) {
+                    slowResults.incrementAndGet();
+                    blocked.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    done.countDown();
+                }
+
+                @Override
+                public void onComplete() {
+                    done.countDown();
+                }
+            });
+
+            CompletableFuture<CompletableFuture<Boolean>> unrelated = CompletableFuture
+                    .supplyAsync(() -> service.match("b", "b"));
+            assertThat(unrelated.get(10, TimeUnit.SECONDS).get(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(blocked.await(10, TimeUnit.SECONDS)).isTrue();
+            Thread.sleep(100);
+            assertThat(service.pendingJobs()).isZero();
+            assertThat(idleResults.get()).isZero();
+            assertThat(slowResults.get()).isEqualTo(1);
+
+            release.countDown();
+            assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        }
+        assertThat(slowResults.get()).isEqualTo(1000);
+    }
+
+}
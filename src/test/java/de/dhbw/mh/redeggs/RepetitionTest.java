@@ -0,0 +1,136 @@
+package de.dhbw.mh.redeggs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+import de.dhbw.mh.redeggs.RegularEggspression.Repetition;
+
+/**
+ * Unit tests for counted repetitions ({@code +}, {@code ?} and {@code {m,n}}).
+ */
+public class RepetitionTest {
+
+    /** The parser used to create the expressions under test. */
+    private final RecursiveDescentRedeggsParser parser = new RecursiveDescentRedeggsParser(new RangeSymbolFactory());
+
+    private static final NodeInspector INSPECTOR = new NodeInspector();
+
+    @Test
+    public void quantifiersBecomeRepetitionNodes() throws RedeggsParseException {
+        assertThat(parser.parse("a+").accept(INSPECTOR)).isEqualTo("([\\u0061])+");
+        assertThat(parser.parse("a?b").accept(INSPECTOR)).isEqualTo("(([\\u0061])?[\\u0062])");
+        assertThat(parser.parse("(ab){2,5}").toString()).isEqualTo("(([\\u0061][\\u0062])){2,5}");
+
+        Repetition exact = (Repetition) parser.parse("a{3}");
+        assertThat(exact.min()).isEqualTo(3);
+        assertThat(exact.max()).isEqualTo(3);
+        Repetition open = (Repetition) parser.parse("[0-9]{2,}");
+        assertThat(open.min()).isEqualTo(2);
+        assertThat(open.max()).isEqualTo(Repetition.UNBOUNDED);
+        assertThat(open.quantifier()).isEqualTo("{2,}");
+    }
+
+    @Test
+    public void quantifierCharactersRemainAllowedInClasses() throws RedeggsParseException {
+        assertThat(parser.parse("[+?]").accept(INSPECTOR)).isEqualTo("[\\u002B\\u003F]");
+        assertThat(parser.parse("[a+?]").accept(INSPECTOR)).isEqualTo("[\\u002B\\u003F\\u0061]");
+        assertThat(parser.parse("}").accept(INSPECTOR)).isEqualTo("[\\u007D]");
+    }
+
+    @Test
+    public void malformedRepetitionsAreRejected() {
+        assertThatThrownBy(() -> parser.parse("a{5,2}")).isInstanceOf(RedeggsParseException.class)
+                .hasMessage("Repetition bounds out of range at position 7.");
+        assertThatThrownBy(() -> parser.parse("a{1001}")).isInstanceOf(RedeggsParseException.class)
+                .extracting(e -> ((RedeggsParseException) e).getErrorCode())
+                .isEqualTo(ParseErrorCode.REPETITION_OUT_OF_RANGE);
+        // every bound is acceptable, but the nesting expands to 10^9 copies of a
+        assertThatThrownBy(() -> parser.parse("((a{1000}){1000}){1000}")).isInstanceOf(RedeggsParseException.class)
+                .extracting(e -> ((RedeggsParseException) e).getErrorCode())
+                .isEqualTo(ParseErrorCode.REPETITION_OUT_OF_RANGE);
+        assertThatThrownBy(() -> parser.parse("(a{1000}){1000}")).isInstanceOf(RedeggsParseException.class);
+        assertThat(parser.tryParse("(a{1000}){50}").isSuccess()).isTrue();
+        assertThat(parser.tryParse("a".repeat(60_000) + "+").isSuccess()).isTrue();
+        assertThat(parser.tryParse("(" + "a".repeat(60_000) + "?)+").isSuccess()).isTrue();
+        assertThat(parser.tryParse("((a{1000})+){50}").isSuccess()).isTrue();
+        assertThatThrownBy(() -> parser.parse("a+*")).hasMessage("Unexpected symbol '*' at position 3.");
+        assertThatThrownBy(() -> parser.parse("+a")).hasMessage("Unexpected symbol '+' at position 1.");
+    }
+
+    @Test
+    public void bracesWithoutQuantifierAreLiterals() throws RedeggsParseException {
+        for (String pattern : List.of("a{b", "a{", "a{,3}", "a{x}", "a{1", "a{1,x}", "{1}")) {
+            String escaped = pattern.replace("{", "[{]");
+            assertThat(parser.parse(pattern).accept(INSPECTOR)).as(pattern)
+                    .isEqualTo(parser.parse(escaped).accept(INSPECTOR));
+        }
+        assertThat(parser.parse("a{1}{").accept(INSPECTOR)).isEqualTo(parser.parse("a{1}[{]").accept(INSPECTOR));
+        assertThat(parser.parse("a{{2}").accept(INSPECTOR)).isEqualTo(parser.parse("a[{]{2}").accept(INSPECTOR));
+    }
+
+    @Test
+    public void expansionSharesSubtrees() throws RedeggsParseException {
+        Repetition repetition = (Repetition) parser.parse("(abc){1,1000}");
+        MemoizingVisitor<String> size = new MemoizingVisitor<>(new NodeInspector());
+        repetition.expand().accept(size);
+        // the base, one optional and about two nodes per bit of 1000
+        assertThat(size.cachedNodes()).isLessThan(40);
+
+        assertThat(GlushkovAutomaton.of(parser.parse("(abc)+")).positionCount()).isEqualTo(3);
+        assertThat(GlushkovAutomaton.of(parser.parse("(abc)?")).positionCount()).isEqualTo(3);
+        assertThat(GlushkovAutomaton.of(parser.parse("(abc){2,3}")).positionCount()).isEqualTo(9);
+        assertThat(GlushkovAutomaton.of(parser.parse("a{0}")).positionCount()).isZero();
+    }
+
+    @Test
+    public void enginesAgreeWithJavaRegex() throws RedeggsParseException {
+        List<String> patterns = List.of("a+", "(ab)?c", "a{3}", "(a|b){2,4}", "b{2,}a?", "(a?b+)*", "(a|ε){0,3}b",
+                "a{0}b", "(a*){2}b");
+        Random random = new Random(45);
+        for (String pattern : patterns) {
+            RegularEggspression expression = parser.parse(pattern);
+            Pattern reference = Pattern.compile(pattern.replace("ε", ""));
+            RedeggsMatcher bitParallel = BitParallelMatcher.compile(expression);
+            PikeVM pike = PikeVM.compile(expression);
+            Dfa dfa = DfaCompiler.compile(expression);
+            for (int i = 0; i < 300; i++) {
+                StringBuilder input = new StringBuilder();
+                for (int n = random.nextInt(8); n > 0; n--) {
+                    input.append((char) ('a' + random.nextInt(3)));
+                }
+                boolean expected = reference.matcher(input).matches();
+                assertThat(bitParallel.matches(input)).as("%s on %s", pattern, input).isEqualTo(expected);
+                assertThat(pike.matches(input)).as("%s on %s", pattern, input).isEqualTo(expected);
+                assertThat(dfa.matches(input)).as("%s on %s", pattern, input).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    public void greedyQuantifiersReportLongestSubmatch() throws RedeggsParseException {
+        parser.setCaptureGroups(true);
+        PikeVM pike = PikeVM.compile(parser.parse("(a+)(a?)(b{1,2})"));
+        int[] groups = new int[2 * (pike.groupCount() + 1)];
+
+        assertThat(pike.matches("aaabb", groups)).isTrue();
+        assertThat(groups).containsExactly(0, 5, 0, 3, 3, 3, 3, 5);
+    }
+
+    @Test
+    public void repetitionsSurviveCodecAndReparse() throws RedeggsParseException {
+        String oldText = "x(ab){2,5}y";
+        RegularEggspression previous = parser.parse(oldText);
+        RegularEggspression decoded = RedeggsCodec.decode(RedeggsCodec.encode(previous), new RangeSymbolFactory());
+        assertThat(decoded.toString()).isEqualTo(previous.toString());
+
+        RegularEggspression edited = parser.reparse(previous, oldText, new TextEdit(3, 1, "c"));
+        assertThat(edited.toString()).isEqualTo(parser.parse("x(ac){2,5}y").toString());
+    }
+
+}
@@ -0,0 +1,118 @@
+package de.dhbw.mh.redeggs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link ScratchPool} and the engines sharing scratch space
+ * through it.
+ */
+public class ScratchPoolTest {
+
+    private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory
+            .getThreadMXBean();
+
+    /** The parser used to create the expressions under test. */
+    private final RecursiveDescentRedeggsParser parser = new RecursiveDescentRedeggsParser(new RangeSymbolFactory());
+
+    @Test
+    public void releasedObjectsAreReused() {
+        AtomicInteger created = new AtomicInteger();
+        ScratchPool<int[]> pool = new ScratchPool<>(() -> new int[created.incrementAndGet()], 3);
+        assertThat(pool.capacity()).isEqualTo(4);
+
+        int[] first = pool.acquire();
+        int[] second = pool.acquire();
+        assertThat(second).isNotSameAs(first);
+        pool.release(first);
+        assertThat(pool.acquire()).isSameAs(first);
+        assertThat(created).hasValue(2);
+    }
+
+    @Test
+    public void surplusObjectsAreDropped() {
+        ScratchPool<Object> pool = new ScratchPool<>(Object::new, 2);
+        List<Object> items = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            items.add(pool.acquire());
+        }
+        items.forEach(pool::release);
+
+        List<Object> kept = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            kept.add(pool.acquire());
+        }
+        assertThat(kept.stream().filter(items::contains).count()).isEqualTo(2);
+    }
+
+    @Test
+    public void concurrentCallersNeverShareAnObject() throws Exception {
+        ScratchPool<AtomicBoolean> pool = new ScratchPool<>(AtomicBoolean::new, 4);
+        AtomicInteger conflicts = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 16; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        AtomicBoolean inUse = pool.acquire();
+                        if (!inUse.compareAndSet(false, true)) {
+                            conflicts.incrementAndGet();
+                        }
+                        inUse.set(false);
+                        pool.release(inUse);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(conflicts).hasValue(0);
+    }
+
+    @Test
+    public void sharedEnginesMatchConcurrentlyWithoutAllocating() throws Exception {
+        RegularEggspression expression = parser.parse("(a|b)*a(a|b)(a|b)(a|b)(a|b)(a|b)(a|b)(a|b)(a|b)(a|b)"
+                .repeat(8).replace("(a|b)*", "[a-z]*") + "x");
+        BitParallelMatcher wide = BitParallelMatcher.compile(expression);
+        assertThat(wide.stateWords()).isGreaterThan(1);
+        PikeVM pike = PikeVM.compile(expression);
+        String input = "ab".repeat(200) + "x";
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    wide.find(input);
+                    pike.find(input);
+                    long before = THREADS.getCurrentThreadAllocatedBytes();
+                    for (int i = 0; i < 200; i++) {
+                        assertThat(wide.find(input)).isEqualTo(pike.find(input));
+                    }
+                    return THREADS.getCurrentThreadAllocatedBytes() - before;
+                }));
+            }
+            for (Future<Long> future : futures) {
+                // the assertions themselves allocate a little
+                assertThat(future.get()).isLessThan(200 * 1_024L);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
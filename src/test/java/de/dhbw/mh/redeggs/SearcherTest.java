@@ -0,0 +1,105 @@
+package de.dhbw.mh.redeggs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link Searcher}.
+ */
+public class SearcherTest {
+
+    /** The parser used to create the expressions under test. */
+    private final RecursiveDescentRedeggsParser parser = new RecursiveDescentRedeggsParser(new RangeSymbolFactory());
+
+    /**
+     * Finds all leftmost-longest matches by trying every span.
+     */
+    private static List<Match> bruteForce(Pattern pattern, String input) {
+        List<Match> matches = new ArrayList<>();
+        int from = 0;
+        while (from <= input.length()) {
+            int start = -1, end = -1;
+            for (int s = from; s <= input.length() && start < 0; s++) {
+                for (int e = input.length(); e >= s; e--) {
+                    if (pattern.matcher(input.substring(s, e)).matches()) {
+                        start = s;
+                        end = e;
+                        break;
+                    }
+                }
+            }
+            if (start < 0) {
+                break;
+            }
+            matches.add(new Match(start, end, 0));
+            from = end > start ? end : start + 1;
+        }
+        return matches;
+    }
+
+    @Test
+    public void findsLeftmostLongestMatches() throws RedeggsParseException {
+        Searcher searcher = Searcher.compile(parser.parse("a|ab|abc"));
+
+        assertThat(searcher.findAll("xabcabxa")).containsExactly(new Match(1, 4, 0), new Match(4, 6, 0),
+                new Match(7, 8, 0));
+    }
+
+    @Test
+    public void agreesWithBruteForce() throws RedeggsParseException {
+        String[] regexes = { "ab*", "(ab|b)*c", "[a-b][a-c]*b", "c*" };
+        Random random = new Random(39);
+        for (String regex : regexes) {
+            Searcher searcher = Searcher.compile(parser.parse(regex));
+            Pattern pattern = Pattern.compile(regex);
+            for (int i = 0; i < 300; i++) {
+                StringBuilder input = new StringBuilder();
+                for (int n = random.nextInt(20); n > 0; n--) {
+                    input.append("abcd".charAt(random.nextInt(4)));
+                }
+                String text = input.toString();
+                assertThat(searcher.findAll(text)).as("%s in %s", regex, text)
+                        .isEqualTo(bruteForce(pattern, text));
+            }
+        }
+    }
+
+    @Test
+    public void denseMatchesTakeLinearTime() throws RedeggsParseException {
+        Searcher searcher = Searcher.compile(parser.parse("a|a*b"));
+        // every run would read to the end of the input without memoizing failed states
+        String small = "a".repeat(20_000);
+        String large = "a".repeat(1_000_000);
+        SpanBuffer spans = new SpanBuffer();
+
+        assertThat(searcher.findAll(small, spans)).isEqualTo(small.length());
+        long start = System.nanoTime();
+        assertThat(searcher.findAll(large, spans)).isEqualTo(large.length());
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+        assertThat(searcher.findAll("aab" + "a".repeat(100))).startsWith(new Match(0, 3, 0)).hasSize(101);
+    }
+
+    @Test
+    public void reportsLowestRuleOfLongestMatch() throws RedeggsParseException {
+        Searcher searcher = Searcher.compile(List.of(parser.parse("if"), parser.parse("[a-z][a-z]*"),
+                parser.parse("[0-9][0-9]*")));
+
+        assertThat(searcher.findAll("if iffy 42🥚x")).containsExactly(new Match(0, 2, 0), new Match(3, 7, 1),
+                new Match(8, 10, 2), new Match(12, 13, 1));
+    }
+
+    @Test
+    public void reverseMirrorsConcatenations() throws RedeggsParseException {
+        RegularEggspression reversed = Searcher.reverse(parser.parse("ab(cd)*e"));
+
+        assertThat(LanguageRelations.areEquivalent(reversed, parser.parse("e(dc)*ba"))).isTrue();
+    }
+
+}
@@ -0,0 +1,97 @@
+package de.dhbw.mh.redeggs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link Tokenizer} and the primitive span output of the
+ * engines.
+ */
+public class TokenizerTest {
+
+    /** The parser used to create the expressions under test. */
+    private final RecursiveDescentRedeggsParser parser = new RecursiveDescentRedeggsParser(new RangeSymbolFactory());
+
+    private Tokenizer lexer(TableLayout layout) throws RedeggsParseException {
+        List<RegularEggspression> rules = new ArrayList<>();
+        for (String regex : new String[] { "if|while", "[a-z][a-z0-9]*", "[0-9][0-9]*", "[ ][ ]*", "=|==" }) {
+            rules.add(parser.parse(regex));
+        }
+        return Tokenizer.compile(rules, layout);
+    }
+
+    private static String describe(SpanBuffer spans, String input) {
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < spans.size(); i++) {
+            description.append(spans.rule(i)).append(':')
+                    .append(input, spans.start(i), spans.end(i)).append(' ');
+        }
+        return description.toString().trim();
+    }
+
+    @Test
+    public void tokenizesByMaximalMunch() throws RedeggsParseException {
+        String input = "if x1==42 while iffy=🥚🥚 7";
+        for (TableLayout layout : TableLayout.values()) {
+            SpanBuffer spans = new SpanBuffer(1);
+
+            assertThat(lexer(layout).tokenize(input, spans)).isEqualTo(spans.size());
+            assertThat(describe(spans, input))
+                    .isEqualTo("0:if 3:  1:x1 4:== 2:42 3:  0:while 3:  1:iffy 4:= -1:🥚🥚 3:  2:7");
+        }
+    }
+
+    @Test
+    public void spanBufferGrowsAndIsReusable() {
+        SpanBuffer spans = new SpanBuffer(2);
+        for (int i = 0; i < 100; i++) {
+            spans.match(i, i + 1, i % 3);
+        }
+
+        assertThat(spans.size()).isEqualTo(100);
+        assertThat(spans.rule(98)).isEqualTo(2);
+        assertThat(spans.array()[3 * 50]).isEqualTo(50);
+        spans.clear();
+        assertThat(spans.size()).isZero();
+        assertThatThrownBy(() -> spans.start(0)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    @Test
+    public void searcherReportsSpansToSink() throws RedeggsParseException {
+        Searcher searcher = Searcher.compile(parser.parse("ab*"));
+        SpanBuffer spans = new SpanBuffer();
+
+        assertThat(searcher.findAll("xabbbyaab", spans)).isEqualTo(3);
+        assertThat(describe(spans, "xabbbyaab")).isEqualTo("0:abbb 0:a 0:ab");
+    }
+
+    @Test
+    public void tokenizingWithReusedBufferDoesNotAllocate() throws RedeggsParseException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        Tokenizer tokenizer = lexer(TableLayout.COMPRESSED_NARROW);
+        String input = "while x1 == 42 if y 7 ".repeat(50);
+        SpanBuffer spans = new SpanBuffer();
+        for (int i = 0; i < 2000; i++) {
+            spans.clear();
+            tokenizer.tokenize(input, spans);
+        }
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 1000; i++) {
+            spans.clear();
+            tokenizer.tokenize(input, spans);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertThat(spans.size()).isEqualTo(50 * 14);
+        assertThat(allocated).isLessThan(64 * 1024);
+    }
+
+}